@@ -0,0 +1,58 @@
+package me.widua.benchmarks;
+
+import me.widua.bookMicroservice.models.BookModel;
+import me.widua.bookMicroservice.models.ResponseModel;
+import me.widua.bookMicroservice.service.BookServiceImpl;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/*
+ * Bulk insert through BookServiceImpl.addBooks against embedded H2: validation, the existence
+ * check and the batched inserts. Every invocation inserts fresh ISBNs, the table is emptied per iteration.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class AddBooksBenchmark {
+
+    @Param({"100", "1000"})
+    private int batchSize;
+
+    private BookServiceContext context;
+    private BookServiceImpl service;
+    private long nextNumber;
+    private List<BookModel> batch;
+
+    @Setup
+    public void setUp(){
+        context = new BookServiceContext();
+        service = context.getBean(BookServiceImpl.class);
+    }
+
+    @Setup(Level.Invocation)
+    public void prepareBatch(){
+        batch = BookServiceContext.books(nextNumber, batchSize);
+        nextNumber += batchSize;
+    }
+
+    @TearDown(Level.Iteration)
+    public void clearBooks(){
+        context.clearBooks();
+    }
+
+    @TearDown
+    public void tearDown(){
+        context.close();
+    }
+
+    @Benchmark
+    public ResponseModel<Void> addBooks(){
+        return service.addBooks(batch);
+    }
+
+}
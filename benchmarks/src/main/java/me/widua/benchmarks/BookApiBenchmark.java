@@ -0,0 +1,54 @@
+package me.widua.benchmarks;
+
+import me.widua.bookMicroservice.service.BookServiceImpl;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+import org.springframework.web.context.WebApplicationContext;
+
+import java.util.concurrent.TimeUnit;
+
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+
+/*
+ * Full request handling of BookApi through MockMvc: dispatching, the service, H2 and JSON writing.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class BookApiBenchmark {
+
+    private static final int CATALOG_SIZE = 5_000;
+
+    private BookServiceContext context;
+    private MockMvc mvc;
+    private String deepCursor;
+
+    @Setup
+    public void setUp(){
+        context = new BookServiceContext();
+        context.getBean(BookServiceImpl.class).addBooks(BookServiceContext.books(0, CATALOG_SIZE));
+        mvc = MockMvcBuilders.webAppContextSetup((WebApplicationContext) context.getContext()).build();
+        deepCursor = String.valueOf(CATALOG_SIZE - 100);
+    }
+
+    @TearDown
+    public void tearDown(){
+        context.close();
+    }
+
+    @Benchmark
+    public MvcResult firstPage() throws Exception {
+        return mvc.perform(get("/api/books")).andReturn();
+    }
+
+    @Benchmark
+    public MvcResult deepPage() throws Exception {
+        return mvc.perform(get("/api/books").param("after", deepCursor).param("size", "50")).andReturn();
+    }
+
+}
@@ -0,0 +1,74 @@
+package me.widua.benchmarks;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import me.widua.bookMicroservice.models.BookModel;
+import me.widua.bookMicroservice.models.BookPageModel;
+import me.widua.bookMicroservice.models.types.BookType;
+import me.widua.bookMicroservice.service.BookServiceImpl;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/*
+ * In-memory hot paths around BookModel: merging a partial update and JSON serialization
+ * of a single book and of a full list page, using the ObjectMapper configured by Spring Boot.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class BookModelBenchmark {
+
+    private BookServiceContext context;
+    private BookServiceImpl service;
+    private ObjectMapper mapper;
+
+    private BookModel book;
+    private BookModel partialUpdate;
+    private BookPageModel<BookModel> page;
+
+    @Setup
+    public void setUp(){
+        context = new BookServiceContext();
+        service = context.getBean(BookServiceImpl.class);
+        mapper = context.getBean(ObjectMapper.class);
+
+        book = BookServiceContext.books(1, 1).get(0);
+        book.setId(1);
+        partialUpdate = new BookModel();
+        partialUpdate.setBookTitle("Updated title");
+        partialUpdate.setBookType(BookType.AUDIOBOOK);
+        partialUpdate.setInStorage(7);
+
+        List<BookModel> books = BookServiceContext.books(1, 50);
+        for (int i = 0; i < books.size(); i++){
+            books.get(i).setId(i + 1);
+        }
+        page = new BookPageModel<>(books, 50);
+    }
+
+    @TearDown
+    public void tearDown(){
+        context.close();
+    }
+
+    @Benchmark
+    public BookModel prepareBookToUpdate(){
+        return service.prepareBookToUpdate(book, partialUpdate);
+    }
+
+    @Benchmark
+    public byte[] serializeBook() throws JsonProcessingException {
+        return mapper.writeValueAsBytes(book);
+    }
+
+    @Benchmark
+    public byte[] serializePage() throws JsonProcessingException {
+        return mapper.writeValueAsBytes(page);
+    }
+
+}
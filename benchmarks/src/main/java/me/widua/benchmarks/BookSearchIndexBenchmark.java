@@ -0,0 +1,64 @@
+package me.widua.benchmarks;
+
+import me.widua.bookMicroservice.models.BookModel;
+import me.widua.bookMicroservice.models.types.BookType;
+import me.widua.bookMicroservice.search.BookSearchIndex;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/*
+ * Query latency of BookSearchIndex on a synthetic catalog: a selective two word query,
+ * a short "search as you type" prefix and a filtered query.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = "-Xmx4g")
+public class BookSearchIndexBenchmark {
+
+    private static final String[] WORDS = {
+            "shadow", "river", "king", "garden", "winter", "secret", "ocean", "history", "letters", "mountain",
+            "silent", "empire", "stone", "journey", "night", "city", "forest", "daughter", "machine", "island"
+    };
+
+    @Param({"100000", "1000000"})
+    private int catalogSize;
+
+    private BookSearchIndex index;
+
+    @Setup
+    public void setUp(){
+        index = new BookSearchIndex(256);
+        Random random = new Random(42);
+        for (int i = 1; i <= catalogSize; i++){
+            String title = word(random) + " " + word(random) + " " + word(random) + " " + i;
+            String author = "Author" + random.nextInt(50_000);
+            String description = word(random) + " " + word(random) + " " + word(random) + " " + word(random);
+            index.index(new BookModel(i, author, title, null, description, BookType.values()[i % 3], 1));
+        }
+    }
+
+    private static String word(Random random){
+        return WORDS[random.nextInt(WORDS.length)];
+    }
+
+    @Benchmark
+    public BookSearchIndex.SearchResult selectiveQuery(){
+        return index.search("author12345 shadow", null, 0, 20);
+    }
+
+    @Benchmark
+    public BookSearchIndex.SearchResult typedPrefix(){
+        return index.search("author1234", null, 0, 20);
+    }
+
+    @Benchmark
+    public BookSearchIndex.SearchResult filteredQuery(){
+        return index.search("winter isl", BookType.AUDIOBOOK, 0, 20);
+    }
+
+}
@@ -0,0 +1,102 @@
+package me.widua.benchmarks;
+
+import me.widua.bookMicroservice.BookMicroserviceApplication;
+import me.widua.bookMicroservice.cache.BookCache;
+import me.widua.bookMicroservice.models.BookModel;
+import me.widua.bookMicroservice.models.types.BookType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.boot.web.context.WebServerApplicationContext;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/*
+ * Boots the whole book service against an in-memory H2 database, the way the JMH states share it.
+ */
+public class BookServiceContext implements AutoCloseable {
+
+    private final ConfigurableApplicationContext context;
+
+    /*
+     * Extra arguments, e.g. "--library.threads.virtual=true", are applied after the defaults and override them.
+     */
+    public BookServiceContext(String... arguments){
+        List<String> allArguments = arguments(0);
+        allArguments.addAll(Arrays.asList(arguments));
+        this.context = new SpringApplicationBuilder(BookMicroserviceApplication.class)
+                .run(allArguments.toArray(String[]::new));
+    }
+
+    /*
+     * Passed as arguments, so they take precedence over the service's application.yaml.
+     */
+    static List<String> arguments(int port){
+        return new ArrayList<>(Arrays.asList(
+                "--server.port=" + port,
+                "--spring.main.banner-mode=off",
+                "--eureka.client.enabled=false",
+                "--logging.level.root=warn",
+                "--spring.datasource.url=jdbc:h2:mem:benchmarks;DB_CLOSE_DELAY=-1",
+                "--spring.datasource.username=sa",
+                "--spring.datasource.password=",
+                "--spring.r2dbc.url=r2dbc:h2:mem:///benchmarks",
+                "--spring.r2dbc.username=sa",
+                "--spring.r2dbc.password=",
+                "--spring.jpa.database=h2",
+                "--spring.jpa.hibernate.ddl-auto=create-drop"
+        ));
+    }
+
+    public ConfigurableApplicationContext getContext(){
+        return context;
+    }
+
+    public int getPort(){
+        return ((WebServerApplicationContext) context).getWebServer().getPort();
+    }
+
+    public <T> T getBean(Class<T> type){
+        return context.getBean(type);
+    }
+
+    public void clearBooks(){
+        getBean(JdbcTemplate.class).update("delete from book_model");
+        getBean(BookCache.class).invalidateAll();
+    }
+
+    /*
+     * Books with distinct, checksum valid ISBN-13 numbers starting from the given sequence number.
+     */
+    public static List<BookModel> books(long firstNumber, int count){
+        List<BookModel> books = new ArrayList<>(count);
+        for (int i = 0; i < count; i++){
+            books.add(new BookModel(
+                    "Author " + (i % 100),
+                    "Title " + (firstNumber + i),
+                    isbn(firstNumber + i),
+                    "Description of book number " + (firstNumber + i),
+                    BookType.values()[i % BookType.values().length],
+                    i % 20));
+        }
+        return books;
+    }
+
+    public static String isbn(long number){
+        String body = String.format("978%09d", number % 1_000_000_000L);
+        int sum = 0;
+        for (int i = 0; i < body.length(); i++){
+            int value = body.charAt(i) - '0';
+            sum += (i & 1) == 0 ? value : value * 3;
+        }
+        return body + (10 - sum % 10) % 10;
+    }
+
+    @Override
+    public void close(){
+        context.close();
+    }
+
+}
@@ -0,0 +1,55 @@
+package me.widua.benchmarks;
+
+import me.widua.libraryCommon.IsbnValidator;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.concurrent.TimeUnit;
+
+/*
+ * Compares the regex check BookServiceImpl used before (String.matches, which compiles the pattern
+ * on every call) with IsbnValidator over a mix of plain, hyphenated and invalid numbers.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class IsbnValidationBenchmark {
+
+    private static final String LEGACY_REGEX = "(?=[0-9]*$)(?:.{10}|.{13})";
+
+    private final IsbnValidator validator = new IsbnValidator();
+
+    private final String[] isbns = {
+            "0747532699",
+            "9780747532699",
+            "978-0-7475-3269-9",
+            "080442957X",
+            "56043",
+            "9780747532698"
+    };
+
+    @Benchmark
+    public void legacyRegex(Blackhole blackhole){
+        for (String isbn : isbns){
+            blackhole.consume(isbn.matches(LEGACY_REGEX));
+        }
+    }
+
+    @Benchmark
+    public void validatorIsValid(Blackhole blackhole){
+        for (String isbn : isbns){
+            blackhole.consume(validator.isValid(isbn));
+        }
+    }
+
+    @Benchmark
+    public void validatorNormalize(Blackhole blackhole){
+        for (String isbn : isbns){
+            blackhole.consume(validator.normalize(isbn));
+        }
+    }
+
+}
@@ -0,0 +1,99 @@
+package me.widua.benchmarks;
+
+import me.widua.borrowOperationMicroservice.BorrowOperationMicroservice;
+import me.widua.borrowOperationMicroservice.inventory.BookInventory;
+import me.widua.borrowOperationMicroservice.models.LoanModel;
+import me.widua.borrowOperationMicroservice.models.ResponseModel;
+import me.widua.borrowOperationMicroservice.service.LoanServiceImpl;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/*
+ * Borrow and return through LoanServiceImpl on 16 threads, each operation waits for its ledger commit on embedded H2.
+ * books=1 is one hot title every thread fights over, books=1000 spreads the load. ledgerBatchSize=1 turns group
+ * commit off (one transaction per event) for comparison. The book service is replaced by unlimited stock.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 2, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@Threads(16)
+public class LoanLedgerBenchmark {
+
+    @Param({"1", "1000"})
+    private int books;
+
+    @Param({"1", "500"})
+    private int ledgerBatchSize;
+
+    private ConfigurableApplicationContext context;
+    private LoanServiceImpl service;
+
+    @Setup
+    public void setUp(){
+        context = new SpringApplicationBuilder(BorrowOperationMicroservice.class, UnlimitedStock.class)
+                .web(WebApplicationType.NONE)
+                .run("--spring.main.banner-mode=off",
+                        "--logging.level.root=warn",
+                        "--eureka.client.enabled=false",
+                        // The book service's R2DBC driver is on this classpath too, it would stop Boot's JDBC DataSource
+                        "--spring.autoconfigure.exclude=org.springframework.boot.autoconfigure.r2dbc.R2dbcAutoConfiguration",
+                        "--spring.datasource.url=jdbc:h2:mem:loanLedger;DB_CLOSE_DELAY=-1",
+                        "--spring.datasource.username=sa",
+                        "--spring.datasource.password=",
+                        "--spring.jpa.database=h2",
+                        "--spring.jpa.hibernate.ddl-auto=create-drop",
+                        "--borrow.ledger.batch-size=" + ledgerBatchSize);
+        service = context.getBean(LoanServiceImpl.class);
+    }
+
+    @TearDown
+    public void tearDown(){
+        context.close();
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(2)
+    public ResponseModel<LoanModel> borrowAndReturn(){
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        String isbn = BookServiceContext.isbn(random.nextInt(books));
+        LoanModel loan = service.borrowBook(isbn, random.nextInt(Integer.MAX_VALUE)).getBody();
+        return service.returnBook(loan.loanId());
+    }
+
+    @Configuration
+    public static class UnlimitedStock {
+
+        @Bean
+        @Primary
+        public BookInventory unlimitedStock(){
+            return new BookInventory() {
+                @Override
+                public boolean reserve(String isbn){
+                    return true;
+                }
+
+                @Override
+                public void release(String isbn){
+                }
+
+                @Override
+                public boolean exists(String isbn){
+                    return true;
+                }
+            };
+        }
+
+    }
+
+}
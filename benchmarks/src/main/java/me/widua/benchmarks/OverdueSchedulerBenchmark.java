@@ -0,0 +1,90 @@
+package me.widua.benchmarks;
+
+import me.widua.borrowOperationMicroservice.models.LoanModel;
+import me.widua.borrowOperationMicroservice.overdue.LoanDeadlineEvent;
+import me.widua.borrowOperationMicroservice.models.types.LoanDeadlineType;
+import me.widua.borrowOperationMicroservice.overdue.OverdueScheduler;
+import org.openjdk.jmh.annotations.*;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/*
+ * OverdueScheduler holding the given number of loans, due evenly over 21 days. The setup prints the heap the
+ * scheduler takes per loan (the LoanModels themselves are left out, the loan service holds them anyway). tick
+ * advances the wheels by one minute, the loans it fires are borrowed again, so the number of loans stays the same.
+ * scheduleAndCancel is a borrow and return of one more loan.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 2, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgs = {"-Xmx2g"})
+public class OverdueSchedulerBenchmark {
+    private static final Instant START = Instant.parse("2026-01-01T00:00:00Z");
+    private static final Duration LOAN_PERIOD = Duration.ofDays(21);
+
+    @Param({"100000", "1000000"})
+    private int loans;
+
+    private OverdueScheduler scheduler;
+    private Instant now;
+    private LoanModel extraLoan;
+
+    @Setup
+    public void setUp(){
+        List<LoanModel> active = new ArrayList<>(loans);
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        for (int i = 0; i < loans; i++){
+            active.add(loan(START.plusSeconds(random.nextLong(LOAN_PERIOD.toSeconds()))));
+        }
+        long before = usedHeap();
+        scheduler = new OverdueScheduler(this::borrowAgain, Duration.ofMinutes(1), Duration.ofDays(2),
+                Duration.ofHours(24), 1000, Clock.fixed(START, ZoneOffset.UTC));
+        active.forEach(scheduler::schedule);
+        long after = usedHeap();
+        System.out.printf("%n%d loans scheduled: %.1f bytes per loan%n", scheduler.scheduledLoans(), (after - before) / (double) loans);
+        now = START;
+        extraLoan = loan(START.plus(LOAN_PERIOD));
+    }
+
+    @Benchmark
+    public void tick(){
+        now = now.plus(Duration.ofMinutes(1));
+        scheduler.advanceTo(now);
+    }
+
+    @Benchmark
+    public void scheduleAndCancel(){
+        scheduler.schedule(extraLoan);
+        scheduler.cancel(extraLoan.loanId());
+    }
+
+    private void borrowAgain(Object event){
+        LoanDeadlineEvent deadline = (LoanDeadlineEvent) event;
+        if (deadline.type() == LoanDeadlineType.OVERDUE){
+            deadline.loans().forEach(loan -> scheduler.schedule(loan(loan.dueAt().plus(LOAN_PERIOD))));
+        }
+    }
+
+    private static LoanModel loan(Instant dueAt){
+        return new LoanModel(UUID.randomUUID(), "9785006001206", 1, dueAt.minus(LOAN_PERIOD), dueAt);
+    }
+
+    private static long usedHeap(){
+        for (int i = 0; i < 3; i++){
+            System.gc();
+        }
+        Runtime runtime = Runtime.getRuntime();
+        return runtime.totalMemory() - runtime.freeMemory();
+    }
+
+}
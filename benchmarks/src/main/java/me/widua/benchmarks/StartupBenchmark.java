@@ -0,0 +1,193 @@
+package me.widua.benchmarks;
+
+import io.r2dbc.h2.H2ConnectionFactory;
+import org.h2.Driver;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.UncheckedIOException;
+import java.net.ServerSocket;
+import java.net.URI;
+import java.net.URISyntaxException;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/*
+ * Starts the book service as a fresh JVM over and over and reports the startup time Spring Boot logs and the time
+ * from launching the JVM to the first answered request. The service runs from the target/cds layout written by
+ * mvn -Pstartup package, on in-memory H2, in every combination of AOT (-Dspring.aot.enabled), CDS and lazy
+ * initialization named in --modes. CDS archives are trained here, with a first request, once per AOT setting, because
+ * the H2 jars make the classpath differ from the one the archive of the build was trained with.
+ *
+ * Options: --runs 5 --modes default,lazy,cds,aot,aot-cds,aot-cds-lazy --app ../bookMicroservice/target/cds
+ *          --path /api/books?size=1 --timeout 120
+ */
+public class StartupBenchmark {
+    private static final String MAIN_CLASS = "me.widua.bookMicroservice.BookMicroserviceApplication";
+    private static final Pattern STARTED = Pattern.compile("Started \\w+ in ([0-9.]+) seconds");
+
+    public static void main(String[] args) throws Exception {
+        Map<String, String> options = options(args);
+        int runs = Integer.parseInt(options.getOrDefault("runs", "5"));
+        List<String> modes = Arrays.asList(options.getOrDefault("modes", "default,lazy,cds,aot,aot-cds,aot-cds-lazy").split(","));
+        Path app = Path.of(options.getOrDefault("app", "../bookMicroservice/target/cds")).toAbsolutePath().normalize();
+        String path = options.getOrDefault("path", "/api/books?size=1");
+        Duration timeout = Duration.ofSeconds(Long.parseLong(options.getOrDefault("timeout", "120")));
+
+        Path jar = app.resolve("bookMicroservice-cds.jar");
+        if (!Files.exists(jar)){
+            throw new IllegalStateException(String.format("%s is missing, build it with mvn -Pstartup package -pl bookMicroservice -Dcds.training.skip=true!", jar));
+        }
+        String classpath = String.join(File.pathSeparator, jar.toString(), app.resolve("lib").resolve("*").toString(),
+                location(Driver.class), location(H2ConnectionFactory.class));
+        Path archives = Files.createDirectories(Path.of("target", "startup")).toAbsolutePath();
+
+        for (String mode : modes){
+            List<String> flags = Arrays.asList(mode.split("-"));
+            boolean aot = flags.contains("aot");
+            List<String> jvm = new ArrayList<>();
+            if (aot){
+                jvm.add("-Dspring.aot.enabled=true");
+            }
+            if (flags.contains("cds")){
+                Path archive = archives.resolve(aot ? "aot.jsa" : "jit.jsa");
+                if (!Files.exists(archive)){
+                    List<String> training = new ArrayList<>(jvm);
+                    training.add("-XX:ArchiveClassesAtExit=" + archive);
+                    training.add("-Xlog:cds=off");
+                    launch(classpath, training, List.of(), path, timeout);
+                }
+                jvm.add("-XX:SharedArchiveFile=" + archive);
+            }
+            List<String> arguments = new ArrayList<>();
+            if (flags.contains("lazy")){
+                arguments.add("--spring.main.lazy-initialization=true");
+            }
+            double[] started = new double[runs];
+            double[] firstRequest = new double[runs];
+            for (int i = 0; i < runs; i++){
+                Startup startup = launch(classpath, jvm, arguments, path, timeout);
+                started[i] = startup.startedSeconds * 1000;
+                firstRequest[i] = startup.firstRequestMillis;
+            }
+            Arrays.sort(started);
+            Arrays.sort(firstRequest);
+            System.out.printf("mode=%s runs=%d started p50=%.0f ms min=%.0f ms first-request p50=%.0f ms min=%.0f ms%n",
+                    mode, runs, started[runs / 2], started[0], firstRequest[runs / 2], firstRequest[0]);
+        }
+    }
+
+    /*
+     * Launches the service, polls the path until it answers without an error and stops the JVM again. SIGTERM lets the JVM
+     * exit normally, which is when -XX:ArchiveClassesAtExit writes its archive.
+     */
+    private static Startup launch(String classpath, List<String> jvm, List<String> arguments, String path, Duration timeout)
+            throws IOException, InterruptedException {
+        int port = freePort();
+        List<String> command = new ArrayList<>();
+        command.add(Path.of(System.getProperty("java.home"), "bin", "java").toString());
+        command.addAll(jvm);
+        command.addAll(List.of("-cp", classpath, MAIN_CLASS));
+        command.addAll(BookServiceContext.arguments(port));
+        command.add("--logging.level." + MAIN_CLASS + "=info");
+        command.addAll(arguments);
+
+        HttpClient client = HttpClient.newBuilder().connectTimeout(Duration.ofSeconds(1)).build();
+        HttpRequest request = HttpRequest.newBuilder(URI.create("http://localhost:" + port + path)).GET().build();
+        long launched = System.nanoTime();
+        Process process = new ProcessBuilder(command).redirectErrorStream(true).start();
+        CompletableFuture<Double> started = startedSeconds(process);
+        try {
+            long deadline = launched + timeout.toNanos();
+            while (true){
+                if (!process.isAlive()){
+                    throw new IllegalStateException(String.format("Service exited with %d before answering!", process.exitValue()));
+                }
+                if (System.nanoTime() > deadline){
+                    throw new IllegalStateException(String.format("Service didn't answer %s within %s!", path, timeout));
+                }
+                try {
+                    if (client.send(request, HttpResponse.BodyHandlers.discarding()).statusCode() < 400){
+                        break;
+                    }
+                } catch (IOException e) {
+                    // Not listening yet
+                }
+                Thread.sleep(10);
+            }
+            double firstRequestMillis = (System.nanoTime() - launched) / 1_000_000.0;
+            return new Startup(started.join(), firstRequestMillis);
+        } finally {
+            process.destroy();
+            if (!process.waitFor(timeout.toSeconds(), TimeUnit.SECONDS)){
+                process.destroyForcibly().waitFor();
+            }
+        }
+    }
+
+    /*
+     * Reads the whole output on its own thread, so the service never blocks on a full pipe, and completes with the
+     * seconds of Spring Boot's "Started" line.
+     */
+    private static CompletableFuture<Double> startedSeconds(Process process){
+        CompletableFuture<Double> started = new CompletableFuture<>();
+        Thread reader = new Thread(() -> {
+            try (BufferedReader output = new BufferedReader(new InputStreamReader(process.getInputStream()))){
+                String line;
+                while ((line = output.readLine()) != null){
+                    Matcher matcher = STARTED.matcher(line);
+                    if (!started.isDone() && matcher.find()){
+                        started.complete(Double.parseDouble(matcher.group(1)));
+                    }
+                }
+            } catch (IOException e) {
+                started.completeExceptionally(new UncheckedIOException(e));
+            }
+            started.complete(Double.NaN);
+        }, "startup-output");
+        reader.setDaemon(true);
+        reader.start();
+        return started;
+    }
+
+    private static String location(Class<?> type){
+        try {
+            return Path.of(type.getProtectionDomain().getCodeSource().getLocation().toURI()).toString();
+        } catch (URISyntaxException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static int freePort() throws IOException {
+        try (ServerSocket socket = new ServerSocket(0)){
+            return socket.getLocalPort();
+        }
+    }
+
+    private static Map<String, String> options(String[] args){
+        Map<String, String> options = new HashMap<>();
+        for (int i = 0; i + 1 < args.length; i += 2){
+            options.put(args[i].replaceFirst("^--", ""), args[i + 1]);
+        }
+        return options;
+    }
+
+    private record Startup(double startedSeconds, double firstRequestMillis){
+    }
+
+}
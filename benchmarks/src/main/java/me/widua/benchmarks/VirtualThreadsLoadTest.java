@@ -0,0 +1,145 @@
+package me.widua.benchmarks;
+
+import me.widua.bookMicroservice.service.BookServiceImpl;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+/*
+ * Closed-loop HTTP load against the book service on a real Tomcat, run once on the platform thread pool and once
+ * with library.threads.virtual=true, reporting throughput and latency percentiles of both modes.
+ * The virtual thread run is skipped on runtimes older than Java 21.
+ *
+ * Options: --concurrency 400 --warmup 5 --seconds 15 --books 10000 --pool 50 --path /api/books?size=50
+ */
+public class VirtualThreadsLoadTest {
+
+    public static void main(String[] args) throws InterruptedException {
+        Map<String, String> options = options(args);
+        int concurrency = Integer.parseInt(options.getOrDefault("concurrency", "400"));
+        int warmupSeconds = Integer.parseInt(options.getOrDefault("warmup", "5"));
+        int seconds = Integer.parseInt(options.getOrDefault("seconds", "15"));
+        int books = Integer.parseInt(options.getOrDefault("books", "10000"));
+        String pool = options.getOrDefault("pool", "50");
+        String path = options.getOrDefault("path", "/api/books?size=50");
+
+        for (boolean virtual : new boolean[]{false, true}){
+            String mode = virtual ? "virtual" : "platform";
+            if (virtual && Runtime.version().feature() < 21){
+                System.out.printf("mode=%s skipped, needs Java 21 or newer, running on %s%n", mode, Runtime.version());
+                continue;
+            }
+            try (BookServiceContext context = new BookServiceContext(
+                    "--library.threads.virtual=" + virtual,
+                    "--spring.datasource.hikari.maximum-pool-size=" + pool)){
+                context.getBean(BookServiceImpl.class).addBooks(BookServiceContext.books(0, books));
+                URI target = URI.create("http://localhost:" + context.getPort() + path);
+                Result result = run(target, concurrency, warmupSeconds, seconds);
+                System.out.printf("mode=%s concurrency=%d requests=%d errors=%d throughput=%.1f req/s p50=%.2f ms p99=%.2f ms max=%.2f ms%n",
+                        mode, concurrency, result.latencies.length, result.errors,
+                        result.latencies.length / (double) seconds,
+                        millis(result.percentile(0.50)), millis(result.percentile(0.99)), millis(result.percentile(1.0)));
+            }
+        }
+    }
+
+    private static Result run(URI target, int concurrency, int warmupSeconds, int seconds) throws InterruptedException {
+        HttpClient client = HttpClient.newBuilder()
+                .version(HttpClient.Version.HTTP_1_1)
+                .connectTimeout(Duration.ofSeconds(10))
+                .build();
+        HttpRequest request = HttpRequest.newBuilder(target).GET().build();
+        Recorder[] recorders = new Recorder[concurrency];
+        Thread[] workers = new Thread[concurrency];
+        AtomicLong errors = new AtomicLong();
+        long measureFrom = System.nanoTime() + Duration.ofSeconds(warmupSeconds).toNanos();
+        long measureTo = measureFrom + Duration.ofSeconds(seconds).toNanos();
+
+        for (int i = 0; i < concurrency; i++){
+            Recorder recorder = new Recorder();
+            recorders[i] = recorder;
+            workers[i] = new Thread(() -> {
+                long now = System.nanoTime();
+                while (now < measureTo){
+                    long start = now;
+                    boolean failed;
+                    try {
+                        failed = client.send(request, HttpResponse.BodyHandlers.discarding()).statusCode() >= 400;
+                    } catch (Exception e) {
+                        failed = true;
+                    }
+                    now = System.nanoTime();
+                    if (start >= measureFrom && now <= measureTo){
+                        if (failed){
+                            errors.incrementAndGet();
+                        } else {
+                            recorder.add(now - start);
+                        }
+                    }
+                }
+            }, "load-" + i);
+            workers[i].start();
+        }
+        List<long[]> recorded = new ArrayList<>(concurrency);
+        int total = 0;
+        for (int i = 0; i < concurrency; i++){
+            workers[i].join();
+            recorded.add(recorders[i].latencies());
+            total += recorders[i].size;
+        }
+        long[] latencies = new long[total];
+        int offset = 0;
+        for (long[] part : recorded){
+            System.arraycopy(part, 0, latencies, offset, part.length);
+            offset += part.length;
+        }
+        Arrays.sort(latencies);
+        return new Result(latencies, errors.get());
+    }
+
+    private static Map<String, String> options(String[] args){
+        Map<String, String> options = new HashMap<>();
+        for (int i = 0; i + 1 < args.length; i += 2){
+            options.put(args[i].replaceFirst("^--", ""), args[i + 1]);
+        }
+        return options;
+    }
+
+    private static double millis(long nanos){
+        return nanos / 1_000_000.0;
+    }
+
+    private static final class Recorder {
+        private long[] values = new long[1024];
+        private int size;
+
+        void add(long value){
+            if (size == values.length){
+                values = Arrays.copyOf(values, size * 2);
+            }
+            values[size++] = value;
+        }
+
+        long[] latencies(){
+            return Arrays.copyOf(values, size);
+        }
+    }
+
+    private record Result(long[] latencies, long errors){
+        long percentile(double percentile){
+            if (latencies.length == 0) return 0;
+            int index = (int) Math.ceil(percentile * latencies.length) - 1;
+            return latencies[Math.max(index, 0)];
+        }
+    }
+
+}
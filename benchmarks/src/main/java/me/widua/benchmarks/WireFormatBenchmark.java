@@ -0,0 +1,76 @@
+package me.widua.benchmarks;
+
+import me.widua.bookClient.Book;
+import me.widua.bookClient.BookCodec;
+import me.widua.bookClient.BookPage;
+import me.widua.bookClient.BookType;
+import me.widua.bookMicroservice.models.BookModel;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/*
+ * Encode and decode time of the wire formats BookCodec speaks, for a single book and a 50 book page.
+ * Payload sizes don't change between runs, the setup prints them once per format.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class WireFormatBenchmark {
+
+    @Param({"json", "cbor"})
+    private String format;
+
+    private BookCodec codec;
+    private Book book;
+    private BookPage page;
+    private byte[] encodedBook;
+    private byte[] encodedPage;
+
+    @Setup
+    public void setUp(){
+        codec = format.equals("cbor") ? BookCodec.cbor() : BookCodec.json();
+        List<BookModel> models = BookServiceContext.books(1, 50);
+        List<Book> books = new ArrayList<>(models.size());
+        for (int i = 0; i < models.size(); i++){
+            books.add(toBook(i + 1, models.get(i)));
+        }
+        book = books.get(0);
+        page = new BookPage(books, 50);
+        encodedBook = codec.encode(book);
+        encodedPage = codec.encode(page);
+        System.out.printf("%n%s payload: book %d bytes, page of %d books %d bytes%n",
+                format, encodedBook.length, books.size(), encodedPage.length);
+    }
+
+    private static Book toBook(int id, BookModel model){
+        return new Book(id, model.getAuthor(), model.getBookTitle(), model.getISBN(),
+                model.getBookDescription(), BookType.valueOf(model.getBookType().name()), model.getInStorage(), 0L);
+    }
+
+    @Benchmark
+    public byte[] encodeBook(){
+        return codec.encode(book);
+    }
+
+    @Benchmark
+    public Book decodeBook(){
+        return codec.decodeBook(encodedBook);
+    }
+
+    @Benchmark
+    public byte[] encodePage(){
+        return codec.encode(page);
+    }
+
+    @Benchmark
+    public BookPage decodePage(){
+        return codec.decodePage(encodedPage);
+    }
+
+}
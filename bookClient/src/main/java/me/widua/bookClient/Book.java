@@ -0,0 +1,18 @@
+package me.widua.bookClient;
+
+import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
+
+/*
+ * A book as the book service returns it. Unknown properties are skipped, so the service can add fields
+ * without breaking clients built against an older version.
+ */
+@JsonIgnoreProperties(ignoreUnknown = true)
+public record Book(Integer id,
+                   String author,
+                   String bookTitle,
+                   String isbn,
+                   String bookDescription,
+                   BookType bookType,
+                   Integer inStorage,
+                   Long version) {
+}
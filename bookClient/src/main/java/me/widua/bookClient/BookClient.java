@@ -0,0 +1,195 @@
+package me.widua.bookClient;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import org.springframework.cloud.client.ServiceInstance;
+import org.springframework.cloud.client.loadbalancer.ServiceInstanceChooser;
+import org.springframework.http.HttpEntity;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.client.HttpClientErrorException;
+import org.springframework.web.client.HttpServerErrorException;
+import org.springframework.web.client.ResourceAccessException;
+import org.springframework.web.client.RestTemplate;
+import org.springframework.web.util.UriComponentsBuilder;
+
+import java.net.URI;
+import java.time.Duration;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.function.Function;
+
+/*
+ * Client of the book service for the other services. Every call picks an instance through service discovery (or
+ * goes to book.client.url) and runs in that instance's bulkhead, a semaphore of book.client.max-concurrent-calls:
+ * a slow instance holds at most that many threads of the caller, everything above waits book.client.bulkhead-wait
+ * and fails with BookServiceUnavailableException instead of queueing behind it.
+ *
+ * Lookups by ISBN are cached for book.client.cache-ttl, and concurrent lookups of an ISBN that isn't cached share a
+ * single call, so a burst on one book costs one request per TTL. Reserving can't be shared like that, it changes the
+ * stock, but a 409 marks the cached book as out of stock, so callers checking getBook first stop asking until the
+ * entry expires or release() invalidates it.
+ *
+ * Thread safe, one instance per application.
+ */
+public class BookClient {
+    private static final String BOOK_PATH = "/api/books/isbn/{isbn}";
+
+    private final RestTemplate rest ;
+    private final ServiceInstanceChooser instances ;
+    private final BookClientProperties properties ;
+    private final Cache<String, Optional<Book>> cache ;
+    private final Map<String, CompletableFuture<Optional<Book>>> lookups = new ConcurrentHashMap<>();
+    private final Map<URI, Semaphore> bulkheads = new ConcurrentHashMap<>();
+
+    // instances may be null when properties.url() is set
+    public BookClient(RestTemplate rest, ServiceInstanceChooser instances, BookClientProperties properties){
+        this.rest = rest;
+        this.instances = instances;
+        this.properties = properties;
+        this.cache = Caffeine.newBuilder()
+                .expireAfterWrite(properties.cacheTtl())
+                .maximumSize(properties.cacheSize())
+                .build();
+    }
+
+    /*
+     * The book, empty when the service doesn't know the ISBN. Callers that find no cached entry and no lookup
+     * running start one, the others wait for its result.
+     */
+    public Optional<Book> getBook(String isbn){
+        Optional<Book> cached = cache.getIfPresent(isbn);
+        if (cached != null){
+            return cached;
+        }
+        CompletableFuture<Optional<Book>> lookup = new CompletableFuture<>();
+        CompletableFuture<Optional<Book>> running = lookups.putIfAbsent(isbn, lookup);
+        if (running != null){
+            return await(running, isbn);
+        }
+        try {
+            // The previous lookup may have filled the cache between our check and winning the slot
+            Optional<Book> book = cache.getIfPresent(isbn);
+            if (book == null){
+                book = fetch(isbn);
+                cache.put(isbn, book);
+            }
+            lookup.complete(book);
+            return book;
+        } catch (RuntimeException e) {
+            lookup.completeExceptionally(e);
+            throw e;
+        } finally {
+            lookups.remove(isbn, lookup);
+        }
+    }
+
+    /*
+     * Takes one copy out of the stock, false when none is left or the book is unknown.
+     */
+    public boolean reserve(String isbn){
+        try {
+            call(target -> rest.postForEntity(uri(target, BOOK_PATH + "/reserve", isbn), null, Void.class));
+            return true;
+        } catch (HttpClientErrorException.Conflict e) {
+            cache.asMap().computeIfPresent(isbn, (key, book) -> book.map(BookClient::outOfStock));
+            return false;
+        } catch (HttpClientErrorException e) {
+            return false;
+        }
+    }
+
+    public void release(String isbn){
+        call(target -> rest.postForEntity(uri(target, BOOK_PATH + "/release", isbn), null, Void.class));
+        cache.invalidate(isbn);
+    }
+
+    public void invalidate(String isbn){
+        cache.invalidate(isbn);
+    }
+
+    private Optional<Book> fetch(String isbn){
+        HttpHeaders headers = new HttpHeaders();
+        headers.set(HttpHeaders.ACCEPT, BookCodec.CBOR_VALUE + ", " + BookCodec.JSON_VALUE + ";q=0.5");
+        try {
+            ResponseEntity<byte[]> response = call(target -> rest.exchange(uri(target, BOOK_PATH, isbn), HttpMethod.GET,
+                    new HttpEntity<>(headers), byte[].class));
+            if (response.getBody() == null){
+                return Optional.empty();
+            }
+            String contentType = response.getHeaders().getFirst(HttpHeaders.CONTENT_TYPE);
+            return Optional.of(BookCodec.forMediaType(contentType).decodeBook(response.getBody()));
+        } catch (HttpClientErrorException e) {
+            // 404 for an unknown ISBN, 400 for one that isn't valid
+            return Optional.empty();
+        }
+    }
+
+    private <T> T call(Function<URI, T> request){
+        URI target = target();
+        Semaphore bulkhead = bulkheads.computeIfAbsent(target, key -> new Semaphore(properties.maxConcurrentCalls()));
+        try {
+            if (!bulkhead.tryAcquire(properties.bulkheadWait().toNanos(), TimeUnit.NANOSECONDS)){
+                throw new BookServiceUnavailableException(String.format("Too many calls to %s are running!", target));
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new BookServiceUnavailableException("Interrupted while waiting for the book service!", e);
+        }
+        try {
+            return request.apply(target);
+        } catch (ResourceAccessException e) {
+            throw new BookServiceUnavailableException(String.format("Book service at %s didn't answer!", target), e);
+        } catch (HttpServerErrorException e) {
+            throw new BookServiceUnavailableException(String.format("Book service at %s failed with %s!", target, e.getStatusCode()), e);
+        } finally {
+            bulkhead.release();
+        }
+    }
+
+    private URI target(){
+        if (properties.url() != null){
+            return properties.url();
+        }
+        ServiceInstance instance = instances != null ? instances.choose(properties.serviceId()) : null;
+        if (instance == null){
+            throw new BookServiceUnavailableException(String.format("No instance of %s is registered!", properties.serviceId()));
+        }
+        return instance.getUri();
+    }
+
+    // Followers wait as long as the call they share may take
+    private Optional<Book> await(CompletableFuture<Optional<Book>> lookup, String isbn){
+        Duration limit = properties.bulkheadWait().plus(properties.connectTimeout()).plus(properties.readTimeout());
+        try {
+            return lookup.get(limit.toNanos(), TimeUnit.NANOSECONDS);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException cause){
+                throw cause;
+            }
+            throw new BookServiceUnavailableException(String.format("Looking up book %s failed!", isbn), e.getCause());
+        } catch (TimeoutException e) {
+            throw new BookServiceUnavailableException(String.format("Looking up book %s timed out!", isbn), e);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new BookServiceUnavailableException("Interrupted while waiting for the book service!", e);
+        }
+    }
+
+    private static URI uri(URI target, String path, String isbn){
+        return UriComponentsBuilder.fromUri(target).path(path).buildAndExpand(isbn).encode().toUri();
+    }
+
+    private static Book outOfStock(Book book){
+        return new Book(book.id(), book.author(), book.bookTitle(), book.isbn(), book.bookDescription(), book.bookType(),
+                0, book.version());
+    }
+
+}
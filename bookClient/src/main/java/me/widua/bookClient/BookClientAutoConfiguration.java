@@ -0,0 +1,30 @@
+package me.widua.bookClient;
+
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.boot.autoconfigure.AutoConfiguration;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnMissingBean;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.boot.web.client.RestTemplateBuilder;
+import org.springframework.cloud.client.loadbalancer.ServiceInstanceChooser;
+import org.springframework.context.annotation.Bean;
+
+/*
+ * A BookClient for every application that has this library on its classpath. Instances come from the load balancer
+ * of Spring Cloud when there is one (the Eureka client brings it), book.client.url works without. The client gets a
+ * RestTemplate of its own, nothing else shares its timeouts.
+ */
+@AutoConfiguration
+@EnableConfigurationProperties(BookClientProperties.class)
+public class BookClientAutoConfiguration {
+
+    @Bean
+    @ConditionalOnMissingBean
+    public BookClient bookClient(BookClientProperties properties, ObjectProvider<RestTemplateBuilder> builder,
+                                 ObjectProvider<ServiceInstanceChooser> instances){
+        RestTemplateBuilder restTemplateBuilder = builder.getIfAvailable(RestTemplateBuilder::new)
+                .setConnectTimeout(properties.connectTimeout())
+                .setReadTimeout(properties.readTimeout());
+        return new BookClient(restTemplateBuilder.build(), instances.getIfAvailable(), properties);
+    }
+
+}
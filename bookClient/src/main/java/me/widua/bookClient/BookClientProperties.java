@@ -0,0 +1,23 @@
+package me.widua.bookClient;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+
+import java.net.URI;
+import java.time.Duration;
+
+/*
+ * book.client.*: which book service to call and how patiently. Without url the instances come from service
+ * discovery under serviceId, the book service's spring.application.name.
+ */
+@ConfigurationProperties("book.client")
+public record BookClientProperties(@DefaultValue("bookMicroservices") String serviceId,
+                                   URI url,
+                                   @DefaultValue("PT1S") Duration connectTimeout,
+                                   @DefaultValue("PT2S") Duration readTimeout,
+                                   // Calls running at once per instance, the rest wait up to bulkheadWait and fail
+                                   @DefaultValue("20") int maxConcurrentCalls,
+                                   @DefaultValue("PT0.1S") Duration bulkheadWait,
+                                   @DefaultValue("PT2S") Duration cacheTtl,
+                                   @DefaultValue("10000") long cacheSize) {
+}
@@ -0,0 +1,80 @@
+package me.widua.bookClient;
+
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.json.JsonMapper;
+import com.fasterxml.jackson.dataformat.cbor.databind.CBORMapper;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+
+/*
+ * Encodes and decodes book service payloads in one wire format. CBOR is the compact one for service to service
+ * calls, ask for it with an Accept header of mediaType(), JSON stays the default of the service.
+ * Instances are immutable and thread safe, share them.
+ */
+public final class BookCodec {
+
+    public static final String JSON_VALUE = "application/json";
+    public static final String CBOR_VALUE = "application/cbor";
+
+    private static final BookCodec JSON = new BookCodec(JSON_VALUE, JsonMapper.builder()
+            .disable(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES)
+            .build());
+    private static final BookCodec CBOR = new BookCodec(CBOR_VALUE, CBORMapper.builder()
+            .disable(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES)
+            .build());
+
+    private final String mediaType;
+    private final ObjectMapper mapper;
+
+    private BookCodec(String mediaType, ObjectMapper mapper){
+        this.mediaType = mediaType;
+        this.mapper = mapper;
+    }
+
+    public static BookCodec json(){
+        return JSON;
+    }
+
+    public static BookCodec cbor(){
+        return CBOR;
+    }
+
+    // The codec for a Content-Type header, parameters like charset are ignored
+    public static BookCodec forMediaType(String contentType){
+        if (contentType != null && contentType.trim().toLowerCase().startsWith(CBOR_VALUE)){
+            return CBOR;
+        }
+        return JSON;
+    }
+
+    public String mediaType(){
+        return mediaType;
+    }
+
+    public byte[] encode(Object value){
+        try {
+            return mapper.writeValueAsBytes(value);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    public <T> T decode(byte[] payload, Class<T> type){
+        try {
+            return mapper.readValue(payload, type);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    public Book decodeBook(byte[] payload){
+        return decode(payload, Book.class);
+    }
+
+    public BookPage decodePage(byte[] payload){
+        return decode(payload, BookPage.class);
+    }
+
+}
@@ -0,0 +1,10 @@
+package me.widua.bookClient;
+
+import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
+
+import java.util.List;
+
+// One page of GET /api/books, nextCursor is the after parameter of the next page, null on the last one
+@JsonIgnoreProperties(ignoreUnknown = true)
+public record BookPage(List<Book> books, Integer nextCursor) {
+}
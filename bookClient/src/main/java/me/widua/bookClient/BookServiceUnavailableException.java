@@ -0,0 +1,17 @@
+package me.widua.bookClient;
+
+/*
+ * The book service couldn't answer: no instance is registered, the bulkhead of the chosen instance is full, the call
+ * timed out or the service failed with a 5xx.
+ */
+public class BookServiceUnavailableException extends RuntimeException {
+
+    public BookServiceUnavailableException(String message){
+        super(message);
+    }
+
+    public BookServiceUnavailableException(String message, Throwable cause){
+        super(message, cause);
+    }
+
+}
@@ -0,0 +1,7 @@
+package me.widua.bookClient;
+
+public enum BookType {
+    E_BOOK,
+    PHYSICAL,
+    AUDIOBOOK
+}
@@ -0,0 +1,187 @@
+package me.widua.bookClient;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.web.client.RestTemplateBuilder;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class BookClientTest {
+
+    private final Book book = new Book(1, "J.R.R. Tolkien", "The Hobbit", "9789099099096",
+            "There and back again", BookType.PHYSICAL, 15, 0L);
+
+    private final AtomicInteger lookups = new AtomicInteger();
+    private final AtomicInteger reserves = new AtomicInteger();
+    private volatile int reserveStatus = 200;
+    // Lookups block on it, so tests decide when the service answers
+    private volatile CountDownLatch answer = new CountDownLatch(0);
+    private HttpServer server ;
+    private ExecutorService serverThreads ;
+
+    @BeforeEach
+    public void startServer() throws IOException {
+        server = HttpServer.create(new InetSocketAddress("localhost", 0), 0);
+        serverThreads = Executors.newCachedThreadPool();
+        server.setExecutor(serverThreads);
+        server.createContext("/api/books/isbn/", this::handle);
+        server.start();
+    }
+
+    @AfterEach
+    public void stopServer(){
+        answer.countDown();
+        server.stop(0);
+        serverThreads.shutdownNow();
+    }
+
+    @Test
+    public void concurrentLookupsShareOneCall() throws Exception {
+        //Given
+        BookClient underTest = client(Duration.ofMinutes(1), 20, Duration.ofSeconds(2));
+        answer = new CountDownLatch(1);
+        ExecutorService callers = Executors.newFixedThreadPool(16);
+        //When
+        List<Future<Optional<Book>>> results = new ArrayList<>();
+        for (int i = 0; i < 16; i++){
+            results.add(callers.submit(() -> underTest.getBook(book.isbn())));
+        }
+        Thread.sleep(200);
+        answer.countDown();
+        //Then
+        for (Future<Optional<Book>> result : results){
+            assertEquals(Optional.of(book), result.get(5, TimeUnit.SECONDS));
+        }
+        assertEquals(1, lookups.get());
+        callers.shutdown();
+    }
+
+    @Test
+    public void lookupsAreCachedForTheTtl() throws Exception {
+        //Given
+        BookClient underTest = client(Duration.ofMillis(200), 20, Duration.ofSeconds(2));
+        //When
+        underTest.getBook(book.isbn());
+        underTest.getBook(book.isbn());
+        Thread.sleep(400);
+        underTest.getBook(book.isbn());
+        //Then
+        assertEquals(2, lookups.get());
+    }
+
+    @Test
+    public void unknownBookIsEmpty(){
+        //Given
+        BookClient underTest = client(Duration.ofMinutes(1), 20, Duration.ofSeconds(2));
+        //When
+        Optional<Book> result = underTest.getBook("123");
+        //Then
+        assertTrue(result.isEmpty());
+    }
+
+    @Test
+    public void fullBulkheadFailsFast() throws Exception {
+        //Given
+        BookClient underTest = client(Duration.ofMinutes(1), 1, Duration.ofSeconds(2));
+        answer = new CountDownLatch(1);
+        ExecutorService callers = Executors.newSingleThreadExecutor();
+        Future<Optional<Book>> first = callers.submit(() -> underTest.getBook(book.isbn()));
+        Thread.sleep(200);
+        //When
+        long start = System.nanoTime();
+        BookServiceUnavailableException exception = assertThrows(BookServiceUnavailableException.class,
+                () -> underTest.reserve(book.isbn()));
+        //Then
+        assertTrue(Duration.ofNanos(System.nanoTime() - start).compareTo(Duration.ofSeconds(1)) < 0);
+        assertTrue(exception.getMessage().startsWith("Too many calls"));
+        answer.countDown();
+        assertEquals(Optional.of(book), first.get(5, TimeUnit.SECONDS));
+        callers.shutdown();
+    }
+
+    @Test
+    public void slowServiceTimesOut(){
+        //Given
+        BookClient underTest = client(Duration.ofMinutes(1), 20, Duration.ofMillis(200));
+        answer = new CountDownLatch(1);
+        //When
+        //Then
+        assertThrows(BookServiceUnavailableException.class, () -> underTest.getBook(book.isbn()));
+    }
+
+    @Test
+    public void conflictMarksCachedBookOutOfStock(){
+        //Given
+        BookClient underTest = client(Duration.ofMinutes(1), 20, Duration.ofSeconds(2));
+        underTest.getBook(book.isbn());
+        reserveStatus = 409;
+        //When
+        boolean reserved = underTest.reserve(book.isbn());
+        //Then
+        assertFalse(reserved);
+        assertEquals(0, underTest.getBook(book.isbn()).orElseThrow().inStorage());
+        assertEquals(1, lookups.get());
+        //When
+        underTest.release(book.isbn());
+        //Then
+        assertEquals(15, underTest.getBook(book.isbn()).orElseThrow().inStorage());
+        assertEquals(2, lookups.get());
+    }
+
+    private BookClient client(Duration cacheTtl, int maxConcurrentCalls, Duration readTimeout){
+        BookClientProperties properties = new BookClientProperties("bookMicroservices",
+                URI.create("http://localhost:" + server.getAddress().getPort()), Duration.ofSeconds(1), readTimeout,
+                maxConcurrentCalls, Duration.ofMillis(50), cacheTtl, 100);
+        return new BookClient(new RestTemplateBuilder()
+                .setConnectTimeout(properties.connectTimeout())
+                .setReadTimeout(properties.readTimeout())
+                .build(), null, properties);
+    }
+
+    private void handle(HttpExchange exchange) throws IOException {
+        String path = exchange.getRequestURI().getPath();
+        if (path.endsWith("/reserve")){
+            reserves.incrementAndGet();
+            respond(exchange, reserveStatus, new byte[0]);
+        } else if (path.endsWith("/release")){
+            respond(exchange, 200, new byte[0]);
+        } else if (path.endsWith(book.isbn())){
+            lookups.incrementAndGet();
+            try {
+                answer.await(5, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            exchange.getResponseHeaders().set("Content-Type", BookCodec.CBOR_VALUE);
+            respond(exchange, 200, BookCodec.cbor().encode(book));
+        } else {
+            respond(exchange, 404, new byte[0]);
+        }
+    }
+
+    private static void respond(HttpExchange exchange, int status, byte[] body) throws IOException {
+        exchange.sendResponseHeaders(status, body.length == 0 ? -1 : body.length);
+        if (body.length > 0){
+            exchange.getResponseBody().write(body);
+        }
+        exchange.close();
+    }
+
+}
@@ -0,0 +1,55 @@
+package me.widua.bookClient;
+
+import org.junit.jupiter.api.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class BookCodecTest {
+
+    private final Book book = new Book(1, "J.R.R. Tolkien", "The Hobbit", "9789099099096",
+            "There and back again", BookType.PHYSICAL, 15, 0L);
+
+    @Test
+    public void cborRoundTrip(){
+        //When
+        byte[] payload = BookCodec.cbor().encode(book);
+        //Then
+        assertEquals(book, BookCodec.cbor().decodeBook(payload));
+    }
+
+    @Test
+    public void cborIsSmallerThanJson(){
+        //Given
+        BookPage page = new BookPage(List.of(book, book, book), 3);
+        //When
+        byte[] json = BookCodec.json().encode(page);
+        byte[] cbor = BookCodec.cbor().encode(page);
+        //Then
+        assertTrue(cbor.length < json.length);
+        assertEquals(page, BookCodec.cbor().decodePage(cbor));
+    }
+
+    @Test
+    public void unknownPropertiesAreSkipped(){
+        //Given
+        byte[] payload = """
+                {"id": 1, "isbn": "9789099099096", "bookType": "E_BOOK", "shelf": "B4"}
+                """.getBytes(StandardCharsets.UTF_8);
+        //When
+        Book decoded = BookCodec.json().decodeBook(payload);
+        //Then
+        assertEquals("9789099099096", decoded.isbn());
+        assertEquals(BookType.E_BOOK, decoded.bookType());
+    }
+
+    @Test
+    public void codecFollowsContentType(){
+        assertSame(BookCodec.cbor(), BookCodec.forMediaType("application/cbor"));
+        assertSame(BookCodec.json(), BookCodec.forMediaType("application/json;charset=UTF-8"));
+        assertSame(BookCodec.json(), BookCodec.forMediaType(null));
+    }
+
+}
@@ -1,34 +1,255 @@
 package me.widua.bookMicroservice.api;
 
 
-import me.widua.bookMicroservice.service.BookServiceImpl;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import me.widua.bookMicroservice.cache.BookCache;
+import me.widua.bookMicroservice.cache.CatalogVersion;
+import me.widua.bookMicroservice.models.BookModel;
 import me.widua.bookMicroservice.models.ResponseModel;
+import me.widua.bookMicroservice.models.types.BookFields;
+import me.widua.bookMicroservice.models.types.BookType;
+import me.widua.bookMicroservice.service.BookChangeServiceImpl;
 import me.widua.bookMicroservice.service.BookServiceImpl;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
+import org.springframework.http.converter.cbor.MappingJackson2CborHttpMessageConverter;
 import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PatchMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.context.request.WebRequest;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.function.Consumer;
 
 @RestController
 @RequestMapping("/api/")
 public class BookApi {
+    public static final String NDJSON_VALUE = "application/x-ndjson";
+    public static final String CBOR_VALUE = "application/cbor";
+    public static final MediaType APPLICATION_CBOR = MediaType.valueOf(CBOR_VALUE);
+    private static final String NDJSON_VARIANT = "-ndjson";
+
     private final BookServiceImpl manager ;
+    private final ObjectMapper mapper ;
+    private final ObjectMapper cborMapper ;
+    private final CatalogVersion catalogVersion ;
+    private final BookCache cache ;
+    private final BookChangeServiceImpl changes ;
     @Autowired
-    public BookApi (BookServiceImpl manager){
+    public BookApi (BookServiceImpl manager, ObjectMapper mapper, MappingJackson2CborHttpMessageConverter cborConverter,
+                    CatalogVersion catalogVersion, BookCache cache, BookChangeServiceImpl changes){
         this.manager = manager;
+        this.mapper = mapper;
+        this.cborMapper = cborConverter.getObjectMapper();
+        this.catalogVersion = catalogVersion;
+        this.cache = cache;
+        this.changes = changes;
     }
 
     @GetMapping("/books")
-    public ResponseEntity<?> getBooks(){
-        ResponseModel response = manager.getBooks() ;
+    public ResponseEntity<?> getBooks(@RequestParam(required = false) Integer after,
+                                      @RequestParam(required = false) Integer size,
+                                      @RequestParam(required = false) String fields,
+                                      WebRequest request){
+        BookFields selectedFields = BookFields.fromParameter(fields);
+        if (selectedFields == null){
+            return invalidFields(fields);
+        }
+        MediaType type = representation(request);
+        String eTag = catalogVersion.eTag(variant(type));
+        if (request.checkNotModified(eTag)){
+            return notModified(eTag);
+        }
+        return withETag(toResponseEntity(manager.getBooks(after, size, selectedFields)), eTag, type);
+    }
+
+    @GetMapping("/books/{id}")
+    public ResponseEntity<?> getBook(@PathVariable Integer id, WebRequest request){
+        return toConditionalBookResponse(manager.getBook(id), request);
+    }
+
+    @GetMapping("/books/isbn/{isbn}")
+    public ResponseEntity<?> getBookByIsbn(@PathVariable String isbn, WebRequest request){
+        return toConditionalBookResponse(manager.getBook(isbn), request);
+    }
+
+    @PatchMapping("/books")
+    public ResponseEntity<?> updateBooks(@RequestBody List<BookModel> books){
+        return toResponseEntity(manager.updateBooks(books));
+    }
+
+    @PostMapping("/books/isbn/{isbn}/reserve")
+    public ResponseEntity<?> reserveBook(@PathVariable String isbn, @RequestParam(required = false) Integer quantity){
+        return toResponseEntity(manager.reserveBook(isbn, quantity));
+    }
+
+    @PostMapping("/books/isbn/{isbn}/release")
+    public ResponseEntity<?> releaseBook(@PathVariable String isbn, @RequestParam(required = false) Integer quantity){
+        return toResponseEntity(manager.releaseBook(isbn, quantity));
+    }
+
+    @GetMapping("/books/changes")
+    public ResponseEntity<?> getChanges(@RequestParam(required = false) Long after,
+                                        @RequestParam(required = false) Integer limit){
+        return toResponseEntity(changes.getChanges(after, limit));
+    }
+
+    @GetMapping("/books/facets")
+    public ResponseEntity<?> getFacets(){
+        return toResponseEntity(manager.getFacets());
+    }
+
+    @GetMapping("/books/search")
+    public ResponseEntity<?> searchBooks(@RequestParam("q") String query,
+                                         @RequestParam(required = false) BookType type,
+                                         @RequestParam(required = false) Integer page,
+                                         @RequestParam(required = false) Integer size,
+                                         @RequestParam(required = false) String fields,
+                                         WebRequest request){
+        BookFields selectedFields = BookFields.fromParameter(fields);
+        if (selectedFields == null){
+            return invalidFields(fields);
+        }
+        MediaType representation = representation(request);
+        String eTag = catalogVersion.eTag(variant(representation));
+        if (request.checkNotModified(eTag)){
+            return notModified(eTag);
+        }
+        return withETag(toResponseEntity(manager.searchBooks(query, type, page, size, selectedFields)), eTag, representation);
+    }
+
+    @GetMapping(value = "/books", produces = NDJSON_VALUE)
+    public ResponseEntity<StreamingResponseBody> streamBooks(@RequestParam(required = false) String fields,
+                                                             WebRequest request){
+        BookFields selectedFields = BookFields.fromParameter(fields);
+        if (selectedFields == null){
+            return ResponseEntity.badRequest().build();
+        }
+        // Same URL as the JSON list, its own variant keeps a cached page from validating the whole export
+        String eTag = catalogVersion.eTag(NDJSON_VARIANT);
+        if (request.checkNotModified(eTag)){
+            return ResponseEntity.status(HttpStatus.NOT_MODIFIED).eTag(eTag).varyBy(HttpHeaders.ACCEPT).build();
+        }
+        StreamingResponseBody body = output -> {
+            Consumer<Object> writeLine = book -> {
+                try {
+                    output.write(toJson(book));
+                    output.write('\n');
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            };
+            if (selectedFields == BookFields.SUMMARY){
+                manager.forEachBookSummary(writeLine::accept);
+            } else {
+                manager.forEachBook(writeLine::accept);
+            }
+        };
+        return ResponseEntity.ok().eTag(eTag).varyBy(HttpHeaders.ACCEPT).body(body);
+    }
+
+    /*
+     * A single book is tagged with its id and the version Hibernate bumps on every update. The book still has to be
+     * read to learn its version, but that read usually hits BookCache and the 304 skips serialization.
+     * A full response writes the bytes BookCache keeps for that version, so repeated reads serialize once per format.
+     */
+    private ResponseEntity<?> toConditionalBookResponse(ResponseModel<BookModel> response, WebRequest request){
+        if (!response.getStatus().equals(HttpStatus.OK)){
+            return toResponseEntity(response);
+        }
+        BookModel book = response.getBody();
+        MediaType type = representation(request);
+        String eTag = book.getId() + "-" + book.getVersion() + variant(type);
+        if (request.checkNotModified(eTag)){
+            return notModified(eTag);
+        }
+        ObjectMapper writer = type.equals(APPLICATION_CBOR) ? cborMapper : mapper;
+        return ResponseEntity.ok()
+                .eTag(eTag)
+                .varyBy(HttpHeaders.ACCEPT)
+                .contentType(type)
+                .body(cache.getSerialized(book, type.toString(), value -> serialize(writer, value)));
+    }
+
+    /*
+     * CBOR when the Accept header names it before (or with a higher quality than) JSON, JSON otherwise. Responses
+     * set the chosen type themselves, so the ETag always describes the encoding actually sent.
+     */
+    static MediaType representation(WebRequest request){
+        String accept = request.getHeader(HttpHeaders.ACCEPT);
+        if (accept == null || !accept.contains(CBOR_VALUE)){
+            return MediaType.APPLICATION_JSON;
+        }
+        List<MediaType> types = new ArrayList<>(MediaType.parseMediaTypes(accept));
+        types.sort(Comparator.comparingDouble(MediaType::getQualityValue).reversed());
+        for (MediaType type : types){
+            if (type.getQualityValue() == 0) break;
+            if (type.equalsTypeAndSubtype(APPLICATION_CBOR)) return APPLICATION_CBOR;
+            if (type.equalsTypeAndSubtype(MediaType.APPLICATION_JSON)) return MediaType.APPLICATION_JSON;
+        }
+        return MediaType.APPLICATION_JSON;
+    }
+
+    // Every representation served under one URL has its own tag, and responses carry Vary: Accept for caches
+    private static String variant(MediaType type){
+        return type.equals(APPLICATION_CBOR) ? "-cbor" : "";
+    }
+
+    private byte[] toJson(Object value){
+        return serialize(mapper, value);
+    }
+
+    private static byte[] serialize(ObjectMapper writer, Object value){
+        try {
+            return writer.writeValueAsBytes(value);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private ResponseEntity<?> notModified(String eTag){
+        return ResponseEntity.status(HttpStatus.NOT_MODIFIED).eTag(eTag).varyBy(HttpHeaders.ACCEPT).build();
+    }
+
+    private ResponseEntity<?> withETag(ResponseEntity<?> response, String eTag, MediaType type){
+        if (!response.getStatusCode().equals(HttpStatus.OK)){
+            return response;
+        }
+        return ResponseEntity.ok().eTag(eTag).varyBy(HttpHeaders.ACCEPT).contentType(type).body(response.getBody());
+    }
+
+    private ResponseEntity<?> invalidFields(String fields){
+        return ResponseEntity.badRequest().body(String.format("Unknown fields: %s, expected full or summary!", fields));
+    }
+
+    static ResponseEntity<?> toResponseEntity(ResponseModel<?> response){
+        // A response without a body answers with its message
+        Object body = response.getBody() != null ? response.getBody() : response.getMessage();
         if (response.getStatus().equals(HttpStatus.OK)){
-            return ResponseEntity.ok(response.getBody());
+            return ResponseEntity.ok(body);
         }
         if (response.getStatus().equals(HttpStatus.NO_CONTENT)){
             return ResponseEntity.noContent().build();
         }
+        if (response.getStatus().equals(HttpStatus.BAD_REQUEST)){
+            return ResponseEntity.badRequest().body(body);
+        }
+        if (response.getStatus().equals(HttpStatus.CONFLICT)){
+            return ResponseEntity.status(HttpStatus.CONFLICT).body(body);
+        }
         return ResponseEntity.notFound().build();
     }
 
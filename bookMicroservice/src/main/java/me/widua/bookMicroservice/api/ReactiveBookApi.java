@@ -0,0 +1,50 @@
+package me.widua.bookMicroservice.api;
+
+import me.widua.bookMicroservice.models.BookRecord;
+import me.widua.bookMicroservice.service.ReactiveBookServiceImpl;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+/*
+ * Reactive twin of BookApi's reads. Request threads are released while R2DBC works, and the NDJSON stream
+ * is written with backpressure, one row requested per written line.
+ */
+@RestController
+@RequestMapping("/api/reactive/")
+public class ReactiveBookApi {
+
+    private final ReactiveBookServiceImpl manager ;
+    @Autowired
+    public ReactiveBookApi (ReactiveBookServiceImpl manager){
+        this.manager = manager;
+    }
+
+    @GetMapping("/books")
+    public Mono<ResponseEntity<?>> getBooks(@RequestParam(required = false) Integer after,
+                                            @RequestParam(required = false) Integer size){
+        return manager.getBooks(after, size).map(BookApi::toResponseEntity);
+    }
+
+    @GetMapping(value = "/books", produces = BookApi.NDJSON_VALUE)
+    public Flux<BookRecord> streamBooks(){
+        return manager.streamBooks();
+    }
+
+    @GetMapping("/books/{id}")
+    public Mono<ResponseEntity<?>> getBook(@PathVariable Integer id){
+        return manager.getBook(id).map(BookApi::toResponseEntity);
+    }
+
+    @GetMapping("/books/isbn/{isbn}")
+    public Mono<ResponseEntity<?>> getBookByIsbn(@PathVariable String isbn){
+        return manager.getBook(isbn).map(BookApi::toResponseEntity);
+    }
+
+}
@@ -0,0 +1,151 @@
+package me.widua.bookMicroservice.cache;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import me.widua.bookMicroservice.models.BookModel;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+
+/*
+ * Bounded read-through cache of books keyed by ISBN and by id. Only existing books are cached,
+ * a miss always goes to the database, so a book added by another instance is never hidden.
+ * Entries are evicted by size and age, writes in BookServiceImpl invalidate them explicitly, and so does the change
+ * feed for writes of other instances.
+ * Next to the entities it keeps their serialized forms (JSON, CBOR), tagged with the version they were written from.
+ */
+@Component
+public class BookCache implements MeterBinder {
+
+    private final Cache<String, BookModel> byIsbn;
+    private final Cache<Integer, BookModel> byId;
+    private final Cache<Integer, SerializedBook> serialized;
+    // Raised before every eviction, a load that saw it change may hold a book read before the write
+    private final AtomicLong evictions = new AtomicLong();
+
+    private record SerializedBook(Long version, Map<String, byte[]> formats) {}
+
+    public BookCache(@Value("${books.cache.maximum-size:10000}") long maximumSize,
+                     @Value("${books.cache.expire-after-write:PT10M}") Duration expireAfterWrite){
+        this.byIsbn = Caffeine.newBuilder()
+                .maximumSize(maximumSize)
+                .expireAfterWrite(expireAfterWrite)
+                .recordStats()
+                .build();
+        this.byId = Caffeine.newBuilder()
+                .maximumSize(maximumSize)
+                .expireAfterWrite(expireAfterWrite)
+                .recordStats()
+                .build();
+        this.serialized = Caffeine.newBuilder()
+                .maximumSize(maximumSize)
+                .expireAfterWrite(expireAfterWrite)
+                .recordStats()
+                .build();
+    }
+
+    public Optional<BookModel> getByIsbn(String isbn, Function<String, Optional<BookModel>> loader){
+        if (isbn == null) return Optional.empty();
+        long seen = evictions.get();
+        BookModel book = byIsbn.get(isbn, key -> loader.apply(key).orElse(null));
+        if (book != null && book.getId() != null){
+            putNewer(byId, book.getId(), book, seen);
+        }
+        return Optional.ofNullable(book);
+    }
+
+    public Optional<BookModel> getById(Integer id, Function<Integer, Optional<BookModel>> loader){
+        if (id == null) return Optional.empty();
+        long seen = evictions.get();
+        BookModel book = byId.get(id, key -> loader.apply(key).orElse(null));
+        if (book != null && book.getISBN() != null){
+            putNewer(byIsbn, book.getISBN(), book, seen);
+        }
+        return Optional.ofNullable(book);
+    }
+
+    /*
+     * Fills the other cache with a book just read. An eviction waits for a load of the same key, but not for this
+     * put, so an eviction since the load started takes the entry back out: it may have removed a newer version
+     * already. An older version never replaces a newer one.
+     */
+    private <K> void putNewer(Cache<K, BookModel> cache, K key, BookModel book, long seen){
+        cache.asMap().merge(key, book, (cached, loaded) -> isOlder(loaded, cached) ? cached : loaded);
+        if (evictions.get() != seen){
+            cache.invalidate(key);
+        }
+    }
+
+    private static boolean isOlder(BookModel book, BookModel than){
+        return book.getVersion() != null && than.getVersion() != null && book.getVersion() < than.getVersion();
+    }
+
+    /*
+     * Serialized form of the book in the given format, written once per id, version and format. The version check
+     * keeps a copy cached by a read that raced with an update from being served after it.
+     */
+    public byte[] getSerialized(BookModel book, String format, Function<BookModel, byte[]> serializer){
+        if (book.getId() == null) return serializer.apply(book);
+        SerializedBook cached = serialized.getIfPresent(book.getId());
+        if (cached == null || !Objects.equals(cached.version(), book.getVersion())){
+            cached = new SerializedBook(book.getVersion(), new ConcurrentHashMap<>());
+            serialized.put(book.getId(), cached);
+        }
+        return cached.formats().computeIfAbsent(format, key -> serializer.apply(book));
+    }
+
+    public void evict(BookModel book){
+        evictions.incrementAndGet();
+        if (book.getISBN() != null){
+            byIsbn.invalidate(book.getISBN());
+        }
+        if (book.getId() != null){
+            // The cached copy may still be under an ISBN the write changed
+            BookModel cached = byId.getIfPresent(book.getId());
+            if (cached != null && cached.getISBN() != null){
+                byIsbn.invalidate(cached.getISBN());
+            }
+            byId.invalidate(book.getId());
+            serialized.invalidate(book.getId());
+        }
+    }
+
+    // Hit, miss, eviction and size meters of the caches, tagged cache=books.isbn, cache=books.id and cache=books.serialized
+    @Override
+    public void bindTo(MeterRegistry registry){
+        CaffeineCacheMetrics.monitor(registry, byIsbn, "books.isbn");
+        CaffeineCacheMetrics.monitor(registry, byId, "books.id");
+        CaffeineCacheMetrics.monitor(registry, serialized, "books.serialized");
+    }
+
+    public void invalidateAll(){
+        evictions.incrementAndGet();
+        byIsbn.invalidateAll();
+        byId.invalidateAll();
+        serialized.invalidateAll();
+    }
+
+    public CacheStats isbnStats(){
+        return byIsbn.stats();
+    }
+
+    public CacheStats idStats(){
+        return byId.stats();
+    }
+
+    public CacheStats serializedStats(){
+        return serialized.stats();
+    }
+
+}
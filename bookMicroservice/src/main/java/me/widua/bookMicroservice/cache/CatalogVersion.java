@@ -0,0 +1,68 @@
+package me.widua.bookMicroservice.cache;
+
+import me.widua.bookMicroservice.config.ReplicaRoutingDataSource;
+import me.widua.bookMicroservice.repositories.BookRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+
+/*
+ * Catalog-wide version used as the ETag of list responses: the number of books and the sum of their row versions.
+ * Every committed write raises one of them, whichever instance made it, so all instances hand out the same tag for
+ * the same catalog. The value is cached, an unchanged poll is answered with 304 without touching the database.
+ * It is read again after a write through this instance, and once it is older than books.catalog-version.max-age,
+ * which bounds how long writes of other instances can go unnoticed.
+ * The tag is read before the list, a write committed in between costs the client a refetch, never a stale copy.
+ * The tag is weak because Tomcat never gzips a response with a strong ETag.
+ */
+@Component
+public class CatalogVersion {
+
+    private final BookRepository repository ;
+    private final long maxAge ;
+    private volatile String version ;
+    private volatile long readAt ;
+    private volatile boolean changed = true;
+
+    @Autowired
+    public CatalogVersion(BookRepository repository,
+                          @Value("${books.catalog-version.max-age:PT1S}") Duration maxAge){
+        this.repository = repository;
+        this.maxAge = maxAge.toNanos();
+    }
+
+    // Called by BookServiceImpl before and after the commit of every write
+    public void changed(){
+        changed = true;
+    }
+
+    public String current(){
+        if (changed || System.nanoTime() - readAt > maxAge){
+            refresh();
+        }
+        return version;
+    }
+
+    public String eTag(){
+        return eTag("");
+    }
+
+    // Tag of one representation of the catalog, e.g. the CBOR encoding of a list
+    public String eTag(String variant){
+        return "W/\"" + current() + variant + "\"";
+    }
+
+    private synchronized void refresh(){
+        if (!changed && System.nanoTime() - readAt <= maxAge){
+            return;
+        }
+        // Cleared first, a write committed while the query runs marks it again
+        changed = false;
+        readAt = System.nanoTime();
+        // From the primary, a lagging replica would hand out the tag of an older catalog for newer lists
+        version = ReplicaRoutingDataSource.readFromPrimary(repository::catalogVersion);
+    }
+
+}
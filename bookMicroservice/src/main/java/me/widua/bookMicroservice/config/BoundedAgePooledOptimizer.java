@@ -0,0 +1,68 @@
+package me.widua.bookMicroservice.config;
+
+import org.hibernate.id.IntegralDataTypeHolder;
+import org.hibernate.id.enhanced.AccessCallback;
+import org.hibernate.id.enhanced.Optimizer;
+
+import java.io.Serializable;
+import java.time.Duration;
+
+/*
+ * Hibernate's pooled optimizer (the sequence value is the last id of a block of increment_size ids), except that a
+ * block is dropped once it is MAX_BLOCK_AGE old, even if ids are left. Ids of different instances then follow the
+ * order they were taken in up to MAX_BLOCK_AGE, which the change feed's visibility delay covers, see
+ * BookChangeServiceImpl. Dropped ids are gaps, like ids of rolled back transactions.
+ * Set as the optimizer parameter of a SequenceStyleGenerator, Hibernate creates it by reflection.
+ */
+public class BoundedAgePooledOptimizer implements Optimizer {
+
+    public static final Duration MAX_BLOCK_AGE = Duration.ofSeconds(1);
+
+    private final int incrementSize ;
+    private final long maxBlockAgeNanos ;
+    private IntegralDataTypeHolder hi ;
+    private IntegralDataTypeHolder value ;
+    private long fetchedAt ;
+
+    public BoundedAgePooledOptimizer(Class<?> returnClass, int incrementSize){
+        this(incrementSize, MAX_BLOCK_AGE);
+    }
+
+    BoundedAgePooledOptimizer(int incrementSize, Duration maxBlockAge){
+        if (incrementSize < 1){
+            throw new IllegalArgumentException("increment_size must be positive!");
+        }
+        this.incrementSize = incrementSize;
+        this.maxBlockAgeNanos = maxBlockAge.toNanos();
+    }
+
+    @Override
+    public synchronized Serializable generate(AccessCallback callback){
+        if (hi == null || value.gt(hi) || System.nanoTime() - fetchedAt >= maxBlockAgeNanos){
+            hi = callback.getNextValue();
+            fetchedAt = System.nanoTime();
+            value = hi.copy().subtract(incrementSize - 1);
+            // The first value of a new sequence is a block of its own
+            if (value.lt(1)){
+                value = hi.copy();
+            }
+        }
+        return value.makeValueThenIncrement();
+    }
+
+    @Override
+    public synchronized IntegralDataTypeHolder getLastSourceValue(){
+        return hi;
+    }
+
+    @Override
+    public int getIncrementSize(){
+        return incrementSize;
+    }
+
+    @Override
+    public boolean applyIncrementSizeToSourceValues(){
+        return true;
+    }
+
+}
@@ -0,0 +1,21 @@
+package me.widua.bookMicroservice.config;
+
+import com.fasterxml.jackson.dataformat.cbor.CBORFactory;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.http.converter.cbor.MappingJackson2CborHttpMessageConverter;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+@Configuration
+public class CborConfiguration {
+
+    /*
+     * Takes the place of the CBOR converter Spring MVC adds by itself, behind the JSON one, so clients that don't ask
+     * for CBOR still get JSON. Built from Boot's builder it shares the JSON settings, and BookApi reuses its mapper.
+     */
+    @Bean
+    public MappingJackson2CborHttpMessageConverter cborHttpMessageConverter(Jackson2ObjectMapperBuilder builder){
+        return new MappingJackson2CborHttpMessageConverter(builder.factory(new CBORFactory()).build());
+    }
+
+}
@@ -0,0 +1,49 @@
+package me.widua.bookMicroservice.config;
+
+import com.zaxxer.hikari.HikariDataSource;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.boot.context.properties.bind.Bindable;
+import org.springframework.boot.context.properties.bind.Binder;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.env.Environment;
+
+import javax.sql.DataSource;
+import java.util.ArrayList;
+import java.util.List;
+
+/*
+ * Spring Boot skips its JDBC DataSource once an R2DBC ConnectionFactory exists, JPA still needs one,
+ * so it is built here from the same spring.datasource properties. With books.replicas.datasources it routes
+ * read-only transactions to the replicas, which share the spring.datasource.hikari pool settings.
+ */
+@Configuration
+@EnableConfigurationProperties({DataSourceProperties.class, ReplicaProperties.class})
+public class DataSourceConfiguration {
+
+    @Bean
+    public DataSource dataSource(DataSourceProperties properties, ReplicaProperties replicaProperties, Environment environment){
+        HikariDataSource primary = pool(properties.initializeDataSourceBuilder().type(HikariDataSource.class).build(), environment);
+        if (replicaProperties.datasources().isEmpty()){
+            return primary;
+        }
+        List<HikariDataSource> replicas = new ArrayList<>();
+        for (ReplicaProperties.Replica replica : replicaProperties.datasources()){
+            HikariDataSource pool = pool(properties.initializeDataSourceBuilder().type(HikariDataSource.class)
+                    .url(replica.url())
+                    .username(replica.username() != null ? replica.username() : properties.determineUsername())
+                    .password(replica.password() != null ? replica.password() : properties.determinePassword())
+                    .build(), environment);
+            pool.setPoolName("replica-" + (replicas.size() + 1));
+            pool.setReadOnly(true);
+            replicas.add(pool);
+        }
+        return new ReplicaRoutingDataSource(primary, replicas, replicaProperties);
+    }
+
+    private HikariDataSource pool(HikariDataSource dataSource, Environment environment){
+        return Binder.get(environment).bind("spring.datasource.hikari", Bindable.ofInstance(dataSource)).orElse(dataSource);
+    }
+
+}
@@ -0,0 +1,17 @@
+package me.widua.bookMicroservice.config;
+
+import io.micrometer.core.aop.TimedAspect;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+@Configuration
+public class MetricsConfiguration {
+
+    // Spring Boot 3.0 doesn't register the aspect itself, without it @Timed on beans records nothing
+    @Bean
+    public TimedAspect timedAspect(MeterRegistry registry){
+        return new TimedAspect(registry);
+    }
+
+}
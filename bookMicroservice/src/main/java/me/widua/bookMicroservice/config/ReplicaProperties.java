@@ -0,0 +1,26 @@
+package me.widua.bookMicroservice.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+
+import java.time.Duration;
+import java.util.List;
+
+/*
+ * Read replicas of the book database (books.replicas.*). Without datasources every query goes to spring.datasource.
+ */
+@ConfigurationProperties("books.replicas")
+public record ReplicaProperties(@DefaultValue List<Replica> datasources,
+                                @DefaultValue("PT5S") Duration maxLag,
+                                @DefaultValue("PT5S") Duration checkInterval,
+                                @DefaultValue("PT5S") Duration primaryAfterWrite,
+                                @DefaultValue(POSTGRES_LAG_QUERY) String lagQuery) {
+
+    // Seconds the replica is behind, 0 once it has replayed everything it received
+    public static final String POSTGRES_LAG_QUERY = "select case when pg_last_wal_receive_lsn() = pg_last_wal_replay_lsn() then 0 "
+            + "else extract(epoch from now() - pg_last_xact_replay_timestamp()) end";
+
+    public record Replica(String url, String username, String password) {
+    }
+
+}
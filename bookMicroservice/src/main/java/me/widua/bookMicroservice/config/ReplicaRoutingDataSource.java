@@ -0,0 +1,214 @@
+package me.widua.bookMicroservice.config;
+
+import com.zaxxer.hikari.HikariDataSource;
+import jakarta.servlet.http.HttpServletResponse;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+import org.springframework.jdbc.datasource.lookup.AbstractRoutingDataSource;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.web.context.request.RequestAttributes;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.context.request.ServletRequestAttributes;
+
+import java.io.Closeable;
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+/*
+ * Connections of read-only transactions (@Transactional(readOnly = true), and Spring Data's own reads) come from one
+ * of the replicas, round robin, everything else from the primary. The routing decision needs the transaction's
+ * read-only flag, which is only set after the transaction manager asked for a connection, so the proxy hands out a
+ * lazy connection and picks the database on the first statement.
+ *
+ * A replica is only used while its last check (books.replicas.check-interval) answered with a lag within
+ * books.replicas.max-lag, and is dropped right away when it refuses a connection. Reads that mustn't lag at all run
+ * through readFromPrimary, which doesn't count as a write.
+ *
+ * Read-your-writes is kept per caller: a request that wrote reads from the primary for the rest of the request, and
+ * its response carries the time of the write in Library-Last-Write. A caller sending that header back keeps reading
+ * from the primary for books.replicas.primary-after-write after it. Writes of other callers, and of scheduled jobs,
+ * don't move anyone's reads. A BookCache entry a lagging replica filled is evicted again by the change feed.
+ */
+@Slf4j
+public class ReplicaRoutingDataSource extends LazyConnectionDataSourceProxy implements Closeable {
+    private static final String PRIMARY = "primary";
+    private static final ThreadLocal<Boolean> PRIMARY_READ = new ThreadLocal<>();
+    public static final String LAST_WRITE_HEADER = "Library-Last-Write";
+    private static final String LAST_WRITE = ReplicaRoutingDataSource.class.getName() + ".lastWrite";
+
+    private final HikariDataSource primary ;
+    private final List<Replica> replicas ;
+    private final ReplicaProperties properties ;
+    private final AtomicInteger next = new AtomicInteger();
+
+    public ReplicaRoutingDataSource(HikariDataSource primary, List<HikariDataSource> replicas, ReplicaProperties properties){
+        this.primary = primary;
+        this.replicas = replicas.stream().map(Replica::new).toList();
+        this.properties = properties;
+        Router router = new Router();
+        Map<Object, Object> targets = new HashMap<>();
+        targets.put(PRIMARY, primary);
+        this.replicas.forEach(replica -> targets.put(replica.name(), replica.dataSource));
+        router.setTargetDataSources(targets);
+        router.setDefaultTargetDataSource(primary);
+        router.afterPropertiesSet();
+        setTargetDataSource(router);
+        afterPropertiesSet();
+    }
+
+    /*
+     * A replica serves reads again as soon as it answers the lag query within max-lag.
+     */
+    @Scheduled(fixedDelayString = "${books.replicas.check-interval:PT5S}")
+    public void checkReplicas(){
+        for (Replica replica : replicas){
+            try (Connection connection = replica.dataSource.getConnection();
+                 Statement statement = connection.createStatement();
+                 ResultSet result = statement.executeQuery(properties.lagQuery())){
+                double lagSeconds = result.next() ? result.getDouble(1) : 0;
+                replica.available = lagSeconds * 1000 <= properties.maxLag().toMillis();
+                if (!replica.available){
+                    log.warn("Replica {} is {}s behind, reads go to the primary", replica.name(), lagSeconds);
+                }
+            } catch (SQLException e) {
+                replica.down(e);
+            }
+        }
+    }
+
+    /*
+     * Runs a read on the primary. The read has to open its own transaction (or use a repository's) inside, the
+     * database is picked on its first statement. Works without replicas too, everything is on the primary then.
+     */
+    public static <T> T readFromPrimary(Supplier<T> read){
+        Boolean outer = PRIMARY_READ.get();
+        PRIMARY_READ.set(Boolean.TRUE);
+        try {
+            return read.get();
+        } finally {
+            if (outer == null){
+                PRIMARY_READ.remove();
+            }
+        }
+    }
+
+    public List<String> availableReplicas(){
+        return replicas.stream().filter(replica -> replica.available).map(Replica::name).toList();
+    }
+
+    private Object route(){
+        if (PRIMARY_READ.get() != null){
+            return PRIMARY;
+        }
+        if (!TransactionSynchronizationManager.isCurrentTransactionReadOnly()){
+            callerWrote();
+            return PRIMARY;
+        }
+        if (callerWroteRecently()){
+            return PRIMARY;
+        }
+        int size = replicas.size();
+        int start = Math.floorMod(next.getAndIncrement(), size);
+        for (int i = 0; i < size; i++){
+            Replica replica = replicas.get((start + i) % size);
+            if (replica.available){
+                return replica.name();
+            }
+        }
+        return PRIMARY;
+    }
+
+    // Remembered for the rest of the request and handed to the caller, the response isn't committed before a write
+    private static void callerWrote(){
+        RequestAttributes request = RequestContextHolder.getRequestAttributes();
+        if (request == null){
+            return;
+        }
+        long now = System.currentTimeMillis();
+        request.setAttribute(LAST_WRITE, now, RequestAttributes.SCOPE_REQUEST);
+        if (request instanceof ServletRequestAttributes servlet){
+            HttpServletResponse response = servlet.getResponse();
+            if (response != null && !response.isCommitted()){
+                response.setHeader(LAST_WRITE_HEADER, Long.toString(now));
+            }
+        }
+    }
+
+    private boolean callerWroteRecently(){
+        RequestAttributes request = RequestContextHolder.getRequestAttributes();
+        if (request == null){
+            return false;
+        }
+        if (request.getAttribute(LAST_WRITE, RequestAttributes.SCOPE_REQUEST) != null){
+            return true;
+        }
+        if (!(request instanceof ServletRequestAttributes servlet)){
+            return false;
+        }
+        String header = servlet.getRequest().getHeader(LAST_WRITE_HEADER);
+        try {
+            return header != null && System.currentTimeMillis() - Long.parseLong(header) < properties.primaryAfterWrite().toMillis();
+        } catch (NumberFormatException e) {
+            return false;
+        }
+    }
+
+    @Override
+    public void close(){
+        replicas.forEach(replica -> replica.dataSource.close());
+        primary.close();
+    }
+
+    private final class Router extends AbstractRoutingDataSource {
+
+        @Override
+        protected Object determineCurrentLookupKey(){
+            return route();
+        }
+
+        @Override
+        public Connection getConnection() throws SQLException {
+            Object key = determineCurrentLookupKey();
+            for (Replica replica : replicas){
+                if (replica.name().equals(key)){
+                    try {
+                        return replica.dataSource.getConnection();
+                    } catch (SQLException e) {
+                        replica.down(e);
+                        break;
+                    }
+                }
+            }
+            return primary.getConnection();
+        }
+
+    }
+
+    private static final class Replica {
+        private final HikariDataSource dataSource ;
+        // Unused until the first check answered
+        private volatile boolean available ;
+
+        private Replica(HikariDataSource dataSource){
+            this.dataSource = dataSource;
+        }
+
+        private String name(){
+            return dataSource.getPoolName();
+        }
+
+        private void down(SQLException e){
+            available = false;
+            log.warn("Replica {} is unavailable, reads go to the primary: {}", name(), e.getMessage());
+        }
+    }
+
+}
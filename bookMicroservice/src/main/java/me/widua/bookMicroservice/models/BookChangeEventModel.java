@@ -0,0 +1,59 @@
+package me.widua.bookMicroservice.models;
+
+import com.fasterxml.jackson.annotation.JsonRawValue;
+import jakarta.persistence.*;
+import lombok.Getter;
+import lombok.Setter;
+import me.widua.bookMicroservice.models.types.BookChangeType;
+import org.hibernate.annotations.GenericGenerator;
+import org.hibernate.annotations.Parameter;
+
+import java.time.Instant;
+
+/*
+ * Outbox row, written in the transaction of the book change it describes. The id is the offset consumers of
+ * /api/books/changes resume from, payload is the book as JSON right after the change. Ids are pooled in blocks of 50
+ * that are only used for BoundedAgePooledOptimizer.MAX_BLOCK_AGE, so ids of different instances stay close to the
+ * order they were taken in, one sequence call serves a whole bulk write.
+ */
+@Entity
+@Getter
+@Setter
+@Table(
+        indexes = {
+                @Index(columnList = "createdAt")
+        }
+)
+public class BookChangeEventModel {
+
+    @Id
+    @GeneratedValue(generator = "book_change_event_seq")
+    @GenericGenerator(name = "book_change_event_seq", strategy = "org.hibernate.id.enhanced.SequenceStyleGenerator", parameters = {
+            @Parameter(name = "sequence_name", value = "book_change_event_seq"),
+            @Parameter(name = "increment_size", value = "50"),
+            @Parameter(name = "optimizer", value = "me.widua.bookMicroservice.config.BoundedAgePooledOptimizer")
+    })
+    private Long id;
+    @Enumerated(EnumType.STRING)
+    private BookChangeType type;
+    private Integer bookId;
+    private String isbn;
+    private Long bookVersion;
+    @JsonRawValue
+    @Column(length = 65535)
+    private String payload;
+    private Instant createdAt;
+
+    public BookChangeEventModel(BookChangeType type, Integer bookId, String isbn, Long bookVersion, String payload, Instant createdAt) {
+        this.type = type;
+        this.bookId = bookId;
+        this.isbn = isbn;
+        this.bookVersion = bookVersion;
+        this.payload = payload;
+        this.createdAt = createdAt;
+    }
+
+    public BookChangeEventModel() {
+    }
+
+}
@@ -0,0 +1,7 @@
+package me.widua.bookMicroservice.models;
+
+import java.util.List;
+
+// A batch of the change feed, nextOffset is the after parameter of the next request, also when the batch is empty
+public record BookChangePageModel(List<BookChangeEventModel> events, Long nextOffset) {
+}
@@ -18,8 +18,12 @@ import java.util.Objects;
 )
 public class BookModel {
 
+    // Ids taken per sequence call, a sequence value v stands for the ids v - 49 .. v
+    public static final int ID_ALLOCATION_SIZE = 50;
+
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "book_model_seq")
+    @SequenceGenerator(name = "book_model_seq", sequenceName = "book_model_seq", allocationSize = ID_ALLOCATION_SIZE)
     private Integer id;
     private String author ;
     private String bookTitle;
@@ -29,6 +33,9 @@ public class BookModel {
     @Enumerated(EnumType.STRING)
     private BookType bookType;
     private Integer inStorage;
+    // Incremented by Hibernate on every update, together with id it is the ETag of a single book
+    @Version
+    private Long version;
 
     public BookModel(Integer id, String author , String bookTitle, String ISBN, String bookDescription, BookType bookType, Integer inStorage) {
         this.id = id;
@@ -75,6 +82,7 @@ public class BookModel {
                 ", bookDescription='" + bookDescription + '\'' +
                 ", bookType=" + bookType +
                 ", inStorage=" + inStorage +
+                ", version=" + version +
                 '}';
     }
 }
@@ -0,0 +1,10 @@
+package me.widua.bookMicroservice.models;
+
+import java.util.List;
+
+/*
+ * One keyset page of books (BookModel or BookSummaryModel). nextCursor is the id to pass as "after"
+ * to get the next page, it is null when there is nothing more to read.
+ */
+public record BookPageModel<T>(List<T> books, Integer nextCursor) {
+}
@@ -0,0 +1,23 @@
+package me.widua.bookMicroservice.models;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+import me.widua.bookMicroservice.models.types.BookType;
+import org.springframework.data.annotation.Id;
+import org.springframework.data.relational.core.mapping.Column;
+import org.springframework.data.relational.core.mapping.Table;
+
+/*
+ * Read-only R2DBC view of the book_model table written by JPA through BookModel. Column names follow Hibernate's
+ * naming strategy and the JSON shape is the same as BookModel's, so both read paths answer identically.
+ */
+@Table("book_model")
+public record BookRecord(
+        @Id Integer id,
+        String author,
+        @Column("book_title") String bookTitle,
+        @Column("isbn") @JsonProperty("isbn") String ISBN,
+        @Column("book_description") String bookDescription,
+        @Column("book_type") BookType bookType,
+        @Column("in_storage") Integer inStorage,
+        Long version) {
+}
@@ -0,0 +1,11 @@
+package me.widua.bookMicroservice.models;
+
+import java.util.List;
+
+/*
+ * One page of search hits (BookModel or BookSummaryModel), best match first, with the total number of matching books.
+ * truncated means the last query word was a prefix of too many words and only the most common ones were searched,
+ * total then counts only their books.
+ */
+public record BookSearchResultModel<T>(List<T> books, long total, boolean truncated, int page, int size) {
+}
@@ -0,0 +1,9 @@
+package me.widua.bookMicroservice.models;
+
+import me.widua.bookMicroservice.models.types.BookType;
+
+/*
+ * Listing view of a book without bookDescription, selected directly by the narrow queries in BookRepository.
+ */
+public record BookSummaryModel(Integer id, String isbn, String bookTitle, String author, BookType bookType, Integer inStorage) {
+}
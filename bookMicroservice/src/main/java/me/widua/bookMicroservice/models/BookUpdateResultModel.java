@@ -0,0 +1,8 @@
+package me.widua.bookMicroservice.models;
+
+/*
+ * Outcome of one item of a bulk update, in request order. status is the HTTP status the same
+ * single-book update would have answered with.
+ */
+public record BookUpdateResultModel(String isbn, int status, String message) {
+}
@@ -0,0 +1,12 @@
+package me.widua.bookMicroservice.models;
+
+import me.widua.bookMicroservice.models.types.BookType;
+
+import java.util.Map;
+import java.util.SortedMap;
+
+/*
+ * Catalog wide counts: number of books per type and per author, all books and the sum of inStorage.
+ */
+public record CatalogFacetsModel(long totalBooks, long totalStock, Map<BookType, Long> bookTypes, SortedMap<String, Long> authors) {
+}
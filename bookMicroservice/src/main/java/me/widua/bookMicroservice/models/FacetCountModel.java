@@ -0,0 +1,5 @@
+package me.widua.bookMicroservice.models;
+
+// One group of a facet count query, value is a BookType or an author
+public record FacetCountModel<T>(T value, long count) {
+}
@@ -0,0 +1,6 @@
+package me.widua.bookMicroservice.models.types;
+
+public enum BookChangeType {
+    CREATED,
+    UPDATED
+}
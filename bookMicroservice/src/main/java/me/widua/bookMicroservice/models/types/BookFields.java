@@ -0,0 +1,20 @@
+package me.widua.bookMicroservice.models.types;
+
+import java.util.Locale;
+
+/*
+ * Field sets a list endpoint can return: the whole BookModel or the BookSummaryModel projection.
+ */
+public enum BookFields {
+    FULL, SUMMARY;
+
+    // Case-insensitive, null when the value is not a known field set
+    public static BookFields fromParameter(String value){
+        if (value == null) return FULL;
+        try {
+            return valueOf(value.trim().toUpperCase(Locale.ROOT));
+        } catch (IllegalArgumentException e){
+            return null;
+        }
+    }
+}
@@ -0,0 +1,28 @@
+package me.widua.bookMicroservice.repositories;
+
+import me.widua.bookMicroservice.models.BookChangeEventModel;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.CrudRepository;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.Instant;
+import java.util.List;
+
+@Repository
+public interface BookChangeEventRepository extends CrudRepository<BookChangeEventModel, Long> {
+
+    // Keyset read of the feed, only events recorded before visibleBefore are returned
+    List<BookChangeEventModel> findByIdGreaterThanAndCreatedAtLessThanEqualOrderByIdAsc(Long id, Instant visibleBefore, Pageable pageable);
+
+    // Offset of the newest event the feed already serves, 0 when there is none
+    @Query("select coalesce(max(e.id), 0) from BookChangeEventModel e where e.createdAt <= :visibleBefore")
+    long findLastIdRecordedBefore(@Param("visibleBefore") Instant visibleBefore);
+
+    @Modifying
+    @Query("delete from BookChangeEventModel e where e.createdAt < :before")
+    int deleteRecordedBefore(@Param("before") Instant before);
+
+}
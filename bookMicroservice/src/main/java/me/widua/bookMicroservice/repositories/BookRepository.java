@@ -1,17 +1,84 @@
 package me.widua.bookMicroservice.repositories;
 
 import me.widua.bookMicroservice.models.BookModel;
+import me.widua.bookMicroservice.models.BookSummaryModel;
+import me.widua.bookMicroservice.models.FacetCountModel;
+import me.widua.bookMicroservice.models.types.BookType;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.CrudRepository;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
 
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
+/*
+ * Query methods don't get Spring Data's read-only transactions by default, declaring them here lets
+ * ReplicaRoutingDataSource send them to a replica when they run outside of a service transaction.
+ */
 @Repository
+@Transactional(readOnly = true)
 public interface BookRepository extends CrudRepository<BookModel, Integer> {
     Optional<List<BookModel>> getBookModelByBookTitle(String bookTitle);
     Optional<BookModel> getBookModelByISBN(String isbn);
     Optional<List<BookModel>> getBookModelsByAuthor(String author);
+    List<BookModel> findAllByISBNIn(Collection<String> isbns);
 
+    /*
+     * Keyset page: rows strictly after the given id, ordered by id. Used instead of findAll()/offset paging,
+     * so every page costs the same index range scan no matter how deep the client is.
+     */
+    List<BookModel> findByIdGreaterThanOrderByIdAsc(Integer id, Pageable pageable);
+
+    // Summary projections select only the listed columns, bookDescription is never read
+    @Query("select new me.widua.bookMicroservice.models.BookSummaryModel(b.id, b.ISBN, b.bookTitle, b.author, b.bookType, b.inStorage) " +
+            "from BookModel b where b.id > :after order by b.id")
+    List<BookSummaryModel> findSummariesAfter(@Param("after") Integer after, Pageable pageable);
+
+    @Query("select new me.widua.bookMicroservice.models.BookSummaryModel(b.id, b.ISBN, b.bookTitle, b.author, b.bookType, b.inStorage) " +
+            "from BookModel b where b.id in :ids")
+    List<BookSummaryModel> findSummariesByIdIn(@Param("ids") Collection<Integer> ids);
+
+    @Query("select b.ISBN from BookModel b where b.ISBN in :isbns")
+    List<String> findExistingIsbns(@Param("isbns") Collection<String> isbns);
+
+    // Group by counts CatalogFacets is reconciled with
+    @Query("select new me.widua.bookMicroservice.models.FacetCountModel(b.bookType, count(b)) from BookModel b group by b.bookType")
+    List<FacetCountModel<BookType>> countByBookType();
+
+    @Query("select new me.widua.bookMicroservice.models.FacetCountModel(b.author, count(b)) from BookModel b group by b.author")
+    List<FacetCountModel<String>> countByAuthor();
+
+    @Query("select coalesce(sum(b.inStorage), 0) from BookModel b")
+    long sumInStorage();
+
+    // Books and the sum of their versions, both only grow as the service never deletes books
+    @Query("select concat(cast(count(b) as String), '-', cast(coalesce(sum(b.version), 0) as String)) from BookModel b")
+    String catalogVersion();
+
+    // Rows written before BookModel had a version have none, optimistic locking and catalogVersion() need one
+    @Modifying
+    @Transactional
+    @Query("update BookModel b set b.version = 0 where b.version is null")
+    int initializeVersions();
+
+    /*
+     * Stock changes are single conditional UPDATEs, the database serializes concurrent ones on the row lock,
+     * so there is no read-modify-write window. Both return the number of changed rows, 0 means nothing was changed.
+     */
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Transactional
+    @Query("update BookModel b set b.inStorage = b.inStorage - :quantity, b.version = b.version + 1 " +
+            "where b.ISBN = :isbn and b.inStorage >= :quantity")
+    int reserve(@Param("isbn") String isbn, @Param("quantity") int quantity);
+
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Transactional
+    @Query("update BookModel b set b.inStorage = b.inStorage + :quantity, b.version = b.version + 1 where b.ISBN = :isbn")
+    int release(@Param("isbn") String isbn, @Param("quantity") int quantity);
 
 }
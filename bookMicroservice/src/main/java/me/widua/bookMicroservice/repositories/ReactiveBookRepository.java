@@ -0,0 +1,20 @@
+package me.widua.bookMicroservice.repositories;
+
+import me.widua.bookMicroservice.models.BookRecord;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.repository.reactive.ReactiveCrudRepository;
+import org.springframework.stereotype.Repository;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+@Repository
+public interface ReactiveBookRepository extends ReactiveCrudRepository<BookRecord, Integer> {
+    Mono<BookRecord> findByISBN(String isbn);
+
+    // Same keyset page as BookRepository.findByIdGreaterThanOrderByIdAsc
+    Flux<BookRecord> findByIdGreaterThanOrderByIdAsc(Integer id, Pageable pageable);
+
+    // Whole catalog as one result stream, rows are pulled as the subscriber requests them
+    Flux<BookRecord> findAllByOrderByIdAsc();
+
+}
@@ -0,0 +1,222 @@
+package me.widua.bookMicroservice.search;
+
+import me.widua.bookMicroservice.models.BookModel;
+import me.widua.bookMicroservice.models.types.BookType;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.text.Normalizer;
+import java.util.*;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.regex.Pattern;
+
+/*
+ * In-memory inverted index over bookTitle, author and bookDescription.
+ * Every query term must match, the last one as a prefix so partially typed words already find books. A prefix expands
+ * to at most max-prefix-expansions terms, the ones in the most books, and the result is then marked truncated.
+ * Results are ranked by weighted term frequency (title > author > description), ties by id.
+ * The index is rebuilt from the database on startup and updated by BookServiceImpl on every write, writes of other
+ * instances come in from the change feed.
+ */
+@Component
+public class BookSearchIndex {
+
+    private static final int TITLE_WEIGHT = 3;
+    private static final int AUTHOR_WEIGHT = 2;
+    private static final int DESCRIPTION_WEIGHT = 1;
+    private static final Pattern COMBINING_MARKS = Pattern.compile("\\p{M}");
+
+    // term -> (book id -> weight), sorted so a prefix is a contiguous range
+    private final NavigableMap<String, Map<Integer, Integer>> postings = new TreeMap<>();
+    private final Map<Integer, IndexedBook> books = new HashMap<>();
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    private final int maxPrefixExpansions;
+
+    public BookSearchIndex(@Value("${books.search.max-prefix-expansions:256}") int maxPrefixExpansions){
+        this.maxPrefixExpansions = maxPrefixExpansions;
+    }
+
+    public void index(BookModel book){
+        if (book.getId() == null) return;
+        Map<String, Integer> weights = new HashMap<>();
+        addTerms(weights, book.getBookTitle(), TITLE_WEIGHT);
+        addTerms(weights, book.getAuthor(), AUTHOR_WEIGHT);
+        addTerms(weights, book.getBookDescription(), DESCRIPTION_WEIGHT);
+
+        lock.writeLock().lock();
+        try {
+            removeUnlocked(book.getId());
+            weights.forEach((term, weight) -> postings.computeIfAbsent(term, key -> new HashMap<>()).put(book.getId(), weight));
+            books.put(book.getId(), new IndexedBook(weights.keySet().toArray(String[]::new), book.getBookType()));
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public void remove(Integer id){
+        lock.writeLock().lock();
+        try {
+            removeUnlocked(id);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public void clear(){
+        lock.writeLock().lock();
+        try {
+            postings.clear();
+            books.clear();
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public int size(){
+        lock.readLock().lock();
+        try {
+            return books.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /*
+     * Returns the ids of the requested page of matches, best match first, and the total number of matches. If the
+     * prefix had more terms than max-prefix-expansions, books matching only the dropped terms are missing from both.
+     */
+    public SearchResult search(String query, BookType type, int page, int size){
+        List<String> terms = tokenize(query);
+        if (terms.isEmpty()) return new SearchResult(List.of(), 0, false);
+
+        lock.readLock().lock();
+        try {
+            List<Map<Integer, Integer>> matches = new ArrayList<>(terms.size());
+            for (int i = 0; i < terms.size() - 1; i++){
+                matches.add(postings.getOrDefault(terms.get(i), Map.of()));
+            }
+            PrefixMatches prefix = prefixMatches(terms.get(terms.size() - 1));
+            matches.add(prefix.books());
+            // Candidates come from the rarest term, the others are only probed
+            matches.sort(Comparator.comparingInt(Map::size));
+
+            int limit = (page + 1) * size;
+            PriorityQueue<Long> best = new PriorityQueue<>(Math.min(limit, 1024) + 1);
+            long total = 0;
+            candidates:
+            for (Map.Entry<Integer, Integer> candidate : matches.get(0).entrySet()){
+                int id = candidate.getKey();
+                if (type != null && books.get(id).type() != type) continue;
+                int score = candidate.getValue();
+                for (int i = 1; i < matches.size(); i++){
+                    Integer weight = matches.get(i).get(id);
+                    if (weight == null) continue candidates;
+                    score += weight;
+                }
+                total++;
+                long rank = rank(score, id);
+                if (best.size() < limit){
+                    best.offer(rank);
+                } else if (rank > best.peek()){
+                    best.poll();
+                    best.offer(rank);
+                }
+            }
+            return new SearchResult(pageOf(best, page, size), total, prefix.truncated());
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private PrefixMatches prefixMatches(String prefix){
+        SortedMap<String, Map<Integer, Integer>> range = postings.subMap(prefix, prefix + Character.MAX_VALUE);
+        if (range.size() == 1) return new PrefixMatches(range.values().iterator().next(), false);
+        if (range.isEmpty()) return new PrefixMatches(Map.of(), false);
+
+        Collection<Map<Integer, Integer>> expansions = range.values();
+        boolean truncated = range.size() > maxPrefixExpansions;
+        if (truncated){
+            // The terms in the most books, the smallest one kept on top of the heap
+            PriorityQueue<Map<Integer, Integer>> frequent = new PriorityQueue<>(maxPrefixExpansions + 1, Comparator.comparingInt(Map::size));
+            for (Map<Integer, Integer> posting : range.values()){
+                if (frequent.size() < maxPrefixExpansions){
+                    frequent.offer(posting);
+                } else if (posting.size() > frequent.peek().size()){
+                    frequent.poll();
+                    frequent.offer(posting);
+                }
+            }
+            expansions = frequent;
+        }
+        Map<Integer, Integer> matches = new HashMap<>();
+        for (Map<Integer, Integer> posting : expansions){
+            posting.forEach((id, weight) -> matches.merge(id, weight, Math::max));
+        }
+        return new PrefixMatches(matches, truncated);
+    }
+
+    // Higher score first, then lower id: score in the upper half, inverted id in the lower half of a long
+    private static long rank(int score, int id){
+        return ((long) score << 32) | (~id & 0xFFFFFFFFL);
+    }
+
+    private static List<Integer> pageOf(PriorityQueue<Long> best, int page, int size){
+        List<Long> ranked = new ArrayList<>(best);
+        ranked.sort(Comparator.reverseOrder());
+        List<Integer> ids = new ArrayList<>(size);
+        for (int i = page * size; i < ranked.size(); i++){
+            ids.add(~(int) (long) ranked.get(i));
+        }
+        return ids;
+    }
+
+    private void removeUnlocked(Integer id){
+        IndexedBook previous = books.remove(id);
+        if (previous == null) return;
+        for (String term : previous.terms()){
+            Map<Integer, Integer> posting = postings.get(term);
+            if (posting != null){
+                posting.remove(id);
+                if (posting.isEmpty()){
+                    postings.remove(term);
+                }
+            }
+        }
+    }
+
+    private static void addTerms(Map<String, Integer> weights, String text, int weight){
+        for (String term : tokenize(text)){
+            weights.merge(term, weight, Integer::sum);
+        }
+    }
+
+    // Lower case, accents stripped, split on everything that is not a letter or a digit
+    static List<String> tokenize(String text){
+        if (text == null || text.isBlank()) return List.of();
+        String decomposed = Normalizer.normalize(text, Normalizer.Form.NFD);
+        String folded = COMBINING_MARKS.matcher(decomposed).replaceAll("").toLowerCase(Locale.ROOT);
+        List<String> terms = new ArrayList<>();
+        int start = -1;
+        for (int i = 0; i <= folded.length(); i++){
+            boolean isTermChar = i < folded.length() && Character.isLetterOrDigit(folded.charAt(i));
+            if (isTermChar && start < 0){
+                start = i;
+            } else if (!isTermChar && start >= 0){
+                terms.add(folded.substring(start, i));
+                start = -1;
+            }
+        }
+        return terms;
+    }
+
+    private record IndexedBook(String[] terms, BookType type) {
+    }
+
+    private record PrefixMatches(Map<Integer, Integer> books, boolean truncated) {
+    }
+
+    public record SearchResult(List<Integer> ids, long total, boolean truncated) {
+    }
+
+}
@@ -0,0 +1,139 @@
+package me.widua.bookMicroservice.search;
+
+import me.widua.bookMicroservice.models.BookModel;
+import me.widua.bookMicroservice.models.CatalogFacetsModel;
+import me.widua.bookMicroservice.models.FacetCountModel;
+import me.widua.bookMicroservice.models.types.BookType;
+import org.springframework.stereotype.Component;
+
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.SortedMap;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/*
+ * Counters behind /api/books/facets. BookServiceImpl applies every committed write as a delta (the book before
+ * and after), so reads never touch the database. Writes made by other instances or straight in the database are
+ * picked up by the periodic replace() with fresh group by counts.
+ * The sorted snapshot is built once per change of the counters, reads in between share it.
+ */
+@Component
+public class CatalogFacets {
+
+    private final LongAdder totalBooks = new LongAdder();
+    private final LongAdder totalStock = new LongAdder();
+    private final Map<BookType, LongAdder> bookTypes = new EnumMap<>(BookType.class);
+    private final Map<String, LongAdder> authors = new ConcurrentHashMap<>();
+    // Deltas share the read lock, replacing all counters at once takes the write lock
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    // Moves after every change of the counters, a cached snapshot of an older generation is rebuilt
+    private final AtomicLong generation = new AtomicLong();
+    private volatile Snapshot cached = new Snapshot(-1, null);
+
+    public CatalogFacets(){
+        for (BookType type : BookType.values()){
+            bookTypes.put(type, new LongAdder());
+        }
+    }
+
+    /*
+     * The facet relevant part of a book, copied so later changes to the entity don't leak into a pending delta.
+     */
+    public record Entry(String author, BookType bookType, int inStorage) {
+        public static Entry of(BookModel book){
+            return new Entry(book.getAuthor(), book.getBookType(), book.getInStorage() == null ? 0 : book.getInStorage());
+        }
+    }
+
+    // before is null for a new book, after is null for a removed one
+    public void apply(Entry before, Entry after){
+        lock.readLock().lock();
+        try {
+            if (before != null) count(before, -1);
+            if (after != null) count(after, 1);
+            generation.incrementAndGet();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private void count(Entry entry, int sign){
+        totalBooks.add(sign);
+        totalStock.add((long) sign * entry.inStorage());
+        if (entry.bookType() != null){
+            bookTypes.get(entry.bookType()).add(sign);
+        }
+        if (entry.author() != null){
+            authors.computeIfAbsent(entry.author(), key -> new LongAdder()).add(sign);
+        }
+    }
+
+    public void replace(long books, long stock, List<FacetCountModel<BookType>> types, List<FacetCountModel<String>> authorCounts){
+        lock.writeLock().lock();
+        try {
+            totalBooks.reset();
+            totalBooks.add(books);
+            totalStock.reset();
+            totalStock.add(stock);
+            bookTypes.values().forEach(LongAdder::reset);
+            types.stream()
+                    .filter(type -> type.value() != null)
+                    .forEach(type -> bookTypes.get(type.value()).add(type.count()));
+            authors.clear();
+            authorCounts.stream()
+                    .filter(author -> author.value() != null)
+                    .forEach(author -> authors.computeIfAbsent(author.value(), key -> new LongAdder()).add(author.count()));
+            generation.incrementAndGet();
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public void clear(){
+        replace(0, 0, List.of(), List.of());
+    }
+
+    /*
+     * The generation is read before the counters, a snapshot that already saw part of a later delta is stored under
+     * the older generation and rebuilt by the next call.
+     */
+    public CatalogFacetsModel snapshot(){
+        long current = generation.get();
+        Snapshot snapshot = cached;
+        if (snapshot.generation() == current){
+            return snapshot.facets();
+        }
+        CatalogFacetsModel facets = build();
+        cached = new Snapshot(current, facets);
+        return facets;
+    }
+
+    private CatalogFacetsModel build(){
+        lock.readLock().lock();
+        try {
+            Map<BookType, Long> types = new EnumMap<>(BookType.class);
+            bookTypes.forEach((type, count) -> types.put(type, count.sum()));
+            SortedMap<String, Long> authorCounts = new TreeMap<>();
+            authors.forEach((author, count) -> {
+                long sum = count.sum();
+                if (sum > 0) authorCounts.put(author, sum);
+            });
+            // Shared by every read until the next change
+            return new CatalogFacetsModel(totalBooks.sum(), totalStock.sum(), Collections.unmodifiableMap(types),
+                    Collections.unmodifiableSortedMap(authorCounts));
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private record Snapshot(long generation, CatalogFacetsModel facets) {
+    }
+
+}
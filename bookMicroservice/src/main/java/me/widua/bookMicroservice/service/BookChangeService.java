@@ -0,0 +1,18 @@
+package me.widua.bookMicroservice.service;
+
+import me.widua.bookMicroservice.models.BookChangeEventModel;
+import me.widua.bookMicroservice.models.BookChangePageModel;
+import me.widua.bookMicroservice.models.BookModel;
+import me.widua.bookMicroservice.models.ResponseModel;
+import me.widua.bookMicroservice.models.types.BookChangeType;
+import org.springframework.stereotype.Service;
+
+@Service
+public interface BookChangeService {
+
+    void record(BookChangeType type, BookModel book);
+    ResponseModel<BookChangePageModel> getChanges(Long after, Integer limit);
+    long getLastOffset();
+    BookModel readBook(BookChangeEventModel event);
+    int purge();
+}
@@ -0,0 +1,127 @@
+package me.widua.bookMicroservice.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import me.widua.bookMicroservice.config.BoundedAgePooledOptimizer;
+import me.widua.bookMicroservice.config.ReplicaRoutingDataSource;
+import me.widua.bookMicroservice.models.BookChangeEventModel;
+import me.widua.bookMicroservice.models.BookChangePageModel;
+import me.widua.bookMicroservice.models.BookModel;
+import me.widua.bookMicroservice.models.ResponseModel;
+import me.widua.bookMicroservice.models.types.BookChangeType;
+import me.widua.bookMicroservice.repositories.BookChangeEventRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.http.HttpStatus;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.io.UncheckedIOException;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+
+/*
+ * Transactional outbox of book changes. BookServiceImpl records an event in the transaction of every write, so an
+ * event exists exactly when its change was committed, and consumers tail the events by offset.
+ *
+ * Ids are taken before commit, so a transaction can commit a lower id after a higher one was read. The feed only
+ * serves events older than books.changes.visibility-delay, which has to be longer than any write transaction can run:
+ * spring.transaction.default-timeout bounds them, and startup fails unless the delay exceeds it. A delay of zero
+ * turns the check off, that is only safe with a single writer at a time, as in tests.
+ */
+@Service
+public class BookChangeServiceImpl implements BookChangeService {
+    private final BookChangeEventRepository repository;
+    private final ObjectMapper mapper;
+    private final Duration visibilityDelay;
+    private final Duration retention;
+    private final int defaultLimit;
+    private final int maxLimit;
+
+    @Autowired
+    public BookChangeServiceImpl(BookChangeEventRepository repository,
+                                 ObjectMapper mapper,
+                                 @Value("${books.changes.visibility-delay:PT35S}") Duration visibilityDelay,
+                                 @Value("${books.changes.retention:P7D}") Duration retention,
+                                 @Value("${books.changes.default-limit:100}") int defaultLimit,
+                                 @Value("${books.changes.max-limit:1000}") int maxLimit,
+                                 @Value("${spring.transaction.default-timeout:#{null}}") Duration transactionTimeout){
+        // An id can be taken up to MAX_BLOCK_AGE after a higher one and its transaction may run for the whole timeout
+        if (!visibilityDelay.isZero() && (transactionTimeout == null
+                || visibilityDelay.compareTo(transactionTimeout.plus(BoundedAgePooledOptimizer.MAX_BLOCK_AGE)) <= 0)){
+            throw new IllegalStateException(String.format(
+                    "books.changes.visibility-delay (%s) must be longer than spring.transaction.default-timeout (%s) plus %s!",
+                    visibilityDelay, transactionTimeout, BoundedAgePooledOptimizer.MAX_BLOCK_AGE));
+        }
+        this.repository = repository;
+        this.mapper = mapper;
+        this.visibilityDelay = visibilityDelay;
+        this.retention = retention;
+        this.defaultLimit = defaultLimit;
+        this.maxLimit = maxLimit;
+    }
+
+    // Joins the caller's transaction, a change without one would have no commit to be tied to
+    @Override
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void record(BookChangeType type, BookModel book){
+        repository.save(new BookChangeEventModel(type, book.getId(), book.getISBN(), book.getVersion(), toJson(book), Instant.now()));
+    }
+
+    /*
+     * Read from the primary: a replica may lag by more than the visibility delay, and events it hasn't replayed yet
+     * would be skipped for good once a consumer moves its offset past them. readFromPrimary keeps these frequent
+     * reads from counting as writes, which would hold every read of the instance on the primary.
+     */
+    @Override
+    @Transactional(readOnly = true)
+    public ResponseModel<BookChangePageModel> getChanges(Long after, Integer limit){
+        if ((after != null && after < 0) || (limit != null && limit < 1)){
+            return ResponseModel.message(HttpStatus.BAD_REQUEST, "Offset must not be negative and limit must be greater than 0!");
+        }
+        long offset = after == null ? 0 : after;
+        int size = limit == null ? defaultLimit : Math.min(limit, maxLimit);
+        List<BookChangeEventModel> events = ReplicaRoutingDataSource.readFromPrimary(() -> repository.findByIdGreaterThanAndCreatedAtLessThanEqualOrderByIdAsc(
+                offset, Instant.now().minus(visibilityDelay), PageRequest.of(0, size)));
+        Long nextOffset = events.isEmpty() ? offset : events.get(events.size() - 1).getId();
+        return ResponseModel.ok(new BookChangePageModel(events, nextOffset));
+    }
+
+    // Offset a consumer that just read the whole catalog can resume from, primary only for the same reason as getChanges
+    @Override
+    @Transactional(readOnly = true)
+    public long getLastOffset(){
+        return ReplicaRoutingDataSource.readFromPrimary(() -> repository.findLastIdRecordedBefore(Instant.now().minus(visibilityDelay)));
+    }
+
+    // The book as it was right after the change of the event
+    @Override
+    public BookModel readBook(BookChangeEventModel event){
+        try {
+            return mapper.readValue(event.getPayload(), BookModel.class);
+        } catch (JsonProcessingException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    // Consumers further behind than the retention have to start over with a full read of /api/books
+    @Override
+    @Scheduled(fixedDelayString = "${books.changes.purge-interval:PT1H}", initialDelayString = "${books.changes.purge-interval:PT1H}")
+    @Transactional
+    public int purge(){
+        return repository.deleteRecordedBefore(Instant.now().minus(retention));
+    }
+
+    private String toJson(BookModel book){
+        try {
+            return mapper.writeValueAsString(book);
+        } catch (JsonProcessingException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+}
@@ -0,0 +1,158 @@
+package me.widua.bookMicroservice.service;
+
+import jakarta.persistence.EntityManager;
+import lombok.extern.slf4j.Slf4j;
+import me.widua.bookMicroservice.models.BookModel;
+import me.widua.bookMicroservice.models.types.BookChangeType;
+import me.widua.bookMicroservice.repositories.BookRepository;
+import me.widua.libraryCommon.IsbnValidator;
+import org.springframework.beans.factory.SmartInitializingSingleton;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/*
+ * Brings rows written by earlier versions of the service up to date. Runs before the web server starts and before the
+ * search index is built, on every start: each step only writes what still needs it, the ISBN check reads id and ISBN
+ * of every book, chunk by chunk.
+ * Reads go through JdbcTemplate outside of a read-only transaction, so they see the primary.
+ */
+@Slf4j
+@Component
+public class BookDataMigration implements SmartInitializingSingleton {
+
+    private static final int REPORTED_ROWS = 100;
+
+    private final BookRepository repository ;
+    private final BookChangeService changes ;
+    private final IsbnValidator isbnValidator ;
+    private final EntityManager entityManager ;
+    private final JdbcTemplate jdbc ;
+    private final TransactionTemplate transactions ;
+    private final int chunkSize ;
+
+    @Autowired
+    public BookDataMigration(BookRepository repository,
+                             BookChangeService changes,
+                             IsbnValidator isbnValidator,
+                             EntityManager entityManager,
+                             JdbcTemplate jdbc,
+                             PlatformTransactionManager transactionManager,
+                             @Value("${books.bulk.chunk-size:1000}") int chunkSize){
+        this.repository = repository;
+        this.changes = changes;
+        this.isbnValidator = isbnValidator;
+        this.entityManager = entityManager;
+        this.jdbc = jdbc;
+        this.transactions = new TransactionTemplate(transactionManager);
+        this.chunkSize = chunkSize;
+    }
+
+    @Override
+    public void afterSingletonsInstantiated(){
+        // No request may see a book without a version
+        repository.initializeVersions();
+        advanceIdSequence();
+        normalizeIsbns();
+    }
+
+    /*
+     * Ids used to come from an identity column, book_model_seq was then created starting at 1, below the existing
+     * ids. Moves the sequence past max(id) once, later starts find the sequence ahead and only waste one block.
+     * Two instances starting the first time at once could both move it, a block given out twice then fails on the
+     * primary key instead of overwriting a book.
+     */
+    void advanceIdSequence(){
+        long maxId = jdbc.queryForObject("select coalesce(max(id), 0) from book_model", Long.class);
+        long next = jdbc.queryForObject("select nextval('book_model_seq')", Long.class);
+        // The sequence's first value 1 starts a block at 1
+        long lowestId = Math.max(1, next - BookModel.ID_ALLOCATION_SIZE + 1);
+        if (lowestId > maxId) return;
+
+        // The restart value is the end of the first block handed out, the block starts right after maxId
+        long restart = maxId + BookModel.ID_ALLOCATION_SIZE;
+        jdbc.execute("alter sequence book_model_seq restart with " + restart);
+        log.info("Moved book_model_seq from {} to {}, past the highest book id {}", next, restart, maxId);
+    }
+
+    /*
+     * ISBNs used to be stored as entered, lookups by the normalized ISBN-13 miss those books. Rewrites them through
+     * the entities, so versions move and other instances evict their copies from the change events. Invalid ISBNs,
+     * and ISBNs another book already has in normalized form, are left as they are and logged for a person to fix.
+     * Returns the number of rewritten ISBNs.
+     */
+    int normalizeIsbns(){
+        Map<Integer, String> pending = new LinkedHashMap<>();
+        List<String> invalid = new ArrayList<>();
+        long after = 0;
+        List<Map<String, Object>> rows;
+        do {
+            rows = jdbc.queryForList("select id, isbn from book_model where id > ? order by id limit ?", after, chunkSize);
+            for (Map<String, Object> row : rows){
+                int id = ((Number) row.get("id")).intValue();
+                String isbn = (String) row.get("isbn");
+                String normalized = isbnValidator.normalize(isbn);
+                if (normalized == null){
+                    invalid.add(id + ": " + isbn);
+                } else if (!normalized.equals(isbn)){
+                    pending.put(id, isbn);
+                }
+                after = id;
+            }
+        } while (rows.size() == chunkSize);
+
+        List<String> duplicates = new ArrayList<>();
+        List<Integer> ids = new ArrayList<>(pending.keySet());
+        int rewritten = 0;
+        for (int from = 0; from < ids.size(); from += chunkSize){
+            List<Integer> chunk = ids.subList(from, Math.min(from + chunkSize, ids.size()));
+            rewritten += transactions.execute(status -> normalizeChunk(chunk, pending, duplicates));
+        }
+
+        if (rewritten > 0){
+            log.info("Normalized {} stored ISBNs to ISBN-13", rewritten);
+        }
+        if (!invalid.isEmpty()){
+            log.warn("{} books have an invalid ISBN and can't be found by it (id: ISBN, at most {}): {}",
+                    invalid.size(), REPORTED_ROWS, invalid.subList(0, Math.min(REPORTED_ROWS, invalid.size())));
+        }
+        if (!duplicates.isEmpty()){
+            log.warn("{} books have the ISBN of another book in a different spelling, left unchanged (id: ISBN, at most {}): {}",
+                    duplicates.size(), REPORTED_ROWS, duplicates.subList(0, Math.min(REPORTED_ROWS, duplicates.size())));
+        }
+        return rewritten;
+    }
+
+    // pending maps ids to the ISBNs the scan found
+    private int normalizeChunk(List<Integer> ids, Map<Integer, String> pending, List<String> duplicates){
+        List<String> targets = ids.stream().map(id -> isbnValidator.normalize(pending.get(id))).toList();
+        Set<String> taken = new HashSet<>(repository.findExistingIsbns(targets));
+        List<BookModel> changed = new ArrayList<>();
+        for (BookModel book : repository.findAllById(ids)){
+            // Written since the scan, by a version that normalizes already
+            if (!pending.get(book.getId()).equals(book.getISBN())) continue;
+            String normalized = isbnValidator.normalize(book.getISBN());
+            if (!taken.add(normalized)){
+                duplicates.add(book.getId() + ": " + book.getISBN());
+                continue;
+            }
+            book.setISBN(normalized);
+            changed.add(book);
+        }
+        // The events carry the incremented versions
+        entityManager.flush();
+        changed.forEach(book -> changes.record(BookChangeType.UPDATED, book));
+        return changed.size();
+    }
+
+}
@@ -1,21 +1,40 @@
 package me.widua.bookMicroservice.service;
 
 import me.widua.bookMicroservice.models.BookModel;
+import me.widua.bookMicroservice.models.BookPageModel;
+import me.widua.bookMicroservice.models.BookSearchResultModel;
+import me.widua.bookMicroservice.models.BookSummaryModel;
+import me.widua.bookMicroservice.models.BookUpdateResultModel;
+import me.widua.bookMicroservice.models.CatalogFacetsModel;
 import me.widua.bookMicroservice.models.ResponseModel;
+import me.widua.bookMicroservice.models.types.BookFields;
+import me.widua.bookMicroservice.models.types.BookType;
 import org.springframework.stereotype.Service;
 
+import java.net.URI;
 import java.util.List;
+import java.util.function.Consumer;
 
 @Service
 public interface BookService {
 
-    ResponseModel getBooks();
-    ResponseModel getBooks(String author);
-    ResponseModel getBook(Integer id);
-    ResponseModel getBook(String isbn);
-    ResponseModel addBook(BookModel book);
-    ResponseModel addBooks(List<BookModel> books);
-    ResponseModel updateBook(BookModel newBook, String isbn);
-    ResponseModel updateBook(BookModel newBook, Integer id);
+    ResponseModel<BookPageModel<?>> getBooks();
+    ResponseModel<BookPageModel<?>> getBooks(Integer after, Integer size);
+    ResponseModel<BookPageModel<?>> getBooks(Integer after, Integer size, BookFields fields);
+    void forEachBook(Consumer<BookModel> action);
+    void forEachBookSummary(Consumer<BookSummaryModel> action);
+    ResponseModel<BookSearchResultModel<?>> searchBooks(String query, BookType type, Integer page, Integer size);
+    ResponseModel<BookSearchResultModel<?>> searchBooks(String query, BookType type, Integer page, Integer size, BookFields fields);
+    ResponseModel<List<BookModel>> getBooks(String author);
+    ResponseModel<CatalogFacetsModel> getFacets();
+    ResponseModel<BookModel> getBook(Integer id);
+    ResponseModel<BookModel> getBook(String isbn);
+    ResponseModel<URI> addBook(BookModel book);
+    ResponseModel<Void> addBooks(List<BookModel> books);
+    ResponseModel<Void> updateBook(BookModel newBook, String isbn);
+    ResponseModel<Void> updateBook(BookModel newBook, Integer id);
+    ResponseModel<List<BookUpdateResultModel>> updateBooks(List<BookModel> newBooks);
+    ResponseModel<BookModel> reserveBook(String isbn, Integer quantity);
+    ResponseModel<BookModel> releaseBook(String isbn, Integer quantity);
 }
 
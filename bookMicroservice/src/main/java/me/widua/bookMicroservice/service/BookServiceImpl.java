@@ -1,185 +1,569 @@
 package me.widua.bookMicroservice.service;
 
+import me.widua.bookMicroservice.cache.BookCache;
+import me.widua.bookMicroservice.cache.CatalogVersion;
+import me.widua.bookMicroservice.config.ReplicaRoutingDataSource;
+import me.widua.bookMicroservice.models.BookChangeEventModel;
+import me.widua.bookMicroservice.models.BookChangePageModel;
 import me.widua.bookMicroservice.models.BookModel;
+import me.widua.bookMicroservice.models.BookPageModel;
+import me.widua.bookMicroservice.models.BookSearchResultModel;
+import me.widua.bookMicroservice.models.BookSummaryModel;
+import me.widua.bookMicroservice.models.BookUpdateResultModel;
+import me.widua.bookMicroservice.models.CatalogFacetsModel;
 import me.widua.bookMicroservice.models.ResponseModel;
+import me.widua.bookMicroservice.models.types.BookChangeType;
+import me.widua.bookMicroservice.models.types.BookFields;
+import me.widua.bookMicroservice.models.types.BookType;
 import me.widua.bookMicroservice.repositories.BookRepository;
-import org.assertj.core.util.Streams;
+import me.widua.bookMicroservice.search.BookSearchIndex;
+import me.widua.bookMicroservice.search.CatalogFacets;
+import me.widua.libraryCommon.IsbnValidator;
+import io.micrometer.core.annotation.Timed;
+import jakarta.persistence.EntityManager;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.http.HttpStatus;
+import org.springframework.orm.jpa.EntityManagerFactoryUtils;
+import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Isolation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
 import java.net.URI;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
 import java.util.Optional;
 import java.util.Set;
-import java.util.concurrent.atomic.AtomicBoolean;
-import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.BiFunction;
+import java.util.function.Consumer;
+import java.util.function.Function;
 
 import java.util.stream.Collectors;
 
 @Service
+@Timed(value = "books.service", histogram = true)
 public class BookServiceImpl implements BookService {
     private final BookRepository repository;
+    private final BookCache cache;
+    private final CatalogVersion catalogVersion;
+    private final BookSearchIndex searchIndex;
+    private final CatalogFacets facets;
+    private final BookChangeService changes;
+    private final IsbnValidator isbnValidator;
+    private final EntityManager entityManager;
+    private final int defaultPageSize;
+    private final int maxPageSize;
+    private final int chunkSize;
+    // Change feed offset the search index is up to date with
+    private long searchIndexOffset ;
 
     @Autowired
-    public BookServiceImpl(BookRepository repository){
+    public BookServiceImpl(BookRepository repository,
+                           BookCache cache,
+                           CatalogVersion catalogVersion,
+                           BookSearchIndex searchIndex,
+                           CatalogFacets facets,
+                           BookChangeService changes,
+                           IsbnValidator isbnValidator,
+                           EntityManager entityManager,
+                           @Value("${books.pagination.default-size:50}") int defaultPageSize,
+                           @Value("${books.pagination.max-size:500}") int maxPageSize,
+                           @Value("${books.bulk.chunk-size:1000}") int chunkSize){
         this.repository = repository ;
+        this.cache = cache;
+        this.catalogVersion = catalogVersion;
+        this.searchIndex = searchIndex;
+        this.facets = facets;
+        this.changes = changes;
+        this.isbnValidator = isbnValidator;
+        this.entityManager = entityManager;
+        this.defaultPageSize = defaultPageSize;
+        this.maxPageSize = maxPageSize;
+        this.chunkSize = chunkSize;
     }
 
     @Override
-    public ResponseModel getBooks(){
+    @Transactional(readOnly = true)
+    public ResponseModel<BookPageModel<?>> getBooks(){
+        return getBooks(null, null);
+    }
 
-        List<BookModel> books = (List<BookModel>) repository.findAll();
+    @Override
+    @Transactional(readOnly = true)
+    public ResponseModel<BookPageModel<?>> getBooks(Integer after, Integer size){
+        return getBooks(after, size, BookFields.FULL);
+    }
 
-        if (books.size() > 0){
-            return ResponseModel.builder().status(HttpStatus.OK).body(books).build();
-        } else {
-            return ResponseModel.builder().status(HttpStatus.NO_CONTENT).build();
+    @Override
+    @Transactional(readOnly = true)
+    public ResponseModel<BookPageModel<?>> getBooks(Integer after, Integer size, BookFields fields){
+        if (size != null && size < 1){
+            return ResponseModel.message(HttpStatus.BAD_REQUEST, "Page size must be greater than 0!");
+        }
+        int pageSize = size == null ? defaultPageSize : Math.min(size, maxPageSize);
+
+        // One row more than requested tells us whether there is a next page without a count query
+        return fields == BookFields.SUMMARY
+                ? toPage(fetchSummaryPage(after, pageSize + 1), pageSize, BookSummaryModel::id)
+                : toPage(fetchPage(after, pageSize + 1), pageSize, BookModel::getId);
+    }
+
+    private <T> ResponseModel<BookPageModel<?>> toPage(List<T> books, int pageSize, Function<T, Integer> idOf){
+        if (books.isEmpty()){
+            return ResponseModel.empty(HttpStatus.NO_CONTENT);
+        }
+        Integer nextCursor = null;
+        if (books.size() > pageSize){
+            books = books.subList(0, pageSize);
+            nextCursor = idOf.apply(books.get(pageSize - 1));
+        }
+        return ResponseModel.ok(new BookPageModel<>(books, nextCursor));
+    }
+
+    @Override
+    public void forEachBook(Consumer<BookModel> action){
+        walk(this::fetchPage, BookModel::getId, action, this::detach);
+    }
+
+    @Override
+    public void forEachBookSummary(Consumer<BookSummaryModel> action){
+        // Summaries are plain records, the persistence context never holds them
+        walk(this::fetchSummaryPage, BookSummaryModel::id, action, page -> {});
+    }
+
+    /*
+     * Walks the whole catalog page by page, each page is a separate short query, so neither the heap
+     * nor a database connection is held for the whole table. Each page is let go of before the next is read.
+     */
+    private <T> void walk(BiFunction<Integer, Integer, List<T>> fetch, Function<T, Integer> idOf, Consumer<T> action,
+                          Consumer<List<T>> release){
+        Integer after = null;
+        List<T> books;
+        do {
+            books = fetch.apply(after, maxPageSize);
+            books.forEach(action);
+            release.accept(books);
+            if (!books.isEmpty()){
+                after = idOf.apply(books.get(books.size() - 1));
+            }
+        } while (books.size() == maxPageSize);
+    }
+
+    // A persistence context bound to the thread (a surrounding transaction) would otherwise keep every page it loaded
+    private void detach(List<BookModel> page){
+        EntityManager bound = EntityManagerFactoryUtils.getTransactionalEntityManager(entityManager.getEntityManagerFactory());
+        if (bound != null){
+            page.forEach(bound::detach);
+        }
+    }
+
+    private List<BookModel> fetchPage(Integer after, int limit){
+        return repository.findByIdGreaterThanOrderByIdAsc(after == null ? 0 : after, PageRequest.of(0, limit));
+    }
+
+    private List<BookSummaryModel> fetchSummaryPage(Integer after, int limit){
+        return repository.findSummariesAfter(after == null ? 0 : after, PageRequest.of(0, limit));
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public ResponseModel<BookSearchResultModel<?>> searchBooks(String query, BookType type, Integer page, Integer size){
+        return searchBooks(query, type, page, size, BookFields.FULL);
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public ResponseModel<BookSearchResultModel<?>> searchBooks(String query, BookType type, Integer page, Integer size, BookFields fields){
+        if (query == null || query.isBlank()){
+            return ResponseModel.message(HttpStatus.BAD_REQUEST, "Search query cannot be empty!");
+        }
+        if ((page != null && page < 0) || (size != null && size < 1)){
+            return ResponseModel.message(HttpStatus.BAD_REQUEST, "Page must not be negative and size must be greater than 0!");
+        }
+        int pageNumber = page == null ? 0 : page;
+        int pageSize = size == null ? defaultPageSize : Math.min(size, maxPageSize);
+
+        BookSearchIndex.SearchResult result = searchIndex.search(query, type, pageNumber, pageSize);
+        if (result.total() == 0){
+            return ResponseModel.empty(HttpStatus.NO_CONTENT);
         }
+        // One IN query for the page, put back into ranking order
+        List<?> books = fields == BookFields.SUMMARY
+                ? inRankingOrder(result.ids(), repository.findSummariesByIdIn(result.ids()), BookSummaryModel::id)
+                : inRankingOrder(result.ids(), repository.findAllById(result.ids()), BookModel::getId);
+        return ResponseModel.ok(new BookSearchResultModel<>(books, result.total(), result.truncated(), pageNumber, pageSize));
     }
 
+    private <T> List<T> inRankingOrder(List<Integer> ids, Iterable<T> books, Function<T, Integer> idOf){
+        Map<Integer, T> byId = new HashMap<>();
+        books.forEach(book -> byId.put(idOf.apply(book), book));
+        return ids.stream()
+                .map(byId::get)
+                .filter(Objects::nonNull)
+                .toList();
+    }
+
+    /*
+     * The feed offset is taken before the books are read, events committed during the read are applied again by the
+     * next refresh. Indexing a book twice only replaces its entry.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public synchronized void rebuildSearchIndex(){
+        long offset = changes.getLastOffset();
+        searchIndex.clear();
+        forEachBook(searchIndex::index);
+        searchIndexOffset = offset;
+    }
+
+    /*
+     * Tails the change feed from the last rebuild or refresh, so books written through other instances are found
+     * once the feed serves their events, and their cached copies are evicted. Writes of this instance are indexed
+     * and evicted after commit already, their events do it again.
+     */
+    @Scheduled(fixedDelayString = "${books.search.refresh-interval:PT10S}", initialDelayString = "${books.search.refresh-interval:PT10S}")
+    public synchronized void refreshSearchIndex(){
+        List<BookChangeEventModel> events;
+        do {
+            BookChangePageModel page = changes.getChanges(searchIndexOffset, null).getBody();
+            events = page.events();
+            for (BookChangeEventModel event : events){
+                BookModel book = changes.readBook(event);
+                searchIndex.index(book);
+                cache.evict(book);
+            }
+            searchIndexOffset = page.nextOffset();
+        } while (!events.isEmpty());
+    }
 
     @Override
+    public ResponseModel<CatalogFacetsModel> getFacets(){
+        return ResponseModel.ok(facets.snapshot());
+    }
+
+    /*
+     * Replaces the facet counters with group by counts from one repeatable read snapshot. This brings in writes of
+     * other instances and repairs drift, e.g. a delta of a write committed just before the snapshot but applied after it.
+     * Read from the primary, a lagging replica would undo the deltas of its lag until the next reconciliation.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    @Scheduled(fixedDelayString = "${books.facets.reconcile-interval:PT5M}", initialDelayString = "${books.facets.reconcile-interval:PT5M}")
+    @Transactional(readOnly = true, isolation = Isolation.REPEATABLE_READ)
+    public void reconcileFacets(){
+        ReplicaRoutingDataSource.readFromPrimary(() -> {
+            facets.replace(repository.count(), repository.sumInStorage(), repository.countByBookType(), repository.countByAuthor());
+            return null;
+        });
+    }
+
 
-    public ResponseModel getBook(Integer id){
-        Optional<BookModel> book = repository.findById(id);
+    // Not transactional, a cache hit shouldn't take a connection, misses use BookRepository's read-only transactions
+    @Override
+    public ResponseModel<BookModel> getBook(Integer id){
+        Optional<BookModel> book = cache.getById(id, repository::findById);
         if (book.isEmpty()){
-            return ResponseModel.builder().status(HttpStatus.NO_CONTENT).build();
+            return ResponseModel.empty(HttpStatus.NO_CONTENT);
         }
-        return ResponseModel.builder().status(HttpStatus.OK).body(book).build();
+        return ResponseModel.ok(book.get());
     }
 
 
     @Override
-    public ResponseModel getBook(String isbn){
-        Optional<BookModel> queriedBookFromDb = repository.getBookModelByISBN(isbn);
+    public ResponseModel<BookModel> getBook(String isbn){
+        Optional<BookModel> queriedBookFromDb = cache.getByIsbn(isbnValidator.normalize(isbn), repository::getBookModelByISBN);
         if (queriedBookFromDb.isEmpty()){
-            return ResponseModel.builder().status(HttpStatus.NO_CONTENT).build();
+            return ResponseModel.empty(HttpStatus.NO_CONTENT);
         }
-        return ResponseModel.builder().status(HttpStatus.OK).body(queriedBookFromDb.get()).build();
+        return ResponseModel.ok(queriedBookFromDb.get());
     }
 
 
     @Override
-    public ResponseModel addBook(BookModel book){
+    @Transactional
+    public ResponseModel<URI> addBook(BookModel book){
+        normalizeIsbn(book);
         boolean doesIsbnDoesntExistInDb = !doesIsbnExistInDatabase(book.getISBN());
         boolean isIsbnValid = isISBNValid(book.getISBN());
         if ( isIsbnValid && doesIsbnDoesntExistInDb ){
             repository.save(book);
-            return ResponseModel.builder().status(HttpStatus.CREATED).body(URI.create(String.format("/book/%s",book.getId()))).build();
+            bookChanged(null, book);
+            return ResponseModel.of(HttpStatus.CREATED, URI.create(String.format("/book/%s",book.getId())));
         }
-        return ResponseModel.builder().status(HttpStatus.BAD_REQUEST).body(String.format("The ISBN number %s is used by other book!", book.getISBN())).build();
+        return ResponseModel.message(HttpStatus.BAD_REQUEST, String.format("The ISBN number %s is used by other book!", book.getISBN()));
     }
 
     @Override
-    public ResponseModel addBooks(List<BookModel> books){
+    @Transactional
+    public ResponseModel<Void> addBooks(List<BookModel> books){
         int size = books.size();
-        AtomicInteger errorIndex = new AtomicInteger(0);
-        AtomicBoolean isValid = new AtomicBoolean(true);
+        books.forEach(this::normalizeIsbn);
 
-        Set<String> setOfIsbn = Streams
-                .stream(books)
+        Set<String> setOfIsbn = books
+                .stream()
                 .map(BookModel::getISBN)
                 .collect(Collectors.toSet());
 
         if (setOfIsbn.size() != size){
-            return ResponseModel.builder()
-                    .status(HttpStatus.BAD_REQUEST)
-                    .body("You provided at least two books with same ISBN! ISBN for each book must be unique!").build();
-        }
-        books.forEach(
-                book -> {
-                    if (!isISBNValid(book.getISBN()) || doesIsbnExistInDatabase(book.getISBN())){
-                        isValid.set(false);
-                        errorIndex.set(books.indexOf(book));
-                        return;
-                    }
-                }
-        );
+            return ResponseModel.message(HttpStatus.BAD_REQUEST, "You provided at least two books with same ISBN! ISBN for each book must be unique!");
+        }
+
+        List<Integer> errorIndexes = findInvalidIndexes(books);
 
-        if (isValid.get()){
-            repository.saveAll(books);
-            return ResponseModel.builder().status(HttpStatus.CREATED).body(String.format("Total number of created books %s",size)).build();
+        if (errorIndexes.isEmpty()){
+            // Flushing and clearing per chunk lets Hibernate send JDBC batches while the persistence context stays small
+            for (int from = 0; from < size; from += chunkSize){
+                List<BookModel> chunk = books.subList(from, Math.min(from + chunkSize, size));
+                repository.saveAll(chunk);
+                chunk.forEach(book -> bookChanged(null, book));
+                entityManager.flush();
+                entityManager.clear();
+            }
+            return ResponseModel.message(HttpStatus.CREATED, String.format("Total number of created books %s",size));
         }
-        return ResponseModel
-                .builder()
-                .status(HttpStatus.BAD_REQUEST)
-                .body(
-                        String.format("Adding stopped, because book in %s index exist in database!"
-                                , errorIndex.get()))
-                .build();
+        String indexes = errorIndexes.stream().map(String::valueOf).collect(Collectors.joining(", "));
+        return ResponseModel.message(HttpStatus.BAD_REQUEST, errorIndexes.size() == 1
+                ? String.format("Adding stopped, because book in %s index exist in database!", indexes)
+                : String.format("Adding stopped, because books in %s indexes are invalid or exist in database!", indexes));
+    }
+
+    /*
+     * Returns the index of every book with an invalid ISBN or an ISBN that is already stored,
+     * checking existence with one IN query per chunk instead of a query per book.
+     */
+    private List<Integer> findInvalidIndexes(List<BookModel> books){
+        List<Integer> errorIndexes = new ArrayList<>();
+        for (int from = 0; from < books.size(); from += chunkSize){
+            List<BookModel> chunk = books.subList(from, Math.min(from + chunkSize, books.size()));
+            Set<String> isbnsToCheck = chunk.stream()
+                    .map(BookModel::getISBN)
+                    .filter(this::isISBNValid)
+                    .collect(Collectors.toSet());
+            Set<String> existing = isbnsToCheck.isEmpty()
+                    ? Set.of()
+                    : new HashSet<>(repository.findExistingIsbns(isbnsToCheck));
+
+            for (int i = 0; i < chunk.size(); i++){
+                String isbn = chunk.get(i).getISBN();
+                if (!isISBNValid(isbn) || existing.contains(isbn)){
+                    errorIndexes.add(from + i);
+                }
+            }
+        }
+        return errorIndexes;
     }
 
     @Override
-    public ResponseModel getBooks(String author) {
+    @Transactional(readOnly = true)
+    public ResponseModel<List<BookModel>> getBooks(String author) {
         Optional<List<BookModel>> books = repository.getBookModelsByAuthor(author);
         if (books.isEmpty()){
-            return ResponseModel.builder().status(HttpStatus.NO_CONTENT).build();
+            return ResponseModel.empty(HttpStatus.NO_CONTENT);
 
         }
-        return ResponseModel.builder().status(HttpStatus.OK).body(books.get()).build();
+        return ResponseModel.ok(books.get());
     }
 
     public boolean doesIsbnExistInDatabase(String isbn){
-        if (isbn == null) return false;
-        return repository.getBookModelByISBN(isbn).isPresent();
+        String normalized = isbnValidator.normalize(isbn);
+        if (normalized == null) return false;
+        return cache.getByIsbn(normalized, repository::getBookModelByISBN).isPresent();
     }
 
-    /* Simplified ISBN validation, on production regex can be switched to:
-     *  (?:ISBN(?:-13)?:?\ )?(?=[0-9]{13}$|(?=(?:[0-9]+[-\ ]){4})[-\ 0-9]{17}$)97[89][-\ ]?[0-9]{1,5}[-\ ]?[0-9]+[-\ ]?[0-9]+[-\ ]?[0-9]
-     *   source: https://www.oreilly.com/library/view/regular-expressions-cookbook/9781449327453/ch04s13.html
-     */
+    // Checksum verified ISBN-10 or ISBN-13, hyphens and spaces between digit groups are accepted
     public boolean isISBNValid(String isbn){
-        if (isbn == null) return false;
-        String isbnRegex = "(?=[0-9]*$)(?:.{10}|.{13})";
-        return isbn.matches(isbnRegex);
+        return isbnValidator.isValid(isbn);
+    }
+
+    // Books are stored and looked up by canonical ISBN-13, invalid numbers are left as they are to be rejected later
+    private void normalizeIsbn(BookModel book){
+        String normalized = isbnValidator.normalize(book.getISBN());
+        if (normalized != null){
+            book.setISBN(normalized);
+        }
     }
 
     @Override
-    public ResponseModel updateBook(BookModel newBook, String isbn){
+    @Transactional
+    public ResponseModel<Void> updateBook(BookModel newBook, String isbn){
 
-        if (!isISBNValid(isbn)){
-            return ResponseModel.builder()
-                    .status(HttpStatus.BAD_REQUEST)
-                    .body(String.format("ISBN: %s is not valid!",isbn))
-                    .build();
+        String normalized = isbnValidator.normalize(isbn);
+        if (normalized == null){
+            return ResponseModel.message(HttpStatus.BAD_REQUEST, String.format("ISBN: %s is not valid!",isbn));
         }
 
-        if (!doesIsbnExistInDatabase(isbn)){
-            return ResponseModel.builder().status(HttpStatus.BAD_REQUEST)
-                    .body(String.format("Book with ISBN: %s does not exist!",isbn))
-                    .build();
+        // Loaded straight from the repository, the entity is about to be modified so a shared cached copy won't do.
+        // It stays managed for the whole transaction, so save doesn't need to select it again before the update
+        Optional<BookModel> oldBook = repository.getBookModelByISBN(normalized);
+
+        if (oldBook.isEmpty()){
+            return ResponseModel.message(HttpStatus.BAD_REQUEST, String.format("Book with ISBN: %s does not exist!",isbn));
         }
-        BookModel oldBook = repository.getBookModelByISBN(isbn).get();
-        repository.save( prepareBookToUpdate(oldBook,newBook) );
-        return ResponseModel
-                .builder()
-                .status(HttpStatus.OK)
-                .body("Book successfully updated!")
-                .build();
+        CatalogFacets.Entry before = CatalogFacets.Entry.of(oldBook.get());
+        repository.save( prepareBookToUpdate(oldBook.get(),newBook) );
+        // Writes the update now, so the version in the change event is the new one
+        entityManager.flush();
+        bookChanged(before, oldBook.get());
+        return ResponseModel.message(HttpStatus.OK, "Book successfully updated!");
     }
     @Override
-    public ResponseModel updateBook(BookModel newBook, Integer id){
+    @Transactional
+    public ResponseModel<Void> updateBook(BookModel newBook, Integer id){
         if (id == null){
-            return ResponseModel.builder()
-                    .status(HttpStatus.BAD_REQUEST)
-                    .body("ID cannot be null!")
-                    .build();
+            return ResponseModel.message(HttpStatus.BAD_REQUEST, "ID cannot be null!");
         }
 
         Optional<BookModel> oldBook = repository.findById(id) ;
 
         if (oldBook.isEmpty()){
-            return ResponseModel.builder().status(HttpStatus.BAD_REQUEST)
-                    .body(String.format("Book with id: %s does not exist!",id))
-                    .build();
+            return ResponseModel.message(HttpStatus.BAD_REQUEST, String.format("Book with id: %s does not exist!",id));
         }
 
+        CatalogFacets.Entry before = CatalogFacets.Entry.of(oldBook.get());
         repository.save( prepareBookToUpdate(oldBook.get(),newBook) );
-        return ResponseModel
-                .builder()
-                .status(HttpStatus.OK)
-                .body("Book successfully updated!")
-                .build();
+        entityManager.flush();
+        bookChanged(before, oldBook.get());
+        return ResponseModel.message(HttpStatus.OK, "Book successfully updated!");
+    }
+
+    /*
+     * Applies ISBN keyed partial updates with the same rules as updateBook. Each chunk loads its books with one IN
+     * query, and the flush sends the dirty rows as JDBC batches. Invalid or unknown ISBNs are reported per item
+     * and don't stop the others.
+     */
+    @Override
+    @Transactional
+    public ResponseModel<List<BookUpdateResultModel>> updateBooks(List<BookModel> newBooks){
+        if (newBooks == null || newBooks.isEmpty()){
+            return ResponseModel.message(HttpStatus.BAD_REQUEST, "No books to update provided!");
+        }
+        List<BookUpdateResultModel> results = new ArrayList<>(newBooks.size());
+        for (int from = 0; from < newBooks.size(); from += chunkSize){
+            List<BookModel> chunk = newBooks.subList(from, Math.min(from + chunkSize, newBooks.size()));
+            Set<String> isbns = chunk.stream()
+                    .map(book -> isbnValidator.normalize(book.getISBN()))
+                    .filter(Objects::nonNull)
+                    .collect(Collectors.toSet());
+            Map<String, BookModel> stored = isbns.isEmpty()
+                    ? Map.of()
+                    : repository.findAllByISBNIn(isbns).stream().collect(Collectors.toMap(BookModel::getISBN, Function.identity()));
+            // Updated books with their state before the first change in this request
+            Map<BookModel, CatalogFacets.Entry> updated = new LinkedHashMap<>();
+
+            for (BookModel newBook : chunk){
+                String isbn = newBook.getISBN();
+                String normalized = isbnValidator.normalize(isbn);
+                if (normalized == null){
+                    results.add(new BookUpdateResultModel(isbn, HttpStatus.BAD_REQUEST.value(), String.format("ISBN: %s is not valid!",isbn)));
+                    continue;
+                }
+                BookModel oldBook = stored.get(normalized);
+                if (oldBook == null){
+                    results.add(new BookUpdateResultModel(isbn, HttpStatus.BAD_REQUEST.value(), String.format("Book with ISBN: %s does not exist!",isbn)));
+                    continue;
+                }
+                updated.putIfAbsent(oldBook, CatalogFacets.Entry.of(oldBook));
+                prepareBookToUpdate(oldBook, newBook);
+                results.add(new BookUpdateResultModel(isbn, HttpStatus.OK.value(), "Book successfully updated!"));
+            }
+            // The books are managed, the flush writes them as batched UPDATEs of hibernate.jdbc.batch_size rows
+            repository.saveAll(updated.keySet());
+            entityManager.flush();
+            entityManager.clear();
+            updated.forEach((book, before) -> bookChanged(before, book));
+        }
+        return ResponseModel.ok(results);
+    }
+
+    @Override
+    @Transactional
+    public ResponseModel<BookModel> reserveBook(String isbn, Integer quantity){
+        return changeStock(isbn, quantity, repository::reserve, -1);
+    }
+
+    @Override
+    @Transactional
+    public ResponseModel<BookModel> releaseBook(String isbn, Integer quantity){
+        return changeStock(isbn, quantity, repository::release, 1);
+    }
+
+    private ResponseModel<BookModel> changeStock(String isbn, Integer quantity, BiFunction<String, Integer, Integer> update, int direction){
+        int amount = quantity == null ? 1 : quantity;
+        if (amount < 1){
+            return ResponseModel.message(HttpStatus.BAD_REQUEST, "Quantity must be greater than 0!");
+        }
+        String normalized = isbnValidator.normalize(isbn);
+        if (normalized == null){
+            return ResponseModel.message(HttpStatus.BAD_REQUEST, String.format("ISBN: %s is not valid!",isbn));
+        }
+
+        int changed = update.apply(normalized, amount);
+        // The update cleared the persistence context, so this read returns the row as it is now
+        Optional<BookModel> book = repository.getBookModelByISBN(normalized);
+        if (book.isEmpty()){
+            return ResponseModel.message(HttpStatus.BAD_REQUEST, String.format("Book with ISBN: %s does not exist!",isbn));
+        }
+        if (changed == 0){
+            return ResponseModel.message(HttpStatus.CONFLICT, String.format("Only %s books with ISBN: %s are in storage!", book.get().getInStorage(), isbn));
+        }
+        stockChanged(book.get(), direction * amount);
+        return ResponseModel.ok(book.get());
+    }
+
+    // Like bookChanged, without reindexing, stock isn't searchable
+    private void stockChanged(BookModel book, int stockDelta){
+        CatalogFacets.Entry after = CatalogFacets.Entry.of(book);
+        CatalogFacets.Entry before = new CatalogFacets.Entry(after.author(), after.bookType(), after.inStorage() - stockDelta);
+        changes.record(BookChangeType.UPDATED, book);
+        cache.evict(book);
+        catalogVersion.changed();
+        afterCommit(() -> {
+            cache.evict(book);
+            catalogVersion.changed();
+            facets.apply(before, after);
+        });
+    }
+
+    /*
+     * Keeps the in-memory views in step with a written book. Inside a transaction the work waits for the commit,
+     * so a rolled back write never shows up in search results. The catalog version is read again both before and
+     * after the commit, a list read in between can't keep its ETag once the new data is visible.
+     * before is the book's facet entry before the write, null for a new book.
+     * The change event is written right away, it has to be part of the transaction.
+     */
+    private void bookChanged(CatalogFacets.Entry before, BookModel book){
+        CatalogFacets.Entry after = CatalogFacets.Entry.of(book);
+        changes.record(before == null ? BookChangeType.CREATED : BookChangeType.UPDATED, book);
+        cache.evict(book);
+        catalogVersion.changed();
+        afterCommit(() -> {
+            cache.evict(book);
+            catalogVersion.changed();
+            searchIndex.index(book);
+            facets.apply(before, after);
+        });
+    }
+
+    private void afterCommit(Runnable action){
+        if (TransactionSynchronizationManager.isSynchronizationActive()){
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    action.run();
+                }
+            });
+        } else {
+            action.run();
+        }
     }
 
     public BookModel prepareBookToUpdate( BookModel oldBook , BookModel newBook ){
@@ -0,0 +1,17 @@
+package me.widua.bookMicroservice.service;
+
+import me.widua.bookMicroservice.models.BookPageModel;
+import me.widua.bookMicroservice.models.BookRecord;
+import me.widua.bookMicroservice.models.ResponseModel;
+import org.springframework.stereotype.Service;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+@Service
+public interface ReactiveBookService {
+
+    Mono<ResponseModel<BookPageModel<BookRecord>>> getBooks(Integer after, Integer size);
+    Flux<BookRecord> streamBooks();
+    Mono<ResponseModel<BookRecord>> getBook(Integer id);
+    Mono<ResponseModel<BookRecord>> getBook(String isbn);
+}
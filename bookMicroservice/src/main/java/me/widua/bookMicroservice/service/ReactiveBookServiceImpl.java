@@ -0,0 +1,88 @@
+package me.widua.bookMicroservice.service;
+
+import me.widua.bookMicroservice.models.BookPageModel;
+import me.widua.bookMicroservice.models.BookRecord;
+import me.widua.bookMicroservice.models.ResponseModel;
+import me.widua.bookMicroservice.repositories.ReactiveBookRepository;
+import me.widua.libraryCommon.IsbnValidator;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Service;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.util.List;
+
+/*
+ * Non-blocking reads over R2DBC. Writes stay in BookServiceImpl, the responses here mirror its read methods
+ * status for status, only without BookCache in front of the database.
+ */
+@Service
+public class ReactiveBookServiceImpl implements ReactiveBookService {
+    private final ReactiveBookRepository repository;
+    private final IsbnValidator isbnValidator;
+    private final int defaultPageSize;
+    private final int maxPageSize;
+
+    @Autowired
+    public ReactiveBookServiceImpl(ReactiveBookRepository repository,
+                                   IsbnValidator isbnValidator,
+                                   @Value("${books.pagination.default-size:50}") int defaultPageSize,
+                                   @Value("${books.pagination.max-size:500}") int maxPageSize){
+        this.repository = repository;
+        this.isbnValidator = isbnValidator;
+        this.defaultPageSize = defaultPageSize;
+        this.maxPageSize = maxPageSize;
+    }
+
+    @Override
+    public Mono<ResponseModel<BookPageModel<BookRecord>>> getBooks(Integer after, Integer size){
+        if (size != null && size < 1){
+            return Mono.just(ResponseModel.message(HttpStatus.BAD_REQUEST, "Page size must be greater than 0!"));
+        }
+        int pageSize = size == null ? defaultPageSize : Math.min(size, maxPageSize);
+        return repository.findByIdGreaterThanOrderByIdAsc(after == null ? 0 : after, PageRequest.of(0, pageSize + 1))
+                .collectList()
+                .map(books -> toPage(books, pageSize));
+    }
+
+    private ResponseModel<BookPageModel<BookRecord>> toPage(List<BookRecord> books, int pageSize){
+        if (books.isEmpty()){
+            return ResponseModel.empty(HttpStatus.NO_CONTENT);
+        }
+        Integer nextCursor = null;
+        if (books.size() > pageSize){
+            books = books.subList(0, pageSize);
+            nextCursor = books.get(pageSize - 1).id();
+        }
+        return ResponseModel.ok(new BookPageModel<>(books, nextCursor));
+    }
+
+    @Override
+    public Flux<BookRecord> streamBooks(){
+        return repository.findAllByOrderByIdAsc();
+    }
+
+    @Override
+    public Mono<ResponseModel<BookRecord>> getBook(Integer id){
+        return toResponse(repository.findById(id));
+    }
+
+    @Override
+    public Mono<ResponseModel<BookRecord>> getBook(String isbn){
+        String normalized = isbnValidator.normalize(isbn);
+        if (normalized == null){
+            return Mono.just(ResponseModel.empty(HttpStatus.NO_CONTENT));
+        }
+        return toResponse(repository.findByISBN(normalized));
+    }
+
+    private Mono<ResponseModel<BookRecord>> toResponse(Mono<BookRecord> book){
+        return book
+                .map(ResponseModel::ok)
+                .defaultIfEmpty(ResponseModel.empty(HttpStatus.NO_CONTENT));
+    }
+
+}
@@ -1,6 +1,662 @@
 package me.widua.bookMicroservice.api;
 
+import me.widua.bookClient.Book;
+import me.widua.bookClient.BookCodec;
+import me.widua.bookClient.BookPage;
+import me.widua.bookMicroservice.cache.BookCache;
+import me.widua.bookMicroservice.cache.CatalogVersion;
+import me.widua.bookMicroservice.models.BookModel;
+import me.widua.bookMicroservice.models.types.BookChangeType;
+import me.widua.bookMicroservice.models.types.BookType;
+import me.widua.bookMicroservice.repositories.BookChangeEventRepository;
+import me.widua.bookMicroservice.repositories.BookRepository;
+import me.widua.bookMicroservice.search.BookSearchIndex;
+import me.widua.bookMicroservice.search.CatalogFacets;
+import me.widua.bookMicroservice.service.BookChangeService;
+import me.widua.bookMicroservice.service.BookServiceImpl;
+import me.widua.bookMicroservice.support.SqlStatementCounter;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.Session;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.orm.jpa.EntityManagerFactoryUtils;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.junit.jupiter.SpringExtension;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
 import static org.junit.jupiter.api.Assertions.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.patch;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.hamcrest.Matchers.containsString;
+import static org.hamcrest.Matchers.not;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+@ExtendWith(SpringExtension.class)
+@ActiveProfiles("test")
+@SpringBootTest
+@AutoConfigureMockMvc
 class BookApiTest {
-  
-}
\ No newline at end of file
+
+    @Autowired
+    private MockMvc mvc ;
+    @Autowired
+    private BookRepository repository ;
+    @Autowired
+    private BookChangeEventRepository changeRepository ;
+    @Autowired
+    private BookChangeService changes ;
+    @Autowired
+    private PlatformTransactionManager transactionManager ;
+    @Autowired
+    private BookCache cache ;
+    @Autowired
+    private CatalogVersion catalogVersion ;
+    @Autowired
+    private BookSearchIndex searchIndex ;
+    @Autowired
+    private CatalogFacets facets ;
+    @Autowired
+    private BookServiceImpl service ;
+    @Autowired
+    private EntityManagerFactory entityManagerFactory ;
+    private SqlStatementCounter sql ;
+
+    private List<BookModel> savedBooks;
+
+    @BeforeEach
+    public void setDatabase(){
+        List<BookModel> books = Arrays.asList(
+                new BookModel(
+                        "J.K. Rowling",
+                        "Harry Potter and the Philosopher's Stone" ,
+                        "9785006001206" ,
+                        "First book of Harry Potter adventures" ,
+                        BookType.PHYSICAL ,
+                        15),
+                new BookModel(
+                        "J.K. Rowling",
+                        "Harry Potter and the Philosopher's Stone" ,
+                        "9787008004568" ,
+                        "First book of Harry Potter adventures" ,
+                        BookType.E_BOOK ,
+                        15),
+                new BookModel(
+                        "Dante Alighieri",
+                        "Divine comedy" ,
+                        "9789009008507" ,
+                        "Classic of literature" ,
+                        BookType.PHYSICAL ,
+                        15)
+        );
+        service.addBooks(books);
+        savedBooks = books;
+        sql = new SqlStatementCounter(entityManagerFactory);
+    }
+
+    @AfterEach
+    public void clearDb(){
+        repository.deleteAll();
+        changeRepository.deleteAll();
+        cache.invalidateAll();
+        searchIndex.clear();
+        facets.clear();
+    }
+
+    @Test
+    public void firstPageHasCursor() throws Exception {
+        //When
+        mvc.perform(get("/api/books").param("size", "2"))
+        //Then
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.books.length()").value(2))
+                .andExpect(jsonPath("$.books[0].isbn").value("9785006001206"))
+                .andExpect(jsonPath("$.nextCursor").value(savedBooks.get(1).getId()));
+    }
+
+    @Test
+    public void lastPageHasNoCursor() throws Exception {
+        //Given
+        Integer cursor = savedBooks.get(1).getId();
+        //When
+        mvc.perform(get("/api/books").param("after", cursor.toString()).param("size", "2"))
+        //Then
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.books.length()").value(1))
+                .andExpect(jsonPath("$.books[0].isbn").value("9789009008507"))
+                .andExpect(jsonPath("$.nextCursor").doesNotExist());
+    }
+
+    @Test
+    public void invalidPageSizeIsBadRequest() throws Exception {
+        mvc.perform(get("/api/books").param("size", "0"))
+                .andExpect(status().isBadRequest());
+    }
+
+    @Test
+    public void summaryFieldsSkipDescription() throws Exception {
+        mvc.perform(get("/api/books").param("fields", "summary"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.books.length()").value(3))
+                .andExpect(jsonPath("$.books[0].isbn").value("9785006001206"))
+                .andExpect(jsonPath("$.books[0].bookTitle").exists())
+                .andExpect(jsonPath("$.books[0].bookDescription").doesNotExist());
+    }
+
+    @Test
+    public void unknownFieldsAreBadRequest() throws Exception {
+        mvc.perform(get("/api/books").param("fields", "everything"))
+                .andExpect(status().isBadRequest());
+    }
+
+    @Test
+    public void searchReturnsSummaries() throws Exception {
+        mvc.perform(get("/api/books/search").param("q", "dante").param("fields", "summary"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.books[0].isbn").value("9789009008507"))
+                .andExpect(jsonPath("$.books[0].bookDescription").doesNotExist());
+    }
+
+    @Test
+    public void ndjsonStreamsSummaries() throws Exception {
+        //When
+        MvcResult started = mvc.perform(get("/api/books").param("fields", "summary").accept(BookApi.NDJSON_VALUE))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+        String body = mvc.perform(asyncDispatch(started))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsString();
+        //Then
+        assertEquals(3, body.split("\n").length);
+        assertFalse(body.contains("bookDescription"));
+    }
+
+    @Test
+    public void searchRanksTitleMatchesFirst() throws Exception {
+        //When
+        mvc.perform(get("/api/books/search").param("q", "harry pot"))
+        //Then
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.total").value(2))
+                .andExpect(jsonPath("$.truncated").value(false))
+                .andExpect(jsonPath("$.books[0].isbn").value("9785006001206"));
+    }
+
+    @Test
+    public void searchFiltersByType() throws Exception {
+        //When
+        mvc.perform(get("/api/books/search").param("q", "rowling").param("type", "E_BOOK"))
+        //Then
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.total").value(1))
+                .andExpect(jsonPath("$.books[0].bookType").value("E_BOOK"));
+    }
+
+    @Test
+    public void searchSeesUpdates() throws Exception {
+        //Given
+        BookModel update = new BookModel();
+        update.setBookTitle("Inferno");
+        //When
+        service.updateBook(update, "9789009008507");
+        //Then
+        mvc.perform(get("/api/books/search").param("q", "infer"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.books[0].isbn").value("9789009008507"));
+        mvc.perform(get("/api/books/search").param("q", "divine"))
+                .andExpect(status().isNoContent());
+    }
+
+    @Test
+    public void ndjsonStreamsWholeCatalog() throws Exception {
+        //When
+        MvcResult started = mvc.perform(get("/api/books").accept(BookApi.NDJSON_VALUE))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+        String body = mvc.perform(asyncDispatch(started))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsString();
+        //Then
+        String[] lines = body.split("\n");
+        assertEquals(3, lines.length);
+        assertTrue(lines[2].contains("\"isbn\":\"9789009008507\""));
+    }
+
+    @Test
+    public void jsonAndNdjsonListsHaveTheirOwnETags() throws Exception {
+        //Given
+        String jsonETag = mvc.perform(get("/api/books"))
+                .andExpect(header().string("Vary", containsString("Accept")))
+                .andReturn().getResponse().getHeader("ETag");
+        //When
+        MvcResult started = mvc.perform(get("/api/books").accept(BookApi.NDJSON_VALUE).header("If-None-Match", jsonETag))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+        String ndjsonETag = mvc.perform(asyncDispatch(started))
+                .andExpect(status().isOk())
+                .andExpect(header().string("Vary", containsString("Accept")))
+                .andReturn().getResponse().getHeader("ETag");
+        //Then
+        assertNotEquals(jsonETag, ndjsonETag);
+        mvc.perform(get("/api/books").header("If-None-Match", ndjsonETag))
+                .andExpect(status().isOk());
+        mvc.perform(get("/api/books").accept(BookApi.NDJSON_VALUE).header("If-None-Match", ndjsonETag))
+                .andExpect(status().isNotModified())
+                .andExpect(header().string("Vary", containsString("Accept")));
+        mvc.perform(get("/api/books/{id}", savedBooks.get(0).getId()))
+                .andExpect(header().string("Vary", containsString("Accept")));
+    }
+
+    @Test
+    public void streamingKeepsPersistenceContextBounded(){
+        //Given
+        List<BookModel> books = new ArrayList<>();
+        for (int i = 0; i < 1000; i++){
+            books.add(new BookModel("Author", "Title " + i, isbn(i), "Description", BookType.E_BOOK, 1));
+        }
+        service.addBooks(books);
+        TransactionTemplate transaction = new TransactionTemplate(transactionManager);
+        transaction.setReadOnly(true);
+        List<Integer> managed = new ArrayList<>();
+        //When
+        int left = transaction.execute(status -> {
+            // Bound to the thread the way an open-in-view EntityManager is
+            Session session = EntityManagerFactoryUtils.getTransactionalEntityManager(entityManagerFactory).unwrap(Session.class);
+            service.forEachBook(book -> managed.add(session.getStatistics().getEntityCount()));
+            return session.getStatistics().getEntityCount();
+        });
+        //Then
+        assertEquals(1003, managed.size());
+        assertTrue(managed.stream().allMatch(count -> count <= 500));
+        assertEquals(0, left);
+    }
+
+    @Test
+    public void unchangedListIsNotModified() throws Exception {
+        //Given
+        String eTag = mvc.perform(get("/api/books").param("size", "2"))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getHeader("ETag");
+        //When
+        mvc.perform(get("/api/books").param("size", "2").header("If-None-Match", eTag))
+        //Then
+                .andExpect(status().isNotModified())
+                .andExpect(header().string("ETag", eTag))
+                .andExpect(content().string(""));
+    }
+
+    @Test
+    public void updateChangesListETag() throws Exception {
+        //Given
+        String eTag = mvc.perform(get("/api/books"))
+                .andReturn().getResponse().getHeader("ETag");
+        BookModel update = new BookModel();
+        update.setInStorage(3);
+        //When
+        service.updateBook(update, "9789009008507");
+        //Then
+        mvc.perform(get("/api/books").header("If-None-Match", eTag))
+                .andExpect(status().isOk())
+                .andExpect(header().string("ETag", not(eTag)));
+    }
+
+    @Test
+    public void listETagIsSharedByInstances(){
+        //Given
+        CatalogVersion other = new CatalogVersion(repository, Duration.ZERO);
+        String eTag = other.eTag();
+        BookModel book = repository.getBookModelByISBN("9789009008507").orElseThrow();
+        book.setInStorage(3);
+        //When
+        // Written like another instance would, the version isn't told about it
+        repository.save(book);
+        //Then
+        assertNotEquals(eTag, other.eTag());
+        assertEquals(other.eTag(), new CatalogVersion(repository, Duration.ZERO).eTag());
+    }
+
+    @Test
+    public void unchangedBookIsNotModified() throws Exception {
+        //Given
+        Integer id = savedBooks.get(2).getId();
+        String eTag = mvc.perform(get("/api/books/{id}", id))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.isbn").value("9789009008507"))
+                .andReturn().getResponse().getHeader("ETag");
+        //When
+        mvc.perform(get("/api/books/isbn/{isbn}", "978-9009008507").header("If-None-Match", eTag))
+        //Then
+                .andExpect(status().isNotModified());
+    }
+
+    @Test
+    public void updatedBookGetsNewETag() throws Exception {
+        //Given
+        Integer id = savedBooks.get(2).getId();
+        String eTag = mvc.perform(get("/api/books/{id}", id))
+                .andReturn().getResponse().getHeader("ETag");
+        BookModel update = new BookModel();
+        update.setInStorage(3);
+        //When
+        service.updateBook(update, "9789009008507");
+        //Then
+        mvc.perform(get("/api/books/{id}", id).header("If-None-Match", eTag))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.inStorage").value(3))
+                .andExpect(header().string("ETag", not(eTag)));
+    }
+
+    @Test
+    public void repeatedReadsReuseSerializedBook() throws Exception {
+        //Given
+        Integer id = savedBooks.get(2).getId();
+        long hits = cache.serializedStats().hitCount();
+        //When
+        String first = mvc.perform(get("/api/books/{id}", id)).andReturn().getResponse().getContentAsString();
+        String second = mvc.perform(get("/api/books/isbn/{isbn}", "9789009008507"))
+                .andExpect(status().isOk())
+                .andExpect(content().contentType(MediaType.APPLICATION_JSON))
+                .andReturn().getResponse().getContentAsString();
+        //Then
+        assertEquals(first, second);
+        assertEquals(hits + 1, cache.serializedStats().hitCount());
+    }
+
+    @Test
+    public void cborBookDecodesWithClientCodec() throws Exception {
+        //Given
+        Integer id = savedBooks.get(2).getId();
+        String jsonETag = mvc.perform(get("/api/books/{id}", id)).andReturn().getResponse().getHeader("ETag");
+        //When
+        MvcResult result = mvc.perform(get("/api/books/{id}", id).accept(BookApi.APPLICATION_CBOR))
+                .andExpect(status().isOk())
+                .andExpect(content().contentType(BookApi.APPLICATION_CBOR))
+                .andReturn();
+        //Then
+        Book book = BookCodec.cbor().decodeBook(result.getResponse().getContentAsByteArray());
+        assertEquals("9789009008507", book.isbn());
+        assertEquals(me.widua.bookClient.BookType.PHYSICAL, book.bookType());
+        assertNotEquals(jsonETag, result.getResponse().getHeader("ETag"));
+    }
+
+    @Test
+    public void cborListDecodesWithClientCodec() throws Exception {
+        //When
+        MvcResult result = mvc.perform(get("/api/books").param("size", "2").accept(BookApi.APPLICATION_CBOR))
+                .andExpect(status().isOk())
+                .andExpect(content().contentType(BookApi.APPLICATION_CBOR))
+                .andReturn();
+        //Then
+        BookPage page = BookCodec.cbor().decodePage(result.getResponse().getContentAsByteArray());
+        assertEquals(2, page.books().size());
+        assertEquals(savedBooks.get(1).getId(), page.nextCursor());
+    }
+
+    @Test
+    public void jsonStaysDefault() throws Exception {
+        mvc.perform(get("/api/books").accept(MediaType.ALL))
+                .andExpect(content().contentType(MediaType.APPLICATION_JSON));
+        mvc.perform(get("/api/books").header("Accept", "application/json, application/cbor;q=0.5"))
+                .andExpect(content().contentType(MediaType.APPLICATION_JSON));
+    }
+
+    @Test
+    public void missingBookIsNoContent() throws Exception {
+        mvc.perform(get("/api/books/{id}", Integer.MAX_VALUE))
+                .andExpect(status().isNoContent());
+    }
+
+    @Test
+    public void reserveAndReleaseChangeStock() throws Exception {
+        //When
+        mvc.perform(post("/api/books/isbn/{isbn}/reserve", "9789009008507").param("quantity", "15"))
+        //Then
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.inStorage").value(0));
+        mvc.perform(post("/api/books/isbn/{isbn}/reserve", "9789009008507"))
+                .andExpect(status().isConflict());
+        mvc.perform(post("/api/books/isbn/{isbn}/release", "9789009008507"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.inStorage").value(1));
+        mvc.perform(get("/api/books/isbn/{isbn}", "9789009008507"))
+                .andExpect(jsonPath("$.inStorage").value(1));
+    }
+
+    @Test
+    public void bulkPatchUpdatesEachBook() throws Exception {
+        //Given
+        String body = """
+                [
+                  {"isbn": "9785006001206", "inStorage": 7},
+                  {"isbn": "978-9009008507", "bookDescription": "Inferno, Purgatorio and Paradiso"},
+                  {"isbn": "9789009001201", "inStorage": 1}
+                ]
+                """;
+        //When
+        mvc.perform(patch("/api/books").contentType(MediaType.APPLICATION_JSON).content(body))
+        //Then
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$[0].status").value(200))
+                .andExpect(jsonPath("$[1].status").value(200))
+                .andExpect(jsonPath("$[2].status").value(400));
+        mvc.perform(get("/api/books/isbn/{isbn}", "9785006001206"))
+                .andExpect(jsonPath("$.inStorage").value(7))
+                .andExpect(jsonPath("$.bookTitle").value("Harry Potter and the Philosopher's Stone"));
+        mvc.perform(get("/api/books/search").param("q", "purgatorio"))
+                .andExpect(jsonPath("$.books[0].isbn").value("9789009008507"));
+    }
+
+    @Test
+    public void facetsCountCatalog() throws Exception {
+        //Given
+        service.reconcileFacets();
+        //Then
+        sql.assertStatements(0, () -> mvc.perform(get("/api/books/facets"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.totalBooks").value(3))
+                .andExpect(jsonPath("$.totalStock").value(45))
+                .andExpect(jsonPath("$.bookTypes.PHYSICAL").value(2))
+                .andExpect(jsonPath("$.bookTypes.E_BOOK").value(1))
+                .andExpect(jsonPath("$.bookTypes.AUDIOBOOK").value(0))
+                .andExpect(jsonPath("$.authors['J.K. Rowling']").value(2))
+                .andExpect(jsonPath("$.authors['Dante Alighieri']").value(1)));
+    }
+
+    @Test
+    public void facetsFollowWrites() throws Exception {
+        //Given
+        service.reconcileFacets();
+        String body = """
+                [
+                  {"isbn": "9787008004568", "bookType": "AUDIOBOOK", "author": "Rowling"}
+                ]
+                """;
+        //When
+        mvc.perform(post("/api/books/isbn/{isbn}/reserve", "9789009008507").param("quantity", "5"))
+                .andExpect(status().isOk());
+        mvc.perform(patch("/api/books").contentType(MediaType.APPLICATION_JSON).content(body))
+                .andExpect(status().isOk());
+        //Then
+        mvc.perform(get("/api/books/facets"))
+                .andExpect(jsonPath("$.totalBooks").value(3))
+                .andExpect(jsonPath("$.totalStock").value(40))
+                .andExpect(jsonPath("$.bookTypes.E_BOOK").value(0))
+                .andExpect(jsonPath("$.bookTypes.AUDIOBOOK").value(1))
+                .andExpect(jsonPath("$.authors['J.K. Rowling']").value(1))
+                .andExpect(jsonPath("$.authors['Rowling']").value(1));
+    }
+
+    @Test
+    public void reconcileRepairsDrift() throws Exception {
+        //Given
+        BookModel book = repository.getBookModelByISBN("9789009008507").orElseThrow();
+        book.setInStorage(100);
+        repository.save(book);
+        //When
+        service.reconcileFacets();
+        //Then
+        mvc.perform(get("/api/books/facets"))
+                .andExpect(jsonPath("$.totalBooks").value(3))
+                .andExpect(jsonPath("$.totalStock").value(130));
+    }
+
+    @Test
+    public void searchIndexFollowsOtherInstances() throws Exception {
+        //Given
+        service.rebuildSearchIndex();
+        // Written like another instance would, without this instance's after commit indexing
+        new TransactionTemplate(transactionManager).executeWithoutResult(status -> {
+            BookModel book = repository.getBookModelByISBN("9789009008507").orElseThrow();
+            book.setBookTitle("Paradiso");
+            repository.save(book);
+            changes.record(BookChangeType.UPDATED, book);
+        });
+        mvc.perform(get("/api/books/search").param("q", "paradiso"))
+                .andExpect(status().isNoContent());
+        //When
+        service.refreshSearchIndex();
+        //Then
+        mvc.perform(get("/api/books/search").param("q", "paradiso"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.books.length()").value(1))
+                .andExpect(jsonPath("$.books[0].isbn").value("9789009008507"));
+    }
+
+    @Test
+    public void cachedBooksFollowOtherInstances() throws Exception {
+        //Given
+        service.rebuildSearchIndex();
+        mvc.perform(get("/api/books/isbn/{isbn}", "9789009008507"))
+                .andExpect(jsonPath("$.bookTitle").value("Divine comedy"));
+        // Written like another instance would, without this instance's after commit eviction
+        new TransactionTemplate(transactionManager).executeWithoutResult(status -> {
+            BookModel book = repository.getBookModelByISBN("9789009008507").orElseThrow();
+            book.setBookTitle("Paradiso");
+            repository.save(book);
+            changes.record(BookChangeType.UPDATED, book);
+        });
+        mvc.perform(get("/api/books/isbn/{isbn}", "9789009008507"))
+                .andExpect(jsonPath("$.bookTitle").value("Divine comedy"));
+        //When
+        service.refreshSearchIndex();
+        //Then
+        mvc.perform(get("/api/books/isbn/{isbn}", "9789009008507"))
+                .andExpect(jsonPath("$.bookTitle").value("Paradiso"));
+    }
+
+    @Test
+    public void changeFeedHasEveryCommittedWrite() throws Exception {
+        //Given
+        BookModel update = new BookModel();
+        update.setInStorage(3);
+        MvcResult created = mvc.perform(get("/api/books/changes"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.events.length()").value(3))
+                .andExpect(jsonPath("$.events[0].type").value("CREATED"))
+                .andExpect(jsonPath("$.events[0].isbn").value("9785006001206"))
+                .andExpect(jsonPath("$.events[0].payload.bookTitle").value("Harry Potter and the Philosopher's Stone"))
+                .andReturn();
+        String offset = com.jayway.jsonpath.JsonPath.read(created.getResponse().getContentAsString(), "$.nextOffset").toString();
+        //When
+        service.updateBook(update, "9789009008507");
+        //Then
+        mvc.perform(get("/api/books/changes").param("after", offset))
+                .andExpect(jsonPath("$.events.length()").value(1))
+                .andExpect(jsonPath("$.events[0].type").value("UPDATED"))
+                .andExpect(jsonPath("$.events[0].bookVersion").value(1))
+                .andExpect(jsonPath("$.events[0].payload.inStorage").value(3));
+    }
+
+    @Test
+    public void rolledBackWriteLeavesNoEvent() throws Exception {
+        //Given
+        long events = changeRepository.count();
+        BookModel update = new BookModel();
+        update.setInStorage(3);
+        //When
+        new TransactionTemplate(transactionManager).executeWithoutResult(status -> {
+            service.updateBook(update, "9789009008507");
+            status.setRollbackOnly();
+        });
+        //Then
+        assertEquals(events, changeRepository.count());
+        assertEquals(15, repository.getBookModelByISBN("9789009008507").orElseThrow().getInStorage());
+    }
+
+    @Test
+    public void invalidChangeOffsetIsBadRequest() throws Exception {
+        mvc.perform(get("/api/books/changes").param("after", "-1"))
+                .andExpect(status().isBadRequest());
+    }
+
+    @Test
+    public void readsCostOneQuery() throws Exception {
+        // The setup's writes make the next list read the catalog version again
+        catalogVersion.current();
+        sql.assertStatements(1, () -> mvc.perform(get("/api/books").param("size", "2")).andExpect(status().isOk()));
+        sql.assertStatements(1, () -> mvc.perform(get("/api/books").param("fields", "summary")).andExpect(status().isOk()));
+        sql.assertStatements(1, () -> mvc.perform(get("/api/books/search").param("q", "harry")).andExpect(status().isOk()));
+        // The second lookup is served by BookCache
+        sql.assertStatements(1, () -> {
+            mvc.perform(get("/api/books/isbn/{isbn}", "9789009008507")).andExpect(status().isOk());
+            mvc.perform(get("/api/books/isbn/{isbn}", "9789009008507")).andExpect(status().isOk());
+        });
+    }
+
+    @Test
+    public void notModifiedSkipsDatabase() throws Exception {
+        //Given
+        String eTag = mvc.perform(get("/api/books")).andReturn().getResponse().getHeader("ETag");
+        //Then
+        sql.assertStatements(0, () -> mvc.perform(get("/api/books").header("If-None-Match", eTag))
+                .andExpect(status().isNotModified()));
+    }
+
+    @Test
+    public void writesCostFixedRoundTrips() throws Exception {
+        //Given
+        BookModel update = new BookModel();
+        update.setInStorage(3);
+        String body = """
+                [
+                  {"isbn": "9785006001206", "inStorage": 7},
+                  {"isbn": "9787008004568", "inStorage": 8},
+                  {"isbn": "9789009008507", "inStorage": 9}
+                ]
+                """;
+        //Then
+        // Lookup, update and change event
+        sql.assertStatements(3, () -> service.updateBook(update, "9789009008507"));
+        // Conditional update, read back and change event
+        sql.assertStatements(3, () -> mvc.perform(post("/api/books/isbn/{isbn}/reserve", "9789009008507")).andExpect(status().isOk()));
+        // One IN query, one JDBC batch of updates and one of change events, however many books
+        sql.assertStatements(3, () -> mvc.perform(patch("/api/books").contentType(MediaType.APPLICATION_JSON).content(body))
+                .andExpect(status().isOk()));
+    }
+
+    // 978-1-00-000000-c style numbers with a valid check digit
+    private static String isbn(int number){
+        String digits = String.format("978100000%03d", number);
+        int sum = 0;
+        for (int i = 0; i < digits.length(); i++){
+            sum += (digits.charAt(i) - '0') * ((i & 1) == 0 ? 1 : 3);
+        }
+        return digits + (10 - sum % 10) % 10;
+    }
+
+}
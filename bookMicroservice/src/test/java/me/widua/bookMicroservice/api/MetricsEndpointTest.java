@@ -0,0 +1,73 @@
+package me.widua.bookMicroservice.api;
+
+import me.widua.bookMicroservice.cache.BookCache;
+import me.widua.bookMicroservice.models.BookModel;
+import me.widua.bookMicroservice.models.types.BookType;
+import me.widua.bookMicroservice.repositories.BookRepository;
+import me.widua.bookMicroservice.search.BookSearchIndex;
+import me.widua.bookMicroservice.service.BookServiceImpl;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.actuate.observability.AutoConfigureObservability;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.junit.jupiter.SpringExtension;
+import org.springframework.test.web.servlet.MockMvc;
+
+import static org.hamcrest.Matchers.containsString;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@ExtendWith(SpringExtension.class)
+@ActiveProfiles("test")
+@SpringBootTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:metricsTest",
+        "spring.r2dbc.url=r2dbc:h2:mem:///metricsTest"
+})
+@AutoConfigureMockMvc
+@AutoConfigureObservability
+class MetricsEndpointTest {
+
+    @Autowired
+    private MockMvc mvc ;
+    @Autowired
+    private BookRepository repository ;
+    @Autowired
+    private BookCache cache ;
+    @Autowired
+    private BookSearchIndex searchIndex ;
+    @Autowired
+    private BookServiceImpl service ;
+
+    @AfterEach
+    public void clearDb(){
+        repository.deleteAll();
+        cache.invalidateAll();
+        searchIndex.clear();
+    }
+
+    @Test
+    public void prometheusExposesServiceMetrics() throws Exception {
+        //Given
+        service.addBook(new BookModel("Dante Alighieri", "Divine comedy", "9789009008507", "Classic of literature", BookType.PHYSICAL, 15));
+        mvc.perform(get("/api/books/isbn/{isbn}", "9789009008507")).andExpect(status().isOk());
+        //When
+        mvc.perform(get("/actuator/prometheus"))
+        //Then
+                .andExpect(status().isOk())
+                .andExpect(content().string(containsString("http_server_requests_seconds_bucket{application=\"bookMicroservices\"")))
+                .andExpect(content().string(containsString("uri=\"/api/books/isbn/{isbn}\"")))
+                .andExpect(content().string(containsString("books_service_seconds_count{application=\"bookMicroservices\",class=\"me.widua.bookMicroservice.service.BookServiceImpl\"")))
+                .andExpect(content().string(containsString("method=\"addBook\"")))
+                .andExpect(content().string(containsString("spring_data_repository_invocations_seconds_count")))
+                .andExpect(content().string(containsString("repository=\"BookRepository\"")))
+                .andExpect(content().string(containsString("hikaricp_connections_active")))
+                .andExpect(content().string(containsString("cache_gets_total{application=\"bookMicroservices\",cache=\"books.isbn\"")))
+                .andExpect(content().string(containsString("jvm_gc_max_data_size_bytes")));
+    }
+
+}
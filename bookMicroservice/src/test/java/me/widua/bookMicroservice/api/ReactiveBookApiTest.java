@@ -0,0 +1,171 @@
+package me.widua.bookMicroservice.api;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import me.widua.bookMicroservice.cache.BookCache;
+import me.widua.bookMicroservice.models.BookModel;
+import me.widua.bookMicroservice.models.types.BookType;
+import me.widua.bookMicroservice.repositories.BookRepository;
+import me.widua.bookMicroservice.search.BookSearchIndex;
+import me.widua.bookMicroservice.service.BookServiceImpl;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.junit.jupiter.SpringExtension;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.test.web.servlet.ResultActions;
+import org.springframework.test.web.servlet.request.MockHttpServletRequestBuilder;
+
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+/*
+ * The reactive read path must answer exactly like the JPA one, both read the same H2 database.
+ */
+@ExtendWith(SpringExtension.class)
+@ActiveProfiles("test")
+@SpringBootTest
+@AutoConfigureMockMvc
+class ReactiveBookApiTest {
+
+    @Autowired
+    private MockMvc mvc ;
+    @Autowired
+    private ObjectMapper mapper ;
+    @Autowired
+    private BookRepository repository ;
+    @Autowired
+    private BookCache cache ;
+    @Autowired
+    private BookSearchIndex searchIndex ;
+    @Autowired
+    private BookServiceImpl service ;
+
+    private List<BookModel> savedBooks;
+
+    @BeforeEach
+    public void setDatabase(){
+        List<BookModel> books = Arrays.asList(
+                new BookModel(
+                        "J.K. Rowling",
+                        "Harry Potter and the Philosopher's Stone" ,
+                        "9785006001206" ,
+                        "First book of Harry Potter adventures" ,
+                        BookType.PHYSICAL ,
+                        15),
+                new BookModel(
+                        "J.K. Rowling",
+                        "Harry Potter and the Philosopher's Stone" ,
+                        "9787008004568" ,
+                        "First book of Harry Potter adventures" ,
+                        BookType.E_BOOK ,
+                        15),
+                new BookModel(
+                        "Dante Alighieri",
+                        "Divine comedy" ,
+                        "9789009008507" ,
+                        "Classic of literature" ,
+                        BookType.PHYSICAL ,
+                        15)
+        );
+        service.addBooks(books);
+        savedBooks = books;
+    }
+
+    @AfterEach
+    public void clearDb(){
+        repository.deleteAll();
+        cache.invalidateAll();
+        searchIndex.clear();
+    }
+
+    @Test
+    public void pagesMatchJpaPath() throws Exception {
+        //Given
+        String after = savedBooks.get(0).getId().toString();
+        //When
+        JsonNode blocking = json(mvc.perform(get("/api/books").param("after", after).param("size", "1"))
+                .andExpect(status().isOk())
+                .andReturn());
+        JsonNode reactive = json(reactive(get("/api/reactive/books").param("after", after).param("size", "1"))
+                .andExpect(status().isOk())
+                .andReturn());
+        //Then
+        assertEquals(blocking, reactive);
+        assertEquals(savedBooks.get(1).getId(), reactive.get("nextCursor").asInt());
+    }
+
+    @Test
+    public void singleBooksMatchJpaPath() throws Exception {
+        //Given
+        BookModel update = new BookModel();
+        update.setInStorage(3);
+        service.updateBook(update, "9789009008507");
+        Integer id = savedBooks.get(2).getId();
+        //When
+        JsonNode blocking = json(mvc.perform(get("/api/books/{id}", id)).andReturn());
+        JsonNode byId = json(reactive(get("/api/reactive/books/{id}", id)).andExpect(status().isOk()).andReturn());
+        JsonNode byIsbn = json(reactive(get("/api/reactive/books/isbn/{isbn}", "978-9009008507")).andExpect(status().isOk()).andReturn());
+        //Then
+        assertEquals(blocking, byId);
+        assertEquals(blocking, byIsbn);
+        assertEquals(3, byId.get("inStorage").asInt());
+        assertEquals(1, byId.get("version").asInt());
+    }
+
+    @Test
+    public void ndjsonStreamMatchesJpaPath() throws Exception {
+        //When
+        String blocking = mvc.perform(asyncDispatch(mvc.perform(get("/api/books").accept(BookApi.NDJSON_VALUE)).andReturn()))
+                .andReturn().getResponse().getContentAsString();
+        MvcResult started = mvc.perform(get("/api/reactive/books").accept(BookApi.NDJSON_VALUE))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+        started.getAsyncResult();
+        String reactive = started.getResponse().getContentAsString();
+        //Then
+        String[] blockingLines = blocking.split("\n");
+        String[] reactiveLines = reactive.split("\n");
+        assertEquals(3, reactiveLines.length);
+        for (int i = 0; i < blockingLines.length; i++){
+            assertEquals(mapper.readTree(blockingLines[i]), mapper.readTree(reactiveLines[i]));
+        }
+    }
+
+    @Test
+    public void invalidPageSizeIsBadRequest() throws Exception {
+        reactive(get("/api/reactive/books").param("size", "0"))
+                .andExpect(status().isBadRequest());
+    }
+
+    @Test
+    public void missingBookIsNoContent() throws Exception {
+        reactive(get("/api/reactive/books/{id}", Integer.MAX_VALUE))
+                .andExpect(status().isNoContent());
+        reactive(get("/api/reactive/books/isbn/{isbn}", "not an isbn"))
+                .andExpect(status().isNoContent());
+    }
+
+    private ResultActions reactive(MockHttpServletRequestBuilder request) throws Exception {
+        MvcResult started = mvc.perform(request)
+                .andExpect(request().asyncStarted())
+                .andReturn();
+        return mvc.perform(asyncDispatch(started));
+    }
+
+    private JsonNode json(MvcResult result) throws Exception {
+        return mapper.readTree(result.getResponse().getContentAsString());
+    }
+
+}
@@ -0,0 +1,113 @@
+package me.widua.bookMicroservice.api;
+
+import me.widua.bookMicroservice.cache.BookCache;
+import me.widua.bookMicroservice.models.BookModel;
+import me.widua.bookMicroservice.models.types.BookType;
+import me.widua.bookMicroservice.repositories.BookRepository;
+import me.widua.bookMicroservice.service.BookServiceImpl;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.server.LocalServerPort;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.junit.jupiter.SpringExtension;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.zip.GZIPInputStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/*
+ * Compression happens in Tomcat, below MockMvc, so this one runs against a real port. The context is separate from
+ * the MockMvc tests, its own database keeps its schema creation from resetting sequences under their pooled ids.
+ */
+@ExtendWith(SpringExtension.class)
+@ActiveProfiles("test")
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT, properties = {
+        "spring.datasource.url=jdbc:h2:mem:compressionTest",
+        "spring.r2dbc.url=r2dbc:h2:mem:///compressionTest"
+})
+class ResponseCompressionTest {
+
+    @LocalServerPort
+    private int port ;
+    @Autowired
+    private BookServiceImpl service ;
+    @Autowired
+    private BookRepository repository ;
+    @Autowired
+    private BookCache cache ;
+
+    private final HttpClient client = HttpClient.newHttpClient();
+
+    @BeforeEach
+    public void setDatabase(){
+        List<BookModel> books = new ArrayList<>();
+        for (int i = 0; i < 50; i++){
+            books.add(new BookModel("Author " + i, "Title " + i, withCheckDigit(String.format("97800000%04d", i)),
+                    "Description of book " + i, BookType.PHYSICAL, 1));
+        }
+        service.addBooks(books);
+    }
+
+    @AfterEach
+    public void clearDb(){
+        repository.deleteAll();
+        cache.invalidateAll();
+    }
+
+    @Test
+    public void listIsGzippedWhenAccepted() throws Exception {
+        //When
+        HttpResponse<InputStream> response = get("/api/books", "gzip");
+        //Then
+        assertEquals(200, response.statusCode());
+        assertEquals("gzip", response.headers().firstValue("Content-Encoding").orElse(null));
+        String json = read(new GZIPInputStream(response.body()));
+        assertTrue(json.startsWith("{\"books\":["));
+    }
+
+    @Test
+    public void listIsPlainWithoutAcceptEncoding() throws Exception {
+        //When
+        HttpResponse<InputStream> response = get("/api/books", null);
+        //Then
+        assertEquals(200, response.statusCode());
+        assertTrue(response.headers().firstValue("Content-Encoding").isEmpty());
+        assertTrue(read(response.body()).startsWith("{\"books\":["));
+    }
+
+    private HttpResponse<InputStream> get(String path, String acceptEncoding) throws IOException, InterruptedException {
+        HttpRequest.Builder request = HttpRequest.newBuilder(URI.create("http://localhost:" + port + path));
+        if (acceptEncoding != null){
+            request.header("Accept-Encoding", acceptEncoding);
+        }
+        return client.send(request.build(), HttpResponse.BodyHandlers.ofInputStream());
+    }
+
+    private String read(InputStream body) throws IOException {
+        try (body){
+            return new String(body.readAllBytes(), StandardCharsets.UTF_8);
+        }
+    }
+
+    private static String withCheckDigit(String digits){
+        int sum = 0;
+        for (int i = 0; i < 12; i++){
+            sum += (digits.charAt(i) - '0') * (i % 2 == 0 ? 1 : 3);
+        }
+        return digits + (10 - sum % 10) % 10;
+    }
+
+}
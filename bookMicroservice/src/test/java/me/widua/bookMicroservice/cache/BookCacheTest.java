@@ -0,0 +1,92 @@
+package me.widua.bookMicroservice.cache;
+
+import me.widua.bookMicroservice.models.BookModel;
+import me.widua.bookMicroservice.models.types.BookType;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class BookCacheTest {
+    private static final String ISBN = "9789009008507";
+
+    private final BookCache underTest = new BookCache(100, Duration.ofMinutes(10));
+
+    @Test
+    public void loadRacingWithWriteLeavesNoStaleCopy() throws Exception {
+        //Given
+        CountDownLatch loading = new CountDownLatch(1);
+        CountDownLatch written = new CountDownLatch(1);
+        CompletableFuture<Optional<BookModel>> load = CompletableFuture.supplyAsync(() -> underTest.getById(1, id -> {
+            loading.countDown();
+            await(written);
+            return Optional.of(book(0));
+        }));
+        assertTrue(loading.await(5, TimeUnit.SECONDS));
+        //When
+        // The after commit eviction of an update, it waits for the load of the same id
+        CompletableFuture<Void> eviction = CompletableFuture.runAsync(() -> underTest.evict(book(1)));
+        Thread.sleep(100);
+        written.countDown();
+        load.get(5, TimeUnit.SECONDS);
+        eviction.get(5, TimeUnit.SECONDS);
+        //Then
+        assertEquals(1L, underTest.getByIsbn(ISBN, isbn -> Optional.of(book(1))).orElseThrow().getVersion());
+        assertEquals(1L, underTest.getById(1, id -> Optional.of(book(1))).orElseThrow().getVersion());
+    }
+
+    @Test
+    public void olderVersionDoesNotReplaceNewer() throws Exception {
+        //Given
+        CountDownLatch loading = new CountDownLatch(1);
+        CountDownLatch answered = new CountDownLatch(1);
+        // A lagging replica answers the id lookup with an older version, and slower
+        CompletableFuture<Optional<BookModel>> byId = CompletableFuture.supplyAsync(() -> underTest.getById(1, id -> {
+            loading.countDown();
+            await(answered);
+            return Optional.of(book(1));
+        }));
+        assertTrue(loading.await(5, TimeUnit.SECONDS));
+        //When
+        CompletableFuture<Optional<BookModel>> byIsbn = CompletableFuture.supplyAsync(() -> underTest.getByIsbn(ISBN, isbn -> Optional.of(book(2))));
+        Thread.sleep(100);
+        answered.countDown();
+        byId.get(5, TimeUnit.SECONDS);
+        byIsbn.get(5, TimeUnit.SECONDS);
+        //Then
+        assertEquals(2L, underTest.getByIsbn(ISBN, isbn -> Optional.empty()).orElseThrow().getVersion());
+        assertEquals(2L, underTest.getById(1, id -> Optional.empty()).orElseThrow().getVersion());
+    }
+
+    @Test
+    public void evictionRemovesCopyUnderPreviousIsbn(){
+        //Given
+        underTest.getById(1, id -> Optional.of(book(0)));
+        BookModel renumbered = book(1);
+        renumbered.setISBN("9785006001206");
+        //When
+        underTest.evict(renumbered);
+        //Then
+        assertTrue(underTest.getByIsbn(ISBN, isbn -> Optional.empty()).isEmpty());
+    }
+
+    private static BookModel book(long version){
+        BookModel book = new BookModel(1, "Dante Alighieri", "Divine comedy", ISBN, "Classic of literature", BookType.PHYSICAL, 15);
+        book.setVersion(version);
+        return book;
+    }
+
+    private static void await(CountDownLatch latch){
+        try {
+            latch.await(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+}
@@ -0,0 +1,73 @@
+package me.widua.bookMicroservice.config;
+
+import org.hibernate.id.IdentifierGeneratorHelper;
+import org.hibernate.id.IntegralDataTypeHolder;
+import org.hibernate.id.enhanced.AccessCallback;
+import org.junit.jupiter.api.Test;
+
+import java.io.Serializable;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class BoundedAgePooledOptimizerTest {
+
+    @Test
+    public void blockIsUsedUpWhileYoung(){
+        //Given
+        Sequence sequence = new Sequence(50);
+        BoundedAgePooledOptimizer underTest = new BoundedAgePooledOptimizer(50, Duration.ofHours(1));
+        //When
+        List<Serializable> ids = new ArrayList<>();
+        for (int i = 0; i < 60; i++){
+            ids.add(underTest.generate(sequence));
+        }
+        //Then
+        // The new sequence's first value 1 is a block of its own, then 2..51 and 52..
+        assertEquals(3, sequence.calls);
+        for (int i = 0; i < 60; i++){
+            assertEquals((long) i + 1, ids.get(i));
+        }
+    }
+
+    @Test
+    public void oldBlockIsDropped(){
+        //Given
+        Sequence sequence = new Sequence(50);
+        BoundedAgePooledOptimizer underTest = new BoundedAgePooledOptimizer(50, Duration.ZERO);
+        //When
+        underTest.generate(sequence);
+        Serializable second = underTest.generate(sequence);
+        Serializable third = underTest.generate(sequence);
+        //Then
+        assertEquals(3, sequence.calls);
+        assertEquals(2L, second);
+        assertEquals(52L, third);
+    }
+
+    private static class Sequence implements AccessCallback {
+        private final int increment ;
+        private long next = 1;
+        private int calls ;
+
+        Sequence(int increment){
+            this.increment = increment;
+        }
+
+        @Override
+        public IntegralDataTypeHolder getNextValue(){
+            calls++;
+            IntegralDataTypeHolder value = new IdentifierGeneratorHelper.BasicHolder(Long.class).initialize(next);
+            next += increment;
+            return value;
+        }
+
+        @Override
+        public String getTenantIdentifier(){
+            return null;
+        }
+    }
+
+}
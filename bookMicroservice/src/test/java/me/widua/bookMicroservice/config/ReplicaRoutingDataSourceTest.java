@@ -0,0 +1,238 @@
+package me.widua.bookMicroservice.config;
+
+import com.zaxxer.hikari.HikariDataSource;
+import me.widua.bookMicroservice.cache.BookCache;
+import me.widua.bookMicroservice.models.BookModel;
+import me.widua.bookMicroservice.models.BookPageModel;
+import me.widua.bookMicroservice.models.types.BookType;
+import me.widua.bookMicroservice.repositories.BookRepository;
+import me.widua.bookMicroservice.service.BookChangeService;
+import me.widua.bookMicroservice.service.BookServiceImpl;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.junit.jupiter.SpringExtension;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.context.request.ServletRequestAttributes;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.time.Duration;
+import java.util.List;
+import java.util.function.Supplier;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/*
+ * Two local H2 databases, the replica is a copy of the primary taken with H2's SCRIPT. Rows changed only on one of
+ * them show which database answered.
+ */
+@ExtendWith(SpringExtension.class)
+@ActiveProfiles("test")
+@SpringBootTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:routingPrimary",
+        "spring.r2dbc.url=r2dbc:h2:mem:///routingPrimary",
+        "books.replicas.datasources[0].url=" + ReplicaRoutingDataSourceTest.REPLICA_URL,
+        "books.replicas.lag-query=select seconds from replication_lag",
+        "books.replicas.max-lag=PT5S",
+        "books.replicas.check-interval=PT1H",
+        "books.replicas.primary-after-write=PT0S"
+})
+class ReplicaRoutingDataSourceTest {
+    static final String REPLICA_URL = "jdbc:h2:mem:routingReplica;DB_CLOSE_DELAY=-1";
+    private static final String ISBN = "9785006001206";
+
+    @Autowired
+    private BookServiceImpl service ;
+    @Autowired
+    private BookChangeService changes ;
+    @Autowired
+    private BookRepository repository ;
+    @Autowired
+    private BookCache cache ;
+    @Autowired
+    private ReplicaRoutingDataSource routing ;
+    @Autowired
+    private JdbcTemplate primary ;
+    private final JdbcTemplate replica = new JdbcTemplate(new DriverManagerDataSource(REPLICA_URL, "sa", "password"));
+
+    @BeforeEach
+    public void setDatabase(){
+        service.addBook(new BookModel("Dante Alighieri", "Divine comedy", ISBN, "Classic of literature", BookType.PHYSICAL, 15));
+        replica.execute("drop all objects");
+        primary.queryForList("script", String.class).forEach(replica::execute);
+        replica.execute("create table replication_lag(seconds int)");
+        replica.update("insert into replication_lag values (0)");
+        replica.update("update book_model set book_title = 'Divine comedy (replica)'");
+        routing.checkReplicas();
+        // The test's mock request wrote the book above, tests read as other callers
+        RequestContextHolder.resetRequestAttributes();
+    }
+
+    @AfterEach
+    public void clearDb(){
+        repository.deleteAll();
+        cache.invalidateAll();
+    }
+
+    @Test
+    public void readOnlyReadsComeFromReplica(){
+        //When
+        BookPageModel<?> page = service.getBooks(null, 10).getBody();
+        BookModel book = service.getBook(ISBN).getBody();
+        //Then
+        assertEquals(List.of("replica-1"), routing.availableReplicas());
+        assertEquals("Divine comedy (replica)", ((BookModel) page.books().get(0)).getBookTitle());
+        assertEquals("Divine comedy (replica)", book.getBookTitle());
+    }
+
+    @Test
+    public void writesGoToPrimary(){
+        //Given
+        BookModel update = new BookModel();
+        update.setInStorage(3);
+        //When
+        service.updateBook(update, ISBN);
+        //Then
+        assertEquals(3, primary.queryForObject("select in_storage from book_model", Integer.class));
+        assertEquals(15, replica.queryForObject("select in_storage from book_model", Integer.class));
+    }
+
+    @Test
+    public void changeFeedIsReadFromPrimary(){
+        //Given
+        replica.update("delete from book_change_event_model");
+        //When
+        List<?> events = changes.getChanges(null, 10).getBody().events();
+        //Then
+        assertFalse(events.isEmpty());
+    }
+
+    @Test
+    public void laggingReplicaIsSkipped(){
+        //Given
+        replica.update("update replication_lag set seconds = 60");
+        //When
+        routing.checkReplicas();
+        //Then
+        assertTrue(routing.availableReplicas().isEmpty());
+        assertEquals("Divine comedy", service.getBook(ISBN).getBody().getBookTitle());
+    }
+
+    @Test
+    public void failingReplicaIsSkipped(){
+        //Given
+        replica.execute("drop table replication_lag");
+        //When
+        routing.checkReplicas();
+        //Then
+        assertTrue(routing.availableReplicas().isEmpty());
+        assertEquals("Divine comedy", ((BookModel) service.getBooks(null, 10).getBody().books().get(0)).getBookTitle());
+    }
+
+    @Test
+    public void callerReadsStayOnPrimaryAfterItsWrite() throws Exception {
+        //Given
+        ReplicaProperties properties = new ReplicaProperties(List.of(), Duration.ofSeconds(5), Duration.ofSeconds(5),
+                Duration.ofMinutes(1), "select seconds from replication_lag");
+        try (ReplicaRoutingDataSource sticky = new ReplicaRoutingDataSource(pool("jdbc:h2:mem:routingPrimary"), List.of(pool(REPLICA_URL)), properties)){
+            sticky.checkReplicas();
+            MockHttpServletResponse writeResponse = new MockHttpServletResponse();
+            //When
+            String sameRequest = inRequest(new MockHttpServletRequest(), writeResponse, () -> {
+                url(sticky);
+                return readOnly(() -> url(sticky));
+            });
+            String lastWrite = writeResponse.getHeader(ReplicaRoutingDataSource.LAST_WRITE_HEADER);
+            MockHttpServletRequest sameCaller = new MockHttpServletRequest();
+            sameCaller.addHeader(ReplicaRoutingDataSource.LAST_WRITE_HEADER, lastWrite);
+            String sameCallerRead = inRequest(sameCaller, new MockHttpServletResponse(), () -> readOnly(() -> url(sticky)));
+            String otherCallerRead = inRequest(new MockHttpServletRequest(), new MockHttpServletResponse(), () -> readOnly(() -> url(sticky)));
+            //Then
+            assertEquals(List.of("replica-1"), sticky.availableReplicas());
+            assertNotNull(lastWrite);
+            assertEquals("jdbc:h2:mem:routingPrimary", sameRequest);
+            assertEquals("jdbc:h2:mem:routingPrimary", sameCallerRead);
+            assertTrue(otherCallerRead.startsWith("jdbc:h2:mem:routingReplica"));
+        }
+    }
+
+    @Test
+    public void writesOutsideRequestsDontMoveReads() throws Exception {
+        //Given
+        ReplicaProperties properties = new ReplicaProperties(List.of(), Duration.ofSeconds(5), Duration.ofSeconds(5),
+                Duration.ofMinutes(1), "select seconds from replication_lag");
+        try (ReplicaRoutingDataSource sticky = new ReplicaRoutingDataSource(pool("jdbc:h2:mem:routingPrimary"), List.of(pool(REPLICA_URL)), properties)){
+            sticky.checkReplicas();
+            //When
+            // Like a scheduled job, e.g. expiring holds
+            url(sticky);
+            String read = readOnly(() -> url(sticky));
+            //Then
+            assertTrue(read.startsWith("jdbc:h2:mem:routingReplica"));
+        }
+    }
+
+    @Test
+    public void primaryReadsDontCountAsWrites() throws Exception {
+        //Given
+        ReplicaProperties properties = new ReplicaProperties(List.of(), Duration.ofSeconds(5), Duration.ofSeconds(5),
+                Duration.ofMinutes(1), "select seconds from replication_lag");
+        try (ReplicaRoutingDataSource sticky = new ReplicaRoutingDataSource(pool("jdbc:h2:mem:routingPrimary"), List.of(pool(REPLICA_URL)), properties)){
+            sticky.checkReplicas();
+            MockHttpServletResponse response = new MockHttpServletResponse();
+            //When
+            List<String> reads = inRequest(new MockHttpServletRequest(), response, () -> readOnly(() -> List.of(
+                    ReplicaRoutingDataSource.readFromPrimary(() -> url(sticky)), url(sticky))));
+            //Then
+            assertEquals("jdbc:h2:mem:routingPrimary", reads.get(0));
+            assertTrue(reads.get(1).startsWith("jdbc:h2:mem:routingReplica"));
+            assertNull(response.getHeader(ReplicaRoutingDataSource.LAST_WRITE_HEADER));
+        }
+    }
+
+    private static <T> T inRequest(MockHttpServletRequest request, MockHttpServletResponse response, Supplier<T> action){
+        RequestContextHolder.setRequestAttributes(new ServletRequestAttributes(request, response));
+        try {
+            return action.get();
+        } finally {
+            RequestContextHolder.resetRequestAttributes();
+        }
+    }
+
+    private static <T> T readOnly(Supplier<T> read){
+        TransactionSynchronizationManager.setCurrentTransactionReadOnly(true);
+        try {
+            return read.get();
+        } finally {
+            TransactionSynchronizationManager.setCurrentTransactionReadOnly(false);
+        }
+    }
+
+    private String url(ReplicaRoutingDataSource dataSource){
+        try (Connection connection = dataSource.getConnection()){
+            return connection.getMetaData().getURL();
+        } catch (SQLException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private HikariDataSource pool(String url){
+        HikariDataSource pool = new HikariDataSource();
+        pool.setJdbcUrl(url);
+        pool.setUsername("sa");
+        pool.setPassword("password");
+        pool.setPoolName(url.contains("Replica") ? "replica-1" : "primary");
+        return pool;
+    }
+
+}
@@ -1,17 +1,24 @@
 package me.widua.bookMicroservice.repository;
 
 import me.widua.bookMicroservice.models.BookModel;
+import me.widua.bookMicroservice.models.BookSummaryModel;
+import me.widua.bookMicroservice.models.FacetCountModel;
 import me.widua.bookMicroservice.models.types.BookType;
 import me.widua.bookMicroservice.repositories.BookRepository;
+import me.widua.bookMicroservice.support.SqlStatementCounter;
+import jakarta.persistence.EntityManagerFactory;
 import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.test.context.ActiveProfiles;
 import org.springframework.test.context.junit.jupiter.SpringExtension;
 
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.List;
 import java.util.Optional;
@@ -25,6 +32,11 @@ public class BookRepositoryTest {
 
     @Autowired
     private BookRepository repository ;
+    @Autowired
+    private TestEntityManager entityManager ;
+    @Autowired
+    private EntityManagerFactory entityManagerFactory ;
+    private SqlStatementCounter sql ;
 
     @BeforeEach
     public void setDatabase(){
@@ -52,6 +64,8 @@ public class BookRepositoryTest {
                         15)
         );
         repository.saveAll(books);
+        entityManager.flush();
+        sql = new SqlStatementCounter(entityManagerFactory);
     }
 
     @AfterEach
@@ -141,6 +155,53 @@ public class BookRepositoryTest {
         assertEquals(danteBooks.size(),1);
     }
 
+    @Test
+    public void keysetPaging(){
+        //Given
+        Integer firstId = repository.getBookModelByISBN("70080045670").get().getId();
+        //When
+        List<BookModel> firstPage = repository.findByIdGreaterThanOrderByIdAsc(0, PageRequest.of(0, 2));
+        List<BookModel> secondPage = repository.findByIdGreaterThanOrderByIdAsc(firstPage.get(1).getId(), PageRequest.of(0, 2));
+        //Then
+        assertEquals(2, firstPage.size());
+        assertEquals(firstId, firstPage.get(0).getId());
+        assertEquals(1, secondPage.size());
+        assertEquals("9009008500", secondPage.get(0).getISBN());
+    }
+
+    @Test
+    public void querySummaries(){
+        //Given
+        BookModel dante = repository.getBookModelByISBN("9009008500").get();
+        //When
+        List<BookSummaryModel> all = repository.findSummariesAfter(0, PageRequest.of(0, 10));
+        List<BookSummaryModel> byId = repository.findSummariesByIdIn(List.of(dante.getId()));
+        //Then
+        assertEquals(3, all.size());
+        assertEquals(1, byId.size());
+        assertEquals("Divine comedy", byId.get(0).bookTitle());
+        assertEquals(BookType.PHYSICAL, byId.get(0).bookType());
+    }
+
+    @Test
+    public void queryingExistingIsbns(){
+        //Given
+        List<String> isbns = List.of("9009008500", "1001002003", "5005005005");
+        //When
+        List<String> existing = repository.findExistingIsbns(isbns);
+        //Then
+        assertEquals(2, existing.size());
+        assertFalse(existing.contains("5005005005"));
+    }
+
+    @Test
+    public void queryingBooksByIsbns(){
+        //When
+        List<BookModel> books = repository.findAllByISBNIn(List.of("9009008500", "1001002003", "5005005005"));
+        //Then
+        assertEquals(2, books.size());
+    }
+
     @Test
     public void delete(){
         //Given
@@ -151,4 +212,69 @@ public class BookRepositoryTest {
         assertTrue(repository.findById(id).isEmpty());
     }
 
+    @Test
+    public void queriesAreSingleStatements() throws Exception {
+        sql.assertStatements(1, () -> repository.findAllByISBNIn(List.of("9009008500", "1001002003")));
+        sql.assertStatements(1, () -> repository.findByIdGreaterThanOrderByIdAsc(0, PageRequest.of(0, 2)));
+        sql.assertStatements(1, () -> repository.findSummariesAfter(0, PageRequest.of(0, 2)));
+        sql.assertStatements(1, () -> repository.findExistingIsbns(List.of("9009008500")));
+    }
+
+    @Test
+    public void insertsAreBatched() throws Exception {
+        //Given
+        List<BookModel> books = new ArrayList<>();
+        for (int i = 0; i < 40; i++){
+            books.add(new BookModel("Author", "Title " + i, "isbn-" + i, "Description", BookType.PHYSICAL, 1));
+        }
+        //Then
+        // One insert batch, the sequence call for the 40 ids (allocation size 50) isn't counted
+        sql.assertStatements(1, () -> {
+            repository.saveAll(books);
+            entityManager.flush();
+        });
+    }
+
+    @Test
+    public void catalogVersionFollowsWrites(){
+        //Given
+        String created = repository.catalogVersion();
+        BookModel book = repository.getBookModelByISBN("9009008500").get();
+        //When
+        book.setInStorage(3);
+        entityManager.flush();
+        String updated = repository.catalogVersion();
+        repository.save(new BookModel("Author", "Title", "5005005005", "Description", BookType.PHYSICAL, 1));
+        entityManager.flush();
+        String added = repository.catalogVersion();
+        //Then
+        assertEquals("3-0", created);
+        assertEquals("3-1", updated);
+        assertEquals("4-1", added);
+    }
+
+    @Test
+    public void missingVersionsAreInitialized(){
+        //Given
+        entityManager.getEntityManager().createNativeQuery("update book_model set version = null").executeUpdate();
+        //When
+        int initialized = repository.initializeVersions();
+        entityManager.clear();
+        //Then
+        assertEquals(3, initialized);
+        assertEquals(0L, repository.getBookModelByISBN("9009008500").get().getVersion());
+    }
+
+    @Test
+    public void groupByCountsForFacets(){
+        //When
+        List<FacetCountModel<BookType>> types = repository.countByBookType();
+        List<FacetCountModel<String>> authors = repository.countByAuthor();
+        //Then
+        assertTrue(types.contains(new FacetCountModel<>(BookType.PHYSICAL, 2L)));
+        assertTrue(types.contains(new FacetCountModel<>(BookType.E_BOOK, 1L)));
+        assertTrue(authors.contains(new FacetCountModel<>("J.K. Rowling", 2L)));
+        assertEquals(45, repository.sumInStorage());
+    }
+
 }
@@ -0,0 +1,108 @@
+package me.widua.bookMicroservice.search;
+
+import me.widua.bookMicroservice.models.BookModel;
+import me.widua.bookMicroservice.models.types.BookType;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class BookSearchIndexTest {
+
+    private BookSearchIndex underTest;
+
+    @BeforeEach
+    public void setUp(){
+        underTest = new BookSearchIndex(256);
+        underTest.index(new BookModel(1, "J.K. Rowling", "Harry Potter and the Philosopher's Stone", "9780747532699",
+                "First book of Harry Potter adventures", BookType.PHYSICAL, 15));
+        underTest.index(new BookModel(2, "J.K. Rowling", "Harry Potter and the Chamber of Secrets", "9780747538493",
+                "Second year at Hogwarts", BookType.AUDIOBOOK, 3));
+        underTest.index(new BookModel(3, "Dante Alighieri", "Divine comedy", "9780140448955",
+                "Classic of literature, a journey through Inferno", BookType.PHYSICAL, 15));
+    }
+
+    @Test
+    public void allTermsMustMatch(){
+        //When
+        BookSearchIndex.SearchResult result = underTest.search("harry stone", null, 0, 10);
+        //Then
+        assertEquals(List.of(1), result.ids());
+    }
+
+    @Test
+    public void lastTermMatchesAsPrefix(){
+        //When
+        BookSearchIndex.SearchResult result = underTest.search("harry pot", null, 0, 10);
+        //Then
+        assertEquals(2, result.total());
+    }
+
+    @Test
+    public void titleOutranksDescription(){
+        //When
+        BookSearchIndex.SearchResult result = underTest.search("harry", null, 0, 10);
+        //Then
+        assertEquals(List.of(1, 2), result.ids(), "book 1 mentions Harry in the title and in the description");
+    }
+
+    @Test
+    public void filtersAndPages(){
+        //When
+        BookSearchIndex.SearchResult byType = underTest.search("rowling", BookType.AUDIOBOOK, 0, 10);
+        BookSearchIndex.SearchResult secondPage = underTest.search("rowling", null, 1, 1);
+        //Then
+        assertEquals(List.of(2), byType.ids());
+        assertEquals(List.of(2), secondPage.ids());
+        assertEquals(2, secondPage.total());
+    }
+
+    @Test
+    public void caseAndAccentsAreIgnored(){
+        assertEquals(List.of(3), underTest.search("DÀNTE", null, 0, 10).ids());
+    }
+
+    @Test
+    public void reindexingReplacesOldTerms(){
+        //Given
+        BookModel renamed = new BookModel(3, "Dante Alighieri", "Inferno", "9780140448955", null, BookType.PHYSICAL, 15);
+        //When
+        underTest.index(renamed);
+        //Then
+        assertEquals(0, underTest.search("divine", null, 0, 10).total());
+        assertEquals(List.of(3), underTest.search("inferno", null, 0, 10).ids());
+        assertEquals(3, underTest.size());
+    }
+
+    @Test
+    public void cappedPrefixKeepsMostCommonTerms(){
+        //Given
+        BookSearchIndex capped = new BookSearchIndex(2);
+        // "ant" is first alphabetically but in one book only, "aqua" and "arch" are in two each
+        capped.index(new BookModel(1, null, "Ant", "9780000000001", null, BookType.PHYSICAL, 1));
+        capped.index(new BookModel(2, null, "Aqua", "9780000000002", null, BookType.PHYSICAL, 1));
+        capped.index(new BookModel(3, null, "Aqua", "9780000000003", null, BookType.PHYSICAL, 1));
+        capped.index(new BookModel(4, null, "Arch", "9780000000004", null, BookType.PHYSICAL, 1));
+        capped.index(new BookModel(5, null, "Arch", "9780000000005", null, BookType.PHYSICAL, 1));
+        //When
+        BookSearchIndex.SearchResult result = capped.search("a", null, 0, 10);
+        BookSearchIndex.SearchResult narrower = capped.search("aq", null, 0, 10);
+        //Then
+        assertEquals(List.of(2, 3, 4, 5), result.ids());
+        assertEquals(4, result.total());
+        assertTrue(result.truncated());
+        assertEquals(List.of(2, 3), narrower.ids());
+        assertFalse(narrower.truncated());
+    }
+
+    @Test
+    public void removedBooksAreNotFound(){
+        //When
+        underTest.remove(1);
+        //Then
+        assertEquals(List.of(2), underTest.search("harry", null, 0, 10).ids());
+    }
+
+}
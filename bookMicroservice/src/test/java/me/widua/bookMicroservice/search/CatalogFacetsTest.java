@@ -0,0 +1,80 @@
+package me.widua.bookMicroservice.search;
+
+import me.widua.bookMicroservice.models.CatalogFacetsModel;
+import me.widua.bookMicroservice.models.FacetCountModel;
+import me.widua.bookMicroservice.models.types.BookType;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CatalogFacetsTest {
+
+    private CatalogFacets underTest;
+
+    @BeforeEach
+    public void setUp(){
+        underTest = new CatalogFacets();
+        underTest.apply(null, new CatalogFacets.Entry("J.K. Rowling", BookType.PHYSICAL, 15));
+        underTest.apply(null, new CatalogFacets.Entry("Dante Alighieri", BookType.E_BOOK, 5));
+    }
+
+    @Test
+    public void newBooksAreCounted(){
+        //When
+        CatalogFacetsModel facets = underTest.snapshot();
+        //Then
+        assertEquals(2, facets.totalBooks());
+        assertEquals(20, facets.totalStock());
+        assertEquals(1, facets.bookTypes().get(BookType.PHYSICAL));
+        assertEquals(0, facets.bookTypes().get(BookType.AUDIOBOOK));
+        assertEquals(List.of("Dante Alighieri", "J.K. Rowling"), List.copyOf(facets.authors().keySet()));
+    }
+
+    @Test
+    public void updateMovesBookBetweenGroups(){
+        //When
+        underTest.apply(new CatalogFacets.Entry("Dante Alighieri", BookType.E_BOOK, 5),
+                new CatalogFacets.Entry("Dante", BookType.AUDIOBOOK, 2));
+        CatalogFacetsModel facets = underTest.snapshot();
+        //Then
+        assertEquals(2, facets.totalBooks());
+        assertEquals(17, facets.totalStock());
+        assertEquals(0, facets.bookTypes().get(BookType.E_BOOK));
+        assertEquals(1, facets.bookTypes().get(BookType.AUDIOBOOK));
+        assertFalse(facets.authors().containsKey("Dante Alighieri"));
+        assertEquals(1, facets.authors().get("Dante"));
+    }
+
+    @Test
+    public void snapshotIsRebuiltOnlyAfterChanges(){
+        //Given
+        CatalogFacetsModel first = underTest.snapshot();
+        //When
+        CatalogFacetsModel unchanged = underTest.snapshot();
+        underTest.apply(null, new CatalogFacets.Entry("Homer", BookType.AUDIOBOOK, 1));
+        CatalogFacetsModel changed = underTest.snapshot();
+        //Then
+        assertSame(first, unchanged);
+        assertNotSame(first, changed);
+        assertEquals(3, changed.totalBooks());
+        assertEquals(1, changed.authors().get("Homer"));
+    }
+
+    @Test
+    public void replaceDropsDrift(){
+        //When
+        underTest.replace(1, 3, List.of(new FacetCountModel<>(BookType.AUDIOBOOK, 1L)),
+                List.of(new FacetCountModel<>("Homer", 1L)));
+        CatalogFacetsModel facets = underTest.snapshot();
+        //Then
+        assertEquals(1, facets.totalBooks());
+        assertEquals(3, facets.totalStock());
+        assertEquals(0, facets.bookTypes().get(BookType.PHYSICAL));
+        assertEquals(1, facets.bookTypes().get(BookType.AUDIOBOOK));
+        assertEquals(List.of("Homer"), List.copyOf(facets.authors().keySet()));
+    }
+
+}
@@ -0,0 +1,136 @@
+package me.widua.bookMicroservice.service;
+
+import me.widua.bookMicroservice.models.BookChangeEventModel;
+import me.widua.bookMicroservice.models.BookChangePageModel;
+import me.widua.bookMicroservice.models.ResponseModel;
+import me.widua.bookMicroservice.models.types.BookChangeType;
+import me.widua.bookMicroservice.repositories.BookChangeEventRepository;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpStatus;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.junit.jupiter.SpringExtension;
+import org.springframework.transaction.IllegalTransactionStateException;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@ExtendWith(SpringExtension.class)
+@ActiveProfiles("test")
+@Transactional
+@SpringBootTest
+class BookChangeServiceImplTest {
+    @Autowired
+    private BookChangeServiceImpl underTest ;
+    @Autowired
+    private BookChangeEventRepository repository ;
+    @Autowired
+    private ObjectMapper mapper ;
+    @Autowired
+    private JdbcTemplate primary ;
+
+    @BeforeEach
+    public void setUp(){
+        repository.deleteAll();
+    }
+
+    @Test
+    public void pagesFollowOffsets(){
+        //Given
+        List<BookChangeEventModel> events = List.of(event(Instant.now()), event(Instant.now()), event(Instant.now()));
+        repository.saveAll(events);
+        //When
+        ResponseModel<BookChangePageModel> first = underTest.getChanges(null, 2);
+        ResponseModel<BookChangePageModel> second = underTest.getChanges(first.getBody().nextOffset(), 2);
+        ResponseModel<BookChangePageModel> end = underTest.getChanges(second.getBody().nextOffset(), 2);
+        //Then
+        assertEquals(List.of(events.get(0), events.get(1)), first.getBody().events());
+        assertEquals(List.of(events.get(2)), second.getBody().events());
+        assertTrue(end.getBody().events().isEmpty());
+        assertEquals(second.getBody().nextOffset(), end.getBody().nextOffset());
+    }
+
+    @Test
+    public void recentEventsWaitForVisibilityDelay(){
+        //Given
+        BookChangeServiceImpl delayed = new BookChangeServiceImpl(repository, mapper, Duration.ofMinutes(1), Duration.ofDays(7), 100, 1000, Duration.ofSeconds(30));
+        repository.save(event(Instant.now().minus(Duration.ofMinutes(2))));
+        repository.save(event(Instant.now()));
+        //When
+        ResponseModel<BookChangePageModel> response = delayed.getChanges(null, null);
+        //Then
+        assertEquals(1, response.getBody().events().size());
+    }
+
+    @Test
+    public void visibilityDelayMustOutlastTransactions(){
+        //Given
+        //When
+        //Then
+        assertThrows(IllegalStateException.class,
+                () -> new BookChangeServiceImpl(repository, mapper, Duration.ofSeconds(30), Duration.ofDays(7), 100, 1000, Duration.ofSeconds(30)));
+        assertThrows(IllegalStateException.class,
+                () -> new BookChangeServiceImpl(repository, mapper, Duration.ofSeconds(30), Duration.ofDays(7), 100, 1000, null));
+        // Ids of a block can be taken for up to a second after a higher one
+        assertThrows(IllegalStateException.class,
+                () -> new BookChangeServiceImpl(repository, mapper, Duration.ofMillis(30_500), Duration.ofDays(7), 100, 1000, Duration.ofSeconds(30)));
+    }
+
+    @Test
+    public void eventIdsArePooled(){
+        //Given
+        List<BookChangeEventModel> events = new ArrayList<>();
+        for (int i = 0; i < 10; i++){
+            events.add(event(Instant.now()));
+        }
+        //When
+        repository.saveAll(events);
+        long next = primary.queryForObject("select next value for book_change_event_seq", Long.class);
+        //Then
+        // One sequence call for the block the ten ids came from
+        assertTrue(next - events.get(0).getId() >= 50, "Next sequence value " + next);
+        for (int i = 1; i < events.size(); i++){
+            assertEquals(events.get(i - 1).getId() + 1, events.get(i).getId());
+        }
+    }
+
+    @Test
+    public void purgeDropsEventsPastRetention(){
+        //Given
+        repository.save(event(Instant.now().minus(Duration.ofDays(8))));
+        repository.save(event(Instant.now()));
+        //When
+        int purged = underTest.purge();
+        //Then
+        assertEquals(1, purged);
+        assertEquals(1, repository.count());
+    }
+
+    @Test
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    public void recordNeedsTransaction(){
+        assertThrows(IllegalTransactionStateException.class,
+                () -> underTest.record(BookChangeType.CREATED, new me.widua.bookMicroservice.models.BookModel()));
+    }
+
+    @Test
+    public void invalidLimitIsBadRequest(){
+        assertEquals(HttpStatus.BAD_REQUEST, underTest.getChanges(null, 0).getStatus());
+    }
+
+    private BookChangeEventModel event(Instant createdAt){
+        return new BookChangeEventModel(BookChangeType.UPDATED, 1, "9789099099096", 1L, "{}", createdAt);
+    }
+
+}
@@ -0,0 +1,116 @@
+package me.widua.bookMicroservice.service;
+
+import me.widua.bookMicroservice.cache.BookCache;
+import me.widua.bookMicroservice.models.BookModel;
+import me.widua.bookMicroservice.models.ResponseModel;
+import me.widua.bookMicroservice.models.types.BookType;
+import me.widua.bookMicroservice.repositories.BookRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpStatus;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.junit.jupiter.SpringExtension;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/*
+ * Rows of earlier versions are written with plain SQL, the way those versions left them.
+ */
+@ExtendWith(SpringExtension.class)
+@ActiveProfiles("test")
+@SpringBootTest
+class BookDataMigrationTest {
+    @Autowired
+    private BookDataMigration underTest ;
+    @Autowired
+    private BookServiceImpl service ;
+    @Autowired
+    private BookRepository repository ;
+    @Autowired
+    private BookCache cache ;
+    @Autowired
+    private JdbcTemplate primary ;
+
+    @AfterEach
+    public void clearDb(){
+        repository.deleteAll();
+        cache.invalidateAll();
+    }
+
+    @Test
+    public void idSequenceMovesPastExistingRows(){
+        //Given
+        // Identity column ids, right where the sequence would hand out its next blocks
+        long next = primary.queryForObject("select nextval('book_model_seq')", Long.class);
+        for (int i = 1; i <= 120; i++){
+            legacyBook(next + i, isbn(i));
+        }
+        List<BookModel> books = new ArrayList<>();
+        for (int i = 121; i <= 180; i++){
+            books.add(new BookModel("Author", "Title " + i, isbn(i), "Description", BookType.PHYSICAL, 1));
+        }
+        //When
+        underTest.advanceIdSequence();
+        ResponseModel<Void> response = service.addBooks(books);
+        //Then
+        assertTrue(response.getStatus().is2xxSuccessful(), response.getStatus().toString());
+        assertEquals(180, repository.count());
+        assertTrue(books.stream().allMatch(book -> book.getId() > next + 120));
+    }
+
+    @Test
+    public void idSequenceAheadOfRowsIsLeftAlone(){
+        //Given
+        legacyBook(1, isbn(1));
+        long next = primary.queryForObject("select nextval('book_model_seq')", Long.class);
+        //When
+        underTest.advanceIdSequence();
+        //Then
+        // Only the block the check took is skipped
+        assertEquals(next + BookModel.ID_ALLOCATION_SIZE * 2L, primary.queryForObject("select nextval('book_model_seq')", Long.class));
+    }
+
+    @Test
+    public void storedIsbnsAreNormalized(){
+        //Given
+        legacyBook(1, "0-7475-3269-9");
+        legacyBook(2, "9780747538493");
+        legacyBook(3, "not an isbn");
+        // Same book as 1, spelled differently
+        legacyBook(4, "0747532699");
+        //When
+        int normalized = underTest.normalizeIsbns();
+        //Then
+        assertEquals(1, normalized);
+        assertEquals(List.of("9780747532699", "9780747538493", "not an isbn", "0747532699"),
+                primary.queryForList("select isbn from book_model order by id", String.class));
+        assertEquals(1, primary.queryForObject("select version from book_model where id = 1", Long.class));
+        assertEquals(1, primary.queryForObject(
+                "select count(*) from book_change_event_model where book_id = 1 and isbn = '9780747532699'", Integer.class));
+        assertEquals(HttpStatus.OK, service.getBook("0-7475-3269-9").getStatus());
+        assertEquals(0, underTest.normalizeIsbns());
+    }
+
+    private void legacyBook(long id, String isbn){
+        primary.update("insert into book_model(id, author, book_title, isbn, book_description, book_type, in_storage, version) "
+                + "values (?, 'Author', 'Title', ?, 'Description', 'PHYSICAL', 1, 0)", id, isbn);
+    }
+
+    // ISBN-13 978-1-00001-nnn with its check digit
+    private static String isbn(int number){
+        String digits = String.format("978100001%03d", number);
+        int sum = 0;
+        for (int i = 0; i < digits.length(); i++){
+            sum += (digits.charAt(i) - '0') * ((i & 1) == 0 ? 1 : 3);
+        }
+        return digits + (10 - sum % 10) % 10;
+    }
+
+}
@@ -0,0 +1,117 @@
+package me.widua.bookMicroservice.service;
+
+import lombok.extern.slf4j.Slf4j;
+import me.widua.bookMicroservice.cache.BookCache;
+import me.widua.bookMicroservice.models.BookModel;
+import me.widua.bookMicroservice.models.ResponseModel;
+import me.widua.bookMicroservice.models.types.BookType;
+import me.widua.bookMicroservice.repositories.BookRepository;
+import me.widua.bookMicroservice.search.BookSearchIndex;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpStatus;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.junit.jupiter.SpringExtension;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/*
+ * Many threads reserving the same book against the real database: exactly the stock is handed out, never more.
+ */
+@Slf4j
+@Tag("stress")
+@ExtendWith(SpringExtension.class)
+@ActiveProfiles("test")
+@SpringBootTest
+class BookReservationStressTest {
+
+    private static final String ISBN = "9789009008507";
+    private static final int STOCK = 1_000;
+    private static final int THREADS = 16;
+    private static final int RELEASING_THREADS = 4;
+    private static final int OPERATIONS_PER_THREAD = 250;
+
+    @Autowired
+    private BookServiceImpl underTest ;
+    @Autowired
+    private BookRepository repository ;
+    @Autowired
+    private BookCache cache ;
+    @Autowired
+    private BookSearchIndex searchIndex ;
+
+    @AfterEach
+    public void clearDb(){
+        repository.deleteAll();
+        cache.invalidateAll();
+        searchIndex.clear();
+    }
+
+    @Test
+    public void concurrentReservationsNeverOversell() throws Exception {
+        //Given
+        underTest.addBook(new BookModel("Dante Alighieri", "Divine comedy", ISBN, "Classic of literature", BookType.PHYSICAL, STOCK));
+        AtomicInteger reserved = new AtomicInteger();
+        AtomicInteger released = new AtomicInteger();
+        AtomicInteger rejected = new AtomicInteger();
+        CountDownLatch start = new CountDownLatch(1);
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+        List<Future<?>> results = new ArrayList<>();
+        //When
+        for (int t = 0; t < THREADS; t++){
+            // A few threads return books while the rest borrow, so stock moves both ways and runs out on the way
+            boolean releasing = t < RELEASING_THREADS;
+            results.add(executor.submit((Callable<Void>) () -> {
+                start.await();
+                for (int i = 0; i < OPERATIONS_PER_THREAD; i++){
+                    if (releasing){
+                        assertEquals(HttpStatus.OK, underTest.releaseBook(ISBN, 1).getStatus());
+                        released.incrementAndGet();
+                        continue;
+                    }
+                    ResponseModel<?> response = underTest.reserveBook(ISBN, 1);
+                    if (response.getStatus().equals(HttpStatus.OK)){
+                        reserved.incrementAndGet();
+                    } else {
+                        assertEquals(HttpStatus.CONFLICT, response.getStatus());
+                        rejected.incrementAndGet();
+                    }
+                }
+                return null;
+            }));
+        }
+        long started = System.nanoTime();
+        start.countDown();
+        for (Future<?> result : results){
+            result.get();
+        }
+        double seconds = (System.nanoTime() - started) / 1e9;
+        executor.shutdown();
+        assertTrue(executor.awaitTermination(10, TimeUnit.SECONDS));
+        //Then
+        BookModel book = repository.getBookModelByISBN(ISBN).orElseThrow();
+        int operations = reserved.get() + rejected.get() + released.get();
+        log.info("{} reserved, {} rejected, {} released in {} s ({} operations/s)", reserved.get(), rejected.get(),
+                released.get(), String.format("%.2f", seconds), String.format("%.0f", operations / seconds));
+        // 3000 attempts against at most 2000 books, some have to be turned away
+        assertTrue(reserved.get() <= STOCK + released.get());
+        assertTrue(rejected.get() >= (THREADS - RELEASING_THREADS) * OPERATIONS_PER_THREAD - STOCK - released.get());
+        assertEquals(STOCK + released.get() - reserved.get(), book.getInStorage());
+        assertEquals((long) reserved.get() + released.get(), book.getVersion());
+    }
+
+}
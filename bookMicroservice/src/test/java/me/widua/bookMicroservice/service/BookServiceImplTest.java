@@ -1,8 +1,12 @@
 package me.widua.bookMicroservice.service;
 
 
+import me.widua.bookMicroservice.cache.BookCache;
 import me.widua.bookMicroservice.models.BookModel;
+import me.widua.bookMicroservice.models.BookPageModel;
+import me.widua.bookMicroservice.models.BookUpdateResultModel;
 import me.widua.bookMicroservice.models.ResponseModel;
+import me.widua.bookMicroservice.models.types.BookFields;
 import me.widua.bookMicroservice.models.types.BookType;
 
 import me.widua.bookMicroservice.repositories.BookRepository;
@@ -13,6 +17,8 @@ import org.junit.jupiter.api.extension.ExtendWith;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.context.SpringBootTest;
 import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
 import org.springframework.http.HttpStatus;
 
 import org.springframework.test.context.ActiveProfiles;
@@ -26,9 +32,14 @@ import java.util.List;
 import java.util.Optional;
 
 import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.ArgumentMatchers.anyInt;
 import static org.mockito.ArgumentMatchers.anyString;
-import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoMoreInteractions;
 import static org.mockito.Mockito.when;
 
 @ExtendWith(SpringExtension.class)
@@ -40,6 +51,8 @@ class BookServiceImplTest {
     private BookServiceImpl underTest ;
     @MockBean
     private BookRepository repository ;
+    @Autowired
+    private BookCache cache ;
 
     private List<BookModel> exampleBooks;
     private BookModel exampleInvalidBook;
@@ -47,11 +60,12 @@ class BookServiceImplTest {
 
     @BeforeEach
     public void setUp(){
+        cache.invalidateAll();
         exampleBooks =  Arrays.asList(
                 new BookModel(
                         "J.K. Rowling",
                         "Harry Potter and the Philosopher's Stone" ,
-                        "5006001200" ,
+                        "9785006001206" ,
                         "First book of Harry Potter adventures" ,
                         BookType.PHYSICAL ,
                         15),
@@ -59,7 +73,7 @@ class BookServiceImplTest {
                         2,
                         "J.K. Rowling",
                         "Harry Potter and the Philosopher's Stone" ,
-                        "7008004567" ,
+                        "9787008004568" ,
                         "First book of Harry Potter adventures" ,
                         BookType.E_BOOK ,
                         15),
@@ -67,7 +81,7 @@ class BookServiceImplTest {
                         3,
                         "Dante Alighieri",
                         "Divine comedy" ,
-                        "9009008500" ,
+                        "9789009008507" ,
                         "Classic of literature" ,
                         BookType.PHYSICAL ,
                         15)
@@ -86,7 +100,7 @@ class BookServiceImplTest {
                 1,
                 "J. R. R. Tolkien",
                 "The Hobbit, Part One",
-                "9099099090",
+                "9789099099096",
                 "First part of one of the most popular Tolkien book series",
                 BookType.PHYSICAL,
                 20
@@ -98,17 +112,66 @@ class BookServiceImplTest {
         //When
         underTest.getBooks();
         //Ten
-        verify(repository).findAll();
+        verify(repository).findByIdGreaterThanOrderByIdAsc(0, PageRequest.of(0, 51));
     }
     @Test
     public void noBooksGivesNoContent(){
         //When
-        when(repository.findAll()).thenReturn(new ArrayList<>());
-        ResponseModel response = underTest.getBooks();
+        when(repository.findByIdGreaterThanOrderByIdAsc(anyInt(), any(Pageable.class))).thenReturn(new ArrayList<>());
+        ResponseModel<?> response = underTest.getBooks();
         //Then
         assertEquals(response.getStatus(),HttpStatus.NO_CONTENT);
     }
 
+    @Test
+    public void fullPageGivesNextCursor(){
+        //Given
+        List<BookModel> page = List.of(exampleBooks.get(1), exampleBooks.get(2));
+        //When
+        when(repository.findByIdGreaterThanOrderByIdAsc(0, PageRequest.of(0, 2))).thenReturn(page);
+        ResponseModel<BookPageModel<?>> response = underTest.getBooks(null, 1);
+        BookPageModel<?> body = response.getBody();
+        //Then
+        assertAll(
+                "Keyset page",
+                () -> assertEquals(HttpStatus.OK, response.getStatus()),
+                () -> assertEquals(1, body.books().size()),
+                () -> assertEquals(2, body.nextCursor())
+        );
+    }
+
+    @Test
+    public void lastPageHasNoCursor(){
+        //Given
+        List<BookModel> page = List.of(exampleBooks.get(2));
+        //When
+        when(repository.findByIdGreaterThanOrderByIdAsc(2, PageRequest.of(0, 3))).thenReturn(page);
+        ResponseModel<BookPageModel<?>> response = underTest.getBooks(2, 2);
+        BookPageModel<?> body = response.getBody();
+        //Then
+        assertEquals(1, body.books().size());
+        assertNull(body.nextCursor());
+    }
+
+    @Test
+    public void summaryPageUsesProjection(){
+        //When
+        underTest.getBooks(null, 10, BookFields.SUMMARY);
+        //Then
+        verify(repository).findSummariesAfter(0, PageRequest.of(0, 11));
+        verify(repository, never()).findByIdGreaterThanOrderByIdAsc(anyInt(), any(Pageable.class));
+    }
+
+    @Test
+    public void pageSizeIsCappedAndValidated(){
+        //When
+        underTest.getBooks(null, 100_000);
+        ResponseModel<?> invalid = underTest.getBooks(null, 0);
+        //Then
+        verify(repository).findByIdGreaterThanOrderByIdAsc(0, PageRequest.of(0, 501));
+        assertEquals(HttpStatus.BAD_REQUEST, invalid.getStatus());
+    }
+
     @Test
     public void canGetBookById(){
         //given
@@ -125,7 +188,7 @@ class BookServiceImplTest {
         Integer id = 1;
         //When
         when(repository.findById(id)).thenReturn(Optional.empty());
-        ResponseModel response = underTest.getBook(id);
+        ResponseModel<?> response = underTest.getBook(id);
         //Then
         assertEquals(HttpStatus.NO_CONTENT , response.getStatus());
     }
@@ -133,7 +196,7 @@ class BookServiceImplTest {
     @Test
     public void canGetBookByIsbn(){
         //Given
-        String isbn = "5006001200";
+        String isbn = "9785006001206";
         //When
         underTest.getBook(isbn);
         //Then
@@ -143,21 +206,78 @@ class BookServiceImplTest {
     @Test
     public void noBookByIsbnNoContent(){
         //Given
-        String isbn = "5006001200";
+        String isbn = "9785006001206";
         //When
         when(repository.getBookModelByISBN(isbn)).thenReturn(Optional.empty());
-        ResponseModel response = underTest.getBooks(isbn);
+        ResponseModel<?> response = underTest.getBooks(isbn);
         //Then
         assertEquals(HttpStatus.NO_CONTENT , response.getStatus());
     }
 
+    @Test
+    public void repeatedLookupsAreServedFromCache(){
+        //Given
+        String isbn = exampleSingleBook.getISBN();
+        Integer id = exampleSingleBook.getId();
+        //When
+        when(repository.getBookModelByISBN(isbn)).thenReturn(Optional.of(exampleSingleBook));
+        underTest.getBook(isbn);
+        underTest.getBook(isbn);
+        ResponseModel<BookModel> byId = underTest.getBook(id);
+        boolean exists = underTest.doesIsbnExistInDatabase(isbn);
+        //Then
+        verify(repository, times(1)).getBookModelByISBN(isbn);
+        verify(repository, times(0)).findById(id);
+        assertEquals(HttpStatus.OK, byId.getStatus());
+        assertSame(exampleSingleBook, byId.getBody());
+        assertTrue(exists);
+    }
+
+    @Test
+    public void missingBooksAreNotCached(){
+        //Given
+        String isbn = exampleSingleBook.getISBN();
+        //When
+        when(repository.getBookModelByISBN(isbn)).thenReturn(Optional.empty());
+        underTest.getBook(isbn);
+        underTest.getBook(isbn);
+        //Then
+        verify(repository, times(2)).getBookModelByISBN(isbn);
+    }
+
+    @Test
+    public void updateInvalidatesCachedBook(){
+        //Given
+        String isbn = exampleSingleBook.getISBN();
+        BookModel newBook = new BookModel();
+        newBook.setInStorage(3);
+        when(repository.getBookModelByISBN(isbn)).thenReturn(Optional.of(exampleSingleBook));
+        underTest.getBook(isbn);
+        //When
+        underTest.updateBook(newBook, isbn);
+        underTest.getBook(isbn);
+        //Then
+        verify(repository, times(3)).getBookModelByISBN(isbn);
+    }
+
+    @Test
+    public void updateByIsbnQueriesBookOnce(){
+        //Given
+        String isbn = exampleSingleBook.getISBN();
+        //When
+        when(repository.getBookModelByISBN(isbn)).thenReturn(Optional.of(exampleSingleBook));
+        underTest.updateBook(new BookModel(), isbn);
+        //Then
+        verify(repository, times(1)).getBookModelByISBN(isbn);
+    }
+
     @Test
     public void addBookWithValidIsbn(){
         //Given
         BookModel toSave = exampleBooks.get(0);
         //When
         when(repository.getBookModelByISBN(toSave.getISBN())).thenReturn(Optional.empty());
-        ResponseModel response = underTest.addBook(toSave);
+        ResponseModel<?> response = underTest.addBook(toSave);
         //Then
         verify(repository).save(toSave);
         assertEquals(HttpStatus.CREATED , response.getStatus());
@@ -166,7 +286,7 @@ class BookServiceImplTest {
     @Test
     public void addBookWithInvalidIsbn(){
         //Given
-        String isbn = "9009001200";
+        String isbn = "9789009001201";
         BookModel toSave = new BookModel(
                 "J.K. Rowling",
                 "Harry Potter and the Philosopher's Stone" ,
@@ -176,11 +296,29 @@ class BookServiceImplTest {
                 15);
         //When
         when(repository.getBookModelByISBN(isbn)).thenReturn(Optional.of(toSave));
-        ResponseModel responseModel = underTest.addBook(toSave);
+        ResponseModel<?> responseModel = underTest.addBook(toSave);
         //Then
         assertEquals(responseModel.getStatus() , HttpStatus.BAD_REQUEST);
     }
 
+    @Test
+    public void addBookStoresNormalizedIsbn(){
+        //Given
+        BookModel toSave = new BookModel(
+                "J.K. Rowling",
+                "Harry Potter and the Philosopher's Stone" ,
+                "0-7475-3269-9",
+                "First book of Harry Potter adventures" ,
+                BookType.PHYSICAL ,
+                15);
+        //When
+        ResponseModel<?> response = underTest.addBook(toSave);
+        //Then
+        assertEquals(HttpStatus.CREATED , response.getStatus());
+        assertEquals("9780747532699", toSave.getISBN());
+        verify(repository).getBookModelByISBN("9780747532699");
+    }
+
     @Test
     public void addBookWithNullIsbn(){
         //Given
@@ -193,7 +331,7 @@ class BookServiceImplTest {
                 BookType.PHYSICAL ,
                 15);
         //When
-        ResponseModel responseModel = underTest.addBook(toSave);
+        ResponseModel<?> responseModel = underTest.addBook(toSave);
         //Then
         assertEquals(responseModel.getStatus() , HttpStatus.BAD_REQUEST);
     }
@@ -213,28 +351,52 @@ class BookServiceImplTest {
         //Given
         ArrayList<BookModel> toSave = new ArrayList<>(exampleBooks);
         BookModel invalid = exampleInvalidBook;
-        invalid.setISBN("7008004567");
+        invalid.setISBN("9787008004568");
         toSave.add(invalid);
         //When
         when( repository.getBookModelByISBN(invalid.getISBN()) ).thenReturn( Optional.of(exampleInvalidBook) );
-        ResponseModel response = underTest.addBooks(toSave);
+        ResponseModel<?> response = underTest.addBooks(toSave);
         //Then
         assertEquals(HttpStatus.BAD_REQUEST , response.getStatus());
-        assertEquals("You provided at least two books with same ISBN! ISBN for each book must be unique!" , response.getBody());
+        assertEquals("You provided at least two books with same ISBN! ISBN for each book must be unique!" , response.getMessage());
     }
 
     @Test
     public void tryAddBooksWithISBNThatExistInDatabase(){
         //Given
-        final String isbn = "7008004567";
+        final String isbn = "9787008004568";
         List<BookModel> toSave = exampleBooks;
         //When
-        when( repository.getBookModelByISBN( anyString() )).thenReturn( Optional.empty() );
-        when( repository.getBookModelByISBN( eq(isbn) )).thenReturn(Optional.of(exampleBooks.get(1)));
-        ResponseModel response = underTest.addBooks(toSave);
+        when( repository.findExistingIsbns( anyCollection() )).thenReturn( List.of(isbn) );
+        ResponseModel<?> response = underTest.addBooks(toSave);
         //Then
         assertEquals(HttpStatus.BAD_REQUEST , response.getStatus() );
-        assertEquals("Adding stopped, because book in 1 index exist in database!",response.getBody());
+        assertEquals("Adding stopped, because book in 1 index exist in database!",response.getMessage());
+        verify(repository, never()).saveAll(any());
+    }
+
+    @Test
+    public void addBooksReportsEveryInvalidIndex(){
+        //Given
+        ArrayList<BookModel> toSave = new ArrayList<>(exampleBooks);
+        toSave.get(0).setISBN("123");
+        //When
+        when( repository.findExistingIsbns( anyCollection() )).thenReturn( List.of("9789009008507") );
+        ResponseModel<?> response = underTest.addBooks(toSave);
+        //Then
+        assertEquals(HttpStatus.BAD_REQUEST , response.getStatus() );
+        assertEquals("Adding stopped, because books in 0, 2 indexes are invalid or exist in database!",response.getMessage());
+    }
+
+    @Test
+    public void addBooksChecksExistenceWithOneQueryPerChunk(){
+        //Given
+        List<BookModel> toSave = exampleBooks;
+        //When
+        underTest.addBooks(toSave);
+        //Then
+        verify(repository, times(1)).findExistingIsbns(anyCollection());
+        verify(repository, never()).getBookModelByISBN(anyString());
     }
 
     @Test
@@ -252,8 +414,8 @@ class BookServiceImplTest {
                                         }).toList())
                 );
 
-        ResponseModel response = underTest.getBooks(author);
-        Optional<List<BookModel>> optionalResponse = Optional.of( (List<BookModel>) response.getBody() )  ;
+        ResponseModel<List<BookModel>> response = underTest.getBooks(author);
+        Optional<List<BookModel>> optionalResponse = Optional.of( response.getBody() )  ;
         //Then
         assertEquals(HttpStatus.OK,response.getStatus());
         assertEquals(2 , optionalResponse.get().size());
@@ -266,10 +428,10 @@ class BookServiceImplTest {
         exampleSingleBook.setInStorage(55);
         //When
         when( repository.getBookModelByISBN(isbn) ).thenReturn(Optional.empty());
-        ResponseModel response = underTest.updateBook(exampleSingleBook,isbn);
+        ResponseModel<?> response = underTest.updateBook(exampleSingleBook,isbn);
         //Then
         assertEquals( HttpStatus.BAD_REQUEST , response.getStatus() );
-        assertEquals( String.format("Book with ISBN: %s does not exist!",isbn) , response.getBody() );
+        assertEquals( String.format("Book with ISBN: %s does not exist!",isbn) , response.getMessage() );
     }
 
     @Test
@@ -278,10 +440,10 @@ class BookServiceImplTest {
         final String isbn = null;
         exampleSingleBook.setInStorage(55);
         //When
-        ResponseModel response = underTest.updateBook(exampleSingleBook,isbn);
+        ResponseModel<?> response = underTest.updateBook(exampleSingleBook,isbn);
         //Then
         assertEquals( HttpStatus.BAD_REQUEST , response.getStatus() );
-        assertEquals( String.format("ISBN: %s is not valid!",isbn) , response.getBody() );
+        assertEquals( String.format("ISBN: %s is not valid!",isbn) , response.getMessage() );
     }
 
     @Test
@@ -293,12 +455,12 @@ class BookServiceImplTest {
         newBook.setBookTitle("The Hobbit - Part One");
         //When
         when(repository.getBookModelByISBN(isbn)).thenReturn( Optional.of(exampleSingleBook) );
-        ResponseModel response = underTest.updateBook(newBook,isbn);
+        ResponseModel<?> response = underTest.updateBook(newBook,isbn);
         //Then
         assertAll(
                 "Response properties test",
                 () -> assertEquals(HttpStatus.OK , response.getStatus()),
-                () -> assertEquals("Book successfully updated!", response.getBody())
+                () -> assertEquals("Book successfully updated!", response.getMessage())
         );
         verify(repository).save(newBook);
     }
@@ -310,10 +472,10 @@ class BookServiceImplTest {
         exampleSingleBook.setInStorage(55);
         //When
         when( repository.findById(id)).thenReturn(Optional.empty());
-        ResponseModel response = underTest.updateBook(exampleSingleBook,id);
+        ResponseModel<?> response = underTest.updateBook(exampleSingleBook,id);
         //Then
         assertEquals( HttpStatus.BAD_REQUEST , response.getStatus() );
-        assertEquals( String.format("Book with id: %s does not exist!",id) , response.getBody() );
+        assertEquals( String.format("Book with id: %s does not exist!",id) , response.getMessage() );
     }
 
     @Test
@@ -322,10 +484,10 @@ class BookServiceImplTest {
         final Integer id = null;
         exampleSingleBook.setInStorage(55);
         //When
-        ResponseModel response = underTest.updateBook(exampleSingleBook, id);
+        ResponseModel<?> response = underTest.updateBook(exampleSingleBook, id);
         //Then
         assertEquals( HttpStatus.BAD_REQUEST , response.getStatus() );
-        assertEquals( "ID cannot be null!" , response.getBody() );
+        assertEquals( "ID cannot be null!" , response.getMessage() );
     }
 
     @Test
@@ -337,12 +499,12 @@ class BookServiceImplTest {
         newBook.setBookTitle("The Hobbit - Part One");
         //When
         when(repository.findById(id)).thenReturn( Optional.of(exampleSingleBook) );
-        ResponseModel response = underTest.updateBook(newBook, id);
+        ResponseModel<?> response = underTest.updateBook(newBook, id);
         //Then
         assertAll(
                 "Response properties test",
                 () -> assertEquals(HttpStatus.OK , response.getStatus()),
-                () -> assertEquals("Book successfully updated!", response.getBody())
+                () -> assertEquals("Book successfully updated!", response.getMessage())
         );
         verify(repository).save(newBook);
     }
@@ -351,8 +513,10 @@ class BookServiceImplTest {
     public void isbnValidationTest(){
         //Given
         final String validTenDigitIsbn = "5006009004";
-        final String validThirteenDigitIsbn = "6004002006005";
+        final String validThirteenDigitIsbn = "9786004002004";
+        final String validHyphenatedIsbn = "978-0-7475-3269-9";
         final String invalidIsbn = "56043";
+        final String wrongChecksumIsbn = "9786004002005";
         final String emptyString = "";
         final String nullIsbn = null;
         //Then
@@ -360,6 +524,8 @@ class BookServiceImplTest {
                 "Isbn validation",
                 () -> { assertTrue(underTest.isISBNValid(validTenDigitIsbn), "tenDigitIsbn"); },
                 () -> { assertTrue( underTest.isISBNValid(validThirteenDigitIsbn) , "thirteenDigitIsbn" );},
+                () -> { assertTrue( underTest.isISBNValid(validHyphenatedIsbn) , "hyphenatedIsbn" );},
+                () -> { assertFalse( underTest.isISBNValid(wrongChecksumIsbn) , "wrongChecksumIsbn" );},
                 () -> { assertFalse( underTest.isISBNValid(invalidIsbn), "invalidIsbn" ); },
                 () -> { assertFalse( underTest.isISBNValid(emptyString), "emptyIsbn"); },
                 () -> { assertFalse( underTest.isISBNValid(nullIsbn), "nullIsbn" ); }
@@ -369,8 +535,8 @@ class BookServiceImplTest {
     @Test
     public void isbnExistingInDbTest(){
         //Given
-        String existingIsbn = "5006007045";
-        String nonExistingIsbn = "6006004005";
+        String existingIsbn = "9785006007048";
+        String nonExistingIsbn = "9786006004006";
         //When
         when(repository.getBookModelByISBN(existingIsbn)).thenReturn(Optional.of(new BookModel()));
         when(repository.getBookModelByISBN(nonExistingIsbn)).thenReturn(Optional.empty());
@@ -401,4 +567,115 @@ class BookServiceImplTest {
 
     }
 
-}
\ No newline at end of file
+    @Test
+    public void reserveUsesConditionalUpdate(){
+        //Given
+        String isbn = exampleSingleBook.getISBN();
+        //When
+        when(repository.reserve(isbn, 2)).thenReturn(1);
+        when(repository.getBookModelByISBN(isbn)).thenReturn(Optional.of(exampleSingleBook));
+        ResponseModel<?> response = underTest.reserveBook(isbn, 2);
+        //Then
+        assertEquals(HttpStatus.OK, response.getStatus());
+        verify(repository).reserve(isbn, 2);
+        verify(repository, never()).save(any());
+    }
+
+    @Test
+    public void reserveWithoutStockIsConflict(){
+        //Given
+        String isbn = exampleSingleBook.getISBN();
+        //When
+        when(repository.reserve(isbn, 1)).thenReturn(0);
+        when(repository.getBookModelByISBN(isbn)).thenReturn(Optional.of(exampleSingleBook));
+        ResponseModel<?> response = underTest.reserveBook(isbn, null);
+        //Then
+        assertEquals(HttpStatus.CONFLICT, response.getStatus());
+    }
+
+    @Test
+    public void reserveOfMissingBookIsBadRequest(){
+        //When
+        when(repository.reserve(anyString(), anyInt())).thenReturn(0);
+        when(repository.getBookModelByISBN(anyString())).thenReturn(Optional.empty());
+        ResponseModel<?> missing = underTest.reserveBook(exampleSingleBook.getISBN(), 1);
+        ResponseModel<?> invalidQuantity = underTest.releaseBook(exampleSingleBook.getISBN(), 0);
+        //Then
+        assertEquals(HttpStatus.BAD_REQUEST, missing.getStatus());
+        assertEquals(HttpStatus.BAD_REQUEST, invalidQuantity.getStatus());
+        verify(repository, never()).release(anyString(), anyInt());
+    }
+
+    @Test
+    public void bulkUpdateLoadsBooksWithOneQuery(){
+        //Given
+        BookModel stock = new BookModel();
+        stock.setISBN("978-9099099096");
+        stock.setInStorage(3);
+        BookModel missing = new BookModel();
+        missing.setISBN("9785006001206");
+        BookModel invalid = new BookModel();
+        invalid.setISBN("123");
+        //When
+        when(repository.findAllByISBNIn(anyCollection())).thenReturn(List.of(exampleSingleBook));
+        ResponseModel<List<BookUpdateResultModel>> response = underTest.updateBooks(List.of(stock, missing, invalid));
+        //Then
+        assertEquals(HttpStatus.OK, response.getStatus());
+        List<BookUpdateResultModel> results = response.getBody();
+        assertEquals(List.of(200, 400, 400), results.stream().map(BookUpdateResultModel::status).toList());
+        assertEquals("Book with ISBN: 9785006001206 does not exist!", results.get(1).message());
+        assertEquals(3, exampleSingleBook.getInStorage());
+        assertEquals("The Hobbit, Part One", exampleSingleBook.getBookTitle());
+        verify(repository, times(1)).findAllByISBNIn(anyCollection());
+        verify(repository, never()).getBookModelByISBN(anyString());
+    }
+
+    @Test
+    public void emptyBulkUpdateIsBadRequest(){
+        //When
+        ResponseModel<?> response = underTest.updateBooks(List.of());
+        //Then
+        assertEquals(HttpStatus.BAD_REQUEST, response.getStatus());
+    }
+
+    @Test
+    public void updateBookMakesOneLookupAndOneSave(){
+        //Given
+        String isbn = exampleSingleBook.getISBN();
+        BookModel update = new BookModel();
+        update.setInStorage(3);
+        //When
+        when(repository.getBookModelByISBN(isbn)).thenReturn(Optional.of(exampleSingleBook));
+        underTest.updateBook(update, isbn);
+        //Then
+        verify(repository, times(1)).getBookModelByISBN(isbn);
+        verify(repository, times(1)).save(exampleSingleBook);
+        verifyNoMoreInteractions(repository);
+    }
+
+    @Test
+    public void addBooksMakesOneCheckAndOneSavePerChunk(){
+        //When
+        underTest.addBooks(exampleBooks);
+        //Then
+        verify(repository, times(1)).findExistingIsbns(anyCollection());
+        verify(repository, times(1)).saveAll(exampleBooks);
+        verifyNoMoreInteractions(repository);
+    }
+
+    @Test
+    public void bulkUpdateMakesOneLoadAndOneSavePerChunk(){
+        //Given
+        BookModel update = new BookModel();
+        update.setISBN(exampleSingleBook.getISBN());
+        update.setInStorage(3);
+        //When
+        when(repository.findAllByISBNIn(anyCollection())).thenReturn(List.of(exampleSingleBook));
+        underTest.updateBooks(List.of(update));
+        //Then
+        verify(repository, times(1)).findAllByISBNIn(anyCollection());
+        verify(repository, times(1)).saveAll(any());
+        verifyNoMoreInteractions(repository);
+    }
+
+}
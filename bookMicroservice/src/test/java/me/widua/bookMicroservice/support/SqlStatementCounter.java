@@ -0,0 +1,61 @@
+package me.widua.bookMicroservice.support;
+
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.resource.jdbc.spi.StatementInspector;
+import org.hibernate.stat.Statistics;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/*
+ * Counts the JDBC statements Hibernate prepares, read from its statistics (hibernate.generate_statistics is on in
+ * the test profile). A statement reused for a JDBC batch counts once, so the count is the number of round trips.
+ * Sequence calls are left out, a pooled generator fetches one block of ids per 50 rows, so whether a call falls into
+ * the counted action depends on what ran before it.
+ * Statistics are global to the session factory, tests using it must not run in parallel.
+ */
+public class SqlStatementCounter {
+
+    public interface Action {
+        void run() throws Exception;
+    }
+
+    // Registered as hibernate.session_factory.statement_inspector in the test profile
+    public static class SequenceCalls implements StatementInspector {
+        private static final AtomicLong calls = new AtomicLong();
+
+        @Override
+        public String inspect(String sql){
+            // nextval('...') of the PostgreSQL dialect, next value for ... of the standard one
+            if (sql.contains("nextval(") || sql.contains("next value for")){
+                calls.incrementAndGet();
+            }
+            return sql;
+        }
+    }
+
+    private final Statistics statistics;
+    private long sequenceCallsAtReset;
+
+    public SqlStatementCounter(EntityManagerFactory entityManagerFactory){
+        this.statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+    }
+
+    public void reset(){
+        statistics.clear();
+        sequenceCallsAtReset = SequenceCalls.calls.get();
+    }
+
+    public long count(){
+        return statistics.getPrepareStatementCount() - (SequenceCalls.calls.get() - sequenceCallsAtReset);
+    }
+
+    public void assertStatements(long expected, Action action) throws Exception {
+        reset();
+        action.run();
+        assertEquals(expected, count(), "Number of SQL statements");
+    }
+
+}
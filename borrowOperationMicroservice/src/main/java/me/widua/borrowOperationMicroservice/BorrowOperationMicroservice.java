@@ -3,8 +3,10 @@ package me.widua.borrowOperationMicroservice;
 
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
+import org.springframework.scheduling.annotation.EnableScheduling;
 
 @SpringBootApplication
+@EnableScheduling
 public class BorrowOperationMicroservice {
     public static void main(String[] args) {
         SpringApplication.run(BorrowOperationMicroservice.class,args);
@@ -0,0 +1,49 @@
+package me.widua.borrowOperationMicroservice.api;
+
+import me.widua.borrowOperationMicroservice.models.HoldRequestModel;
+import me.widua.borrowOperationMicroservice.service.HoldServiceImpl;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.util.UUID;
+
+import static me.widua.borrowOperationMicroservice.api.LoanApi.toResponseEntity;
+
+@RestController
+@RequestMapping("/api/")
+public class HoldApi {
+
+    private final HoldServiceImpl manager ;
+
+    @Autowired
+    public HoldApi(HoldServiceImpl manager){
+        this.manager = manager;
+    }
+
+    @PostMapping("/holds")
+    public ResponseEntity<?> placeHold(@RequestBody HoldRequestModel request){
+        return toResponseEntity(manager.placeHold(request.isbn(), request.customerId()));
+    }
+
+    @PostMapping("/holds/{holdId}/cancel")
+    public ResponseEntity<?> cancelHold(@PathVariable UUID holdId){
+        return toResponseEntity(manager.cancelHold(holdId));
+    }
+
+    @GetMapping("/holds/{holdId}")
+    public ResponseEntity<?> getHold(@PathVariable UUID holdId){
+        return toResponseEntity(manager.getHold(holdId));
+    }
+
+    @GetMapping("/holds/books/{isbn}")
+    public ResponseEntity<?> getHoldsOfBook(@PathVariable String isbn){
+        return toResponseEntity(manager.getHoldsOfBook(isbn));
+    }
+
+}
@@ -0,0 +1,64 @@
+package me.widua.borrowOperationMicroservice.api;
+
+import me.widua.borrowOperationMicroservice.models.BorrowRequestModel;
+import me.widua.borrowOperationMicroservice.models.ResponseModel;
+import me.widua.borrowOperationMicroservice.service.LoanServiceImpl;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.util.UUID;
+
+@RestController
+@RequestMapping("/api/")
+public class LoanApi {
+
+    private final LoanServiceImpl manager ;
+
+    @Autowired
+    public LoanApi(LoanServiceImpl manager){
+        this.manager = manager;
+    }
+
+    @PostMapping("/loans")
+    public ResponseEntity<?> borrowBook(@RequestBody BorrowRequestModel request){
+        return toResponseEntity(manager.borrowBook(request.isbn(), request.customerId()));
+    }
+
+    @PostMapping("/loans/{loanId}/return")
+    public ResponseEntity<?> returnBook(@PathVariable UUID loanId){
+        return toResponseEntity(manager.returnBook(loanId));
+    }
+
+    @GetMapping("/loans/customers/{customerId}")
+    public ResponseEntity<?> getLoansOfCustomer(@PathVariable Integer customerId){
+        return toResponseEntity(manager.getLoansOfCustomer(customerId));
+    }
+
+    @GetMapping("/loans/books/{isbn}")
+    public ResponseEntity<?> getLoansOfBook(@PathVariable String isbn){
+        return toResponseEntity(manager.getLoansOfBook(isbn));
+    }
+
+    static ResponseEntity<?> toResponseEntity(ResponseModel<?> response){
+        // A response without a body answers with its message
+        Object body = response.getBody() != null ? response.getBody() : response.getMessage();
+        if (response.getStatus().equals(HttpStatus.OK)){
+            return ResponseEntity.ok(body);
+        }
+        if (response.getStatus().equals(HttpStatus.CREATED)
+                || response.getStatus().equals(HttpStatus.BAD_REQUEST)
+                || response.getStatus().equals(HttpStatus.CONFLICT)
+                || response.getStatus().equals(HttpStatus.SERVICE_UNAVAILABLE)){
+            return ResponseEntity.status(response.getStatus()).body(body);
+        }
+        return ResponseEntity.notFound().build();
+    }
+
+}
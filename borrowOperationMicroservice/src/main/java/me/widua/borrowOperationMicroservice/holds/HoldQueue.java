@@ -0,0 +1,181 @@
+package me.widua.borrowOperationMicroservice.holds;
+
+import me.widua.borrowOperationMicroservice.models.HoldModel;
+import me.widua.borrowOperationMicroservice.models.types.HoldStatus;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+/*
+ * The holds of one ISBN: waiting holds in a doubly linked FIFO, holds with a copy set aside in a map. A waiting hold
+ * keeps its rank in the queue and the queue counts the holds that left from its head, so a position is one
+ * subtraction and serving the head never touches the other holds. Only a hold leaving from the middle shifts the
+ * ranks behind it.
+ *
+ * Not thread safe, HoldServiceImpl changes and reads a queue only holding its monitor.
+ */
+public final class HoldQueue {
+    private final Map<Integer, Hold> byCustomer = new HashMap<>();
+    private final Map<UUID, Hold> ready = new LinkedHashMap<>();
+    private Hold head ;
+    private Hold tail ;
+    private int waiting ;
+    // Rank of the head, grows by one for every hold served or cancelled from the head
+    private long headRank ;
+
+    public Hold find(Integer customerId){
+        return byCustomer.get(customerId);
+    }
+
+    public void append(Hold hold){
+        hold.status = HoldStatus.WAITING;
+        hold.rank = headRank + waiting;
+        hold.prev = tail;
+        if (tail != null){
+            tail.next = hold;
+        } else {
+            head = hold;
+        }
+        tail = hold;
+        waiting++;
+        byCustomer.put(hold.customerId, hold);
+    }
+
+    // First waiting hold no write is pending for, or null
+    public Hold nextWaiting(){
+        Hold hold = head;
+        while (hold != null && hold.pending){
+            hold = hold.next;
+        }
+        return hold;
+    }
+
+    public void markReady(Hold hold, Instant readyUntil){
+        unlink(hold);
+        hold.status = HoldStatus.READY;
+        hold.readyUntil = readyUntil;
+        ready.put(hold.holdId, hold);
+    }
+
+    /*
+     * Puts a hold that couldn't be made ready back in front of the queue.
+     */
+    public void unready(Hold hold){
+        ready.remove(hold.holdId);
+        hold.status = HoldStatus.WAITING;
+        hold.readyUntil = null;
+        hold.rank = --headRank;
+        hold.next = head;
+        if (head != null){
+            head.prev = hold;
+        } else {
+            tail = hold;
+        }
+        head = hold;
+        waiting++;
+    }
+
+    public void remove(Hold hold){
+        if (hold.status == HoldStatus.WAITING){
+            unlink(hold);
+        } else {
+            ready.remove(hold.holdId);
+        }
+        byCustomer.remove(hold.customerId, hold);
+    }
+
+    public List<Hold> expired(Instant now){
+        return ready.values().stream().filter(hold -> !hold.pending && !hold.readyUntil.isAfter(now)).toList();
+    }
+
+    public int waiting(){
+        return waiting;
+    }
+
+    public List<HoldModel> snapshot(){
+        List<HoldModel> holds = new ArrayList<>(waiting + ready.size());
+        ready.values().forEach(hold -> holds.add(toModel(hold)));
+        for (Hold hold = head; hold != null; hold = hold.next){
+            holds.add(toModel(hold));
+        }
+        return holds;
+    }
+
+    public HoldModel toModel(Hold hold){
+        Integer position = hold.status == HoldStatus.WAITING ? (int) (hold.rank - headRank) + 1 : null;
+        return new HoldModel(hold.holdId, hold.isbn, hold.customerId, hold.placedAt, hold.status, position, hold.readyUntil);
+    }
+
+    private void unlink(Hold hold){
+        if (hold == head){
+            headRank++;
+        } else {
+            for (Hold behind = hold.next; behind != null; behind = behind.next){
+                behind.rank--;
+            }
+        }
+        if (hold.prev != null){
+            hold.prev.next = hold.next;
+        } else {
+            head = hold.next;
+        }
+        if (hold.next != null){
+            hold.next.prev = hold.prev;
+        } else {
+            tail = hold.prev;
+        }
+        hold.prev = hold.next = null;
+        waiting--;
+    }
+
+    public static final class Hold {
+        private final UUID holdId ;
+        private final String isbn ;
+        private final Integer customerId ;
+        private final Instant placedAt ;
+        private HoldStatus status = HoldStatus.WAITING;
+        private Instant readyUntil ;
+        private long rank ;
+        private Hold prev ;
+        private Hold next ;
+        // A write taking the hold out of the queue hasn't committed yet
+        private boolean pending ;
+
+        public Hold(UUID holdId, String isbn, Integer customerId, Instant placedAt){
+            this.holdId = holdId;
+            this.isbn = isbn;
+            this.customerId = customerId;
+            this.placedAt = placedAt;
+        }
+
+        public UUID holdId(){
+            return holdId;
+        }
+
+        public String isbn(){
+            return isbn;
+        }
+
+        public Integer customerId(){
+            return customerId;
+        }
+
+        public HoldStatus status(){
+            return status;
+        }
+
+        public boolean pending(){
+            return pending;
+        }
+
+        public void pending(boolean pending){
+            this.pending = pending;
+        }
+    }
+
+}
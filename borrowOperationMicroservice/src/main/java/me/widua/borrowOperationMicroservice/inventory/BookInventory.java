@@ -0,0 +1,17 @@
+package me.widua.borrowOperationMicroservice.inventory;
+
+/*
+ * Stock of the book service. A borrowed copy is taken out of stock before the loan is recorded and put back after
+ * its return is.
+ */
+public interface BookInventory {
+
+    // False when no copy is left or the book doesn't exist
+    boolean reserve(String isbn);
+
+    void release(String isbn);
+
+    // Whether the book service knows the book, whatever its stock
+    boolean exists(String isbn);
+
+}
@@ -0,0 +1,44 @@
+package me.widua.borrowOperationMicroservice.inventory;
+
+import me.widua.bookClient.Book;
+import me.widua.bookClient.BookClient;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import java.util.Optional;
+
+/*
+ * Reserves and releases copies through the book service's /api/books/isbn/{isbn}/reserve and /release, which change
+ * the stock with one conditional UPDATE each. A book that is unknown or out of stock in BookClient's short lived
+ * cache is refused without calling the service, so a burst of borrows on a sold out book costs one lookup.
+ */
+@Component
+public class BookServiceInventory implements BookInventory {
+    private final BookClient books ;
+
+    @Autowired
+    public BookServiceInventory(BookClient books){
+        this.books = books;
+    }
+
+    @Override
+    public boolean reserve(String isbn){
+        Optional<Book> book = books.getBook(isbn);
+        if (book.isEmpty() || book.get().inStorage() == null || book.get().inStorage() <= 0){
+            return false;
+        }
+        return books.reserve(isbn);
+    }
+
+    @Override
+    public void release(String isbn){
+        books.release(isbn);
+    }
+
+    // Through BookClient's cache, like reserve
+    @Override
+    public boolean exists(String isbn){
+        return books.getBook(isbn).isPresent();
+    }
+
+}
@@ -0,0 +1,112 @@
+package me.widua.borrowOperationMicroservice.ledger;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import me.widua.borrowOperationMicroservice.models.LoanEventModel;
+import me.widua.borrowOperationMicroservice.repositories.LoanEventRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+/*
+ * Group commit for the loan ledger. Callers queue their event and wait for the future, a single writer thread takes
+ * everything queued so far (up to borrow.ledger.batch-size) and inserts it in one transaction with JDBC batching.
+ * There is no artificial delay: while one batch commits the next one fills up, so the batch size follows the load.
+ * Events are written in the order they were queued.
+ */
+@Component
+public class LedgerWriter {
+    private final LoanEventRepository repository ;
+    private final TransactionTemplate transactions ;
+    private final BlockingQueue<PendingEvent> queue ;
+    private final int batchSize ;
+    private final Thread writer = new Thread(this::run, "loan-ledger-writer");
+    private volatile boolean running = true;
+
+    @Autowired
+    public LedgerWriter(LoanEventRepository repository,
+                        PlatformTransactionManager transactionManager,
+                        @Value("${borrow.ledger.batch-size:500}") int batchSize,
+                        @Value("${borrow.ledger.queue-capacity:10000}") int queueCapacity){
+        this.repository = repository;
+        this.transactions = new TransactionTemplate(transactionManager);
+        this.batchSize = batchSize;
+        this.queue = new ArrayBlockingQueue<>(queueCapacity);
+    }
+
+    @PostConstruct
+    public void start(){
+        writer.setDaemon(true);
+        writer.start();
+    }
+
+    /*
+     * Completes once the event is committed. Blocks while the queue is full, which slows callers down to what the
+     * database takes instead of piling up events in memory.
+     */
+    public CompletableFuture<Void> append(LoanEventModel event){
+        if (!running){
+            return CompletableFuture.failedFuture(new IllegalStateException("Loan ledger is shut down!"));
+        }
+        PendingEvent pending = new PendingEvent(event, new CompletableFuture<>());
+        try {
+            queue.put(pending);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return CompletableFuture.failedFuture(e);
+        }
+        return pending.committed();
+    }
+
+    private void run(){
+        List<PendingEvent> batch = new ArrayList<>(batchSize);
+        while (running || !queue.isEmpty()){
+            try {
+                PendingEvent first = queue.poll(100, TimeUnit.MILLISECONDS);
+                if (first == null){
+                    continue;
+                }
+                batch.add(first);
+                queue.drainTo(batch, batchSize - 1);
+                write(batch);
+            } catch (InterruptedException e) {
+                running = false;
+            } finally {
+                batch.clear();
+            }
+        }
+    }
+
+    private void write(List<PendingEvent> batch){
+        try {
+            List<LoanEventModel> events = batch.stream().map(PendingEvent::event).toList();
+            transactions.executeWithoutResult(status -> repository.saveAll(events));
+            batch.forEach(pending -> pending.committed().complete(null));
+        } catch (RuntimeException e) {
+            batch.forEach(pending -> pending.committed().completeExceptionally(e));
+        }
+    }
+
+    // Writes what is queued before the database goes away
+    @PreDestroy
+    public void stop() throws InterruptedException {
+        running = false;
+        writer.join(TimeUnit.SECONDS.toMillis(30));
+        List<PendingEvent> late = new ArrayList<>();
+        queue.drainTo(late);
+        late.forEach(pending -> pending.committed().completeExceptionally(new IllegalStateException("Loan ledger is shut down!")));
+    }
+
+    private record PendingEvent(LoanEventModel event, CompletableFuture<Void> committed) {
+    }
+
+}
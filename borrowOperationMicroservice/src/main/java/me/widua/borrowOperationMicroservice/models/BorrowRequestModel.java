@@ -0,0 +1,4 @@
+package me.widua.borrowOperationMicroservice.models;
+
+public record BorrowRequestModel(String isbn, Integer customerId) {
+}
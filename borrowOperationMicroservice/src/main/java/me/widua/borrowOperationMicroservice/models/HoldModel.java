@@ -0,0 +1,14 @@
+package me.widua.borrowOperationMicroservice.models;
+
+import me.widua.borrowOperationMicroservice.models.types.HoldStatus;
+
+import java.time.Instant;
+import java.util.UUID;
+
+/*
+ * An open hold as returned by /api/holds. position counts from 1 while WAITING, readyUntil ends the pickup period
+ * once READY.
+ */
+public record HoldModel(UUID holdId, String isbn, Integer customerId, Instant placedAt, HoldStatus status,
+                        Integer position, Instant readyUntil) {
+}
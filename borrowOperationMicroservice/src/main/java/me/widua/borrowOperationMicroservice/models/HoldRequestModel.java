@@ -0,0 +1,4 @@
+package me.widua.borrowOperationMicroservice.models;
+
+public record HoldRequestModel(String isbn, Integer customerId) {
+}
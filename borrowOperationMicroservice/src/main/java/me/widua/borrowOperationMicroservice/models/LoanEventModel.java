@@ -0,0 +1,59 @@
+package me.widua.borrowOperationMicroservice.models;
+
+import jakarta.persistence.*;
+import lombok.Getter;
+import lombok.Setter;
+import me.widua.borrowOperationMicroservice.models.types.LoanEventType;
+
+import java.time.Instant;
+import java.util.UUID;
+
+/*
+ * One row of the append-only loan ledger, rows are inserted and never updated. A loan is active while its BORROWED
+ * row has no RETURNED row with the same loanId. Holds are kept the same way, loanId holding the hold's id: a hold is
+ * open from HOLD_PLACED until HOLD_CANCELLED, HOLD_EXPIRED or HOLD_COLLECTED, and dueAt of its HOLD_READY row is the
+ * end of the pickup period.
+ */
+@Entity
+@Getter
+@Setter
+@Table(
+        indexes = {
+                @Index(columnList = "loanId")
+        }
+)
+public class LoanEventModel {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "loan_event_seq")
+    @SequenceGenerator(name = "loan_event_seq", sequenceName = "loan_event_seq", allocationSize = 50)
+    private Long id;
+    @Enumerated(EnumType.STRING)
+    private LoanEventType type;
+    private UUID loanId;
+    private String isbn;
+    private Integer customerId;
+    private Instant occurredAt;
+    private Instant dueAt;
+
+    public LoanEventModel(LoanEventType type, LoanModel loan, Instant occurredAt) {
+        this(type, loan.loanId(), loan.isbn(), loan.customerId(), occurredAt, loan.dueAt());
+    }
+
+    public LoanEventModel(LoanEventType type, UUID loanId, String isbn, Integer customerId, Instant occurredAt, Instant dueAt) {
+        this.type = type;
+        this.loanId = loanId;
+        this.isbn = isbn;
+        this.customerId = customerId;
+        this.occurredAt = occurredAt;
+        this.dueAt = dueAt;
+    }
+
+    public LoanEventModel() {
+    }
+
+    public LoanModel toLoan(){
+        return new LoanModel(loanId, isbn, customerId, occurredAt, dueAt);
+    }
+
+}
@@ -0,0 +1,10 @@
+package me.widua.borrowOperationMicroservice.models;
+
+import java.time.Instant;
+import java.util.UUID;
+
+/*
+ * An active loan, as kept in memory and returned by /api/loans.
+ */
+public record LoanModel(UUID loanId, String isbn, Integer customerId, Instant borrowedAt, Instant dueAt) {
+}
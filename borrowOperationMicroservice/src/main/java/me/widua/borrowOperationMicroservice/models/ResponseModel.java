@@ -0,0 +1,32 @@
+package me.widua.borrowOperationMicroservice.models;
+
+import lombok.Builder;
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.http.HttpStatus;
+
+/*
+ * Result of a service call. The body has the type the endpoint returns, refusals carry only a message.
+ */
+@Builder
+@Getter
+@Setter
+public class ResponseModel<T> {
+
+    private HttpStatus status ;
+    private T body ;
+    private String message ;
+
+    public static <T> ResponseModel<T> of(HttpStatus status, T body){
+        return ResponseModel.<T>builder().status(status).body(body).build();
+    }
+
+    public static <T> ResponseModel<T> ok(T body){
+        return of(HttpStatus.OK, body);
+    }
+
+    public static <T> ResponseModel<T> message(HttpStatus status, String message){
+        return ResponseModel.<T>builder().status(status).message(message).build();
+    }
+
+}
@@ -0,0 +1,5 @@
+package me.widua.borrowOperationMicroservice.models.types;
+
+public enum LoanDeadlineType {
+    REMINDER, OVERDUE
+}
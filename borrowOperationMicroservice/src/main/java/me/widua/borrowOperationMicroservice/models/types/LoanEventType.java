@@ -0,0 +1,11 @@
+package me.widua.borrowOperationMicroservice.models.types;
+
+public enum LoanEventType {
+    BORROWED,
+    RETURNED,
+    HOLD_PLACED,
+    HOLD_READY,
+    HOLD_CANCELLED,
+    HOLD_EXPIRED,
+    HOLD_COLLECTED
+}
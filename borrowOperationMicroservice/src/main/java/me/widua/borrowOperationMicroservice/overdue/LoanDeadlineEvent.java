@@ -0,0 +1,13 @@
+package me.widua.borrowOperationMicroservice.overdue;
+
+import me.widua.borrowOperationMicroservice.models.LoanModel;
+import me.widua.borrowOperationMicroservice.models.types.LoanDeadlineType;
+
+import java.util.List;
+
+/*
+ * Loans that reached a deadline in the same tick, at most borrow.overdue.batch-size of them. Published after the
+ * scheduler's lock is released, listeners run on the scheduling thread.
+ */
+public record LoanDeadlineEvent(LoanDeadlineType type, List<LoanModel> loans) {
+}
@@ -0,0 +1,141 @@
+package me.widua.borrowOperationMicroservice.overdue;
+
+import lombok.extern.slf4j.Slf4j;
+import me.widua.borrowOperationMicroservice.models.LoanModel;
+import me.widua.borrowOperationMicroservice.models.types.LoanDeadlineType;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+/*
+ * Due dates of the active loans, in two timing wheels: one firing borrow.overdue.reminder-before ahead of the due
+ * date, one at it. A borrow schedules both and a return cancels them, each O(1), and every borrow.overdue.tick the
+ * wheels advance and the loans that reached a deadline are published as LoanDeadlineEvents of up to
+ * borrow.overdue.batch-size loans. Nothing is read from the database for that. A loan returned while its deadline
+ * fires can still show up in an event, listeners check before acting on it.
+ *
+ * Deadlines aren't persisted, LoanServiceImpl restores them from the active loans at startup. Deadlines that passed
+ * longer than borrow.overdue.catch-up before are skipped then, they fired before the restart.
+ */
+@Slf4j
+@Component
+public class OverdueScheduler {
+    private final ApplicationEventPublisher publisher ;
+    private final Clock clock ;
+    private final long tickMillis ;
+    private final Duration reminderBefore ;
+    private final Duration catchUp ;
+    private final int batchSize ;
+    private final Map<UUID, LoanTimers> timers = new HashMap<>();
+    private TimingWheel<LoanModel> reminders ;
+    private TimingWheel<LoanModel> overdue ;
+
+    @Autowired
+    public OverdueScheduler(ApplicationEventPublisher publisher,
+                            @Value("${borrow.overdue.tick:PT1M}") Duration tick,
+                            @Value("${borrow.overdue.reminder-before:P2D}") Duration reminderBefore,
+                            @Value("${borrow.overdue.catch-up:PT24H}") Duration catchUp,
+                            @Value("${borrow.overdue.batch-size:1000}") int batchSize){
+        this(publisher, tick, reminderBefore, catchUp, batchSize, Clock.systemUTC());
+    }
+
+    public OverdueScheduler(ApplicationEventPublisher publisher, Duration tick, Duration reminderBefore,
+                            Duration catchUp, int batchSize, Clock clock){
+        this.publisher = publisher;
+        this.clock = clock;
+        this.tickMillis = tick.toMillis();
+        this.reminderBefore = reminderBefore;
+        this.catchUp = catchUp;
+        this.batchSize = batchSize;
+        clear();
+    }
+
+    public synchronized void schedule(LoanModel loan){
+        cancel(loan.loanId());
+        add(loan, clock.instant());
+    }
+
+    /*
+     * Schedules a loan read back from the ledger, leaving out deadlines that already fired.
+     */
+    public synchronized void restore(LoanModel loan){
+        Instant firedBefore = clock.instant().minus(catchUp);
+        if (loan.dueAt().isAfter(firedBefore)){
+            add(loan, firedBefore);
+        }
+    }
+
+    public synchronized void cancel(UUID loanId){
+        LoanTimers loanTimers = timers.remove(loanId);
+        if (loanTimers != null){
+            if (loanTimers.reminder() != null){
+                reminders.cancel(loanTimers.reminder());
+            }
+            overdue.cancel(loanTimers.overdue());
+        }
+    }
+
+    public synchronized void clear(){
+        timers.clear();
+        reminders = new TimingWheel<>(tickMillis, clock.millis());
+        overdue = new TimingWheel<>(tickMillis, clock.millis());
+    }
+
+    public synchronized int scheduledLoans(){
+        return timers.size();
+    }
+
+    @Scheduled(fixedDelayString = "${borrow.overdue.tick:PT1M}", initialDelayString = "${borrow.overdue.tick:PT1M}")
+    public void tick(){
+        advanceTo(clock.instant());
+    }
+
+    /*
+     * Fires every deadline up to now. Events are published outside the lock, so borrows and returns don't wait
+     * for the listeners.
+     */
+    public void advanceTo(Instant now){
+        List<LoanModel> dueReminders = new ArrayList<>();
+        List<LoanModel> overdueLoans = new ArrayList<>();
+        synchronized (this){
+            reminders.advance(now.toEpochMilli(), dueReminders);
+            overdue.advance(now.toEpochMilli(), overdueLoans);
+            overdueLoans.forEach(loan -> timers.remove(loan.loanId()));
+        }
+        publish(LoanDeadlineType.REMINDER, dueReminders);
+        publish(LoanDeadlineType.OVERDUE, overdueLoans);
+        if (!dueReminders.isEmpty() || !overdueLoans.isEmpty()){
+            log.debug("Fired {} reminders and {} overdue loans", dueReminders.size(), overdueLoans.size());
+        }
+    }
+
+    // A reminder due before notBefore is left out, e.g. when the loan is shorter than the reminder period
+    private void add(LoanModel loan, Instant notBefore){
+        Instant remindAt = loan.dueAt().minus(reminderBefore);
+        TimingWheel.Timer<LoanModel> reminder = remindAt.isAfter(notBefore)
+                ? reminders.schedule(remindAt.toEpochMilli(), loan)
+                : null;
+        timers.put(loan.loanId(), new LoanTimers(reminder, overdue.schedule(loan.dueAt().toEpochMilli(), loan)));
+    }
+
+    private void publish(LoanDeadlineType type, List<LoanModel> loans){
+        for (int from = 0; from < loans.size(); from += batchSize){
+            publisher.publishEvent(new LoanDeadlineEvent(type, List.copyOf(loans.subList(from, Math.min(from + batchSize, loans.size())))));
+        }
+    }
+
+    private record LoanTimers(TimingWheel.Timer<LoanModel> reminder, TimingWheel.Timer<LoanModel> overdue) {
+    }
+
+}
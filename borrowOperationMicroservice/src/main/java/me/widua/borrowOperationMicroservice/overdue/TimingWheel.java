@@ -0,0 +1,159 @@
+package me.widua.borrowOperationMicroservice.overdue;
+
+import java.util.List;
+
+/*
+ * Hierarchical timing wheel: LEVELS wheels of SLOTS slots each, level 0 slots span one tick, level 1 slots SLOTS
+ * ticks and so on, so four levels of 64 cover 64^4 ticks (31 years of one minute ticks). A timer sits in the lowest
+ * level whose range reaches its deadline and moves down a level each time the wheel below completes a turn, until it
+ * fires from level 0. Slots are intrusive doubly linked lists, so scheduling and cancelling are O(1) and a timer
+ * costs one small object. Deadlines past the top level wait in its slots and are placed again every turn.
+ *
+ * Not thread safe, OverdueScheduler guards it.
+ */
+final class TimingWheel<T> {
+    static final int SLOT_BITS = 6;
+    static final int SLOTS = 1 << SLOT_BITS;
+    static final int LEVELS = 4;
+    private static final int SLOT_MASK = SLOTS - 1;
+
+    private final long tickMillis ;
+    private final Timer<T>[][] slots ;
+    // Every tick up to and including this one has fired
+    private long currentTick ;
+    private int size ;
+
+    @SuppressWarnings("unchecked")
+    TimingWheel(long tickMillis, long startMillis){
+        this.tickMillis = tickMillis;
+        this.slots = new Timer[LEVELS][SLOTS];
+        this.currentTick = Math.floorDiv(startMillis, tickMillis);
+    }
+
+    /*
+     * A deadline already due fires on the next advance.
+     */
+    Timer<T> schedule(long deadlineMillis, T payload){
+        Timer<T> timer = new Timer<>(Math.floorDiv(deadlineMillis, tickMillis), payload);
+        place(timer, currentTick + 1);
+        size++;
+        return timer;
+    }
+
+    // False when the timer has already fired or was cancelled
+    boolean cancel(Timer<T> timer){
+        if (timer.level < 0){
+            return false;
+        }
+        unlink(timer);
+        size--;
+        return true;
+    }
+
+    /*
+     * Runs every tick up to nowMillis, adding the payloads of due timers to fired, earlier ticks first.
+     */
+    void advance(long nowMillis, List<T> fired){
+        long target = Math.floorDiv(nowMillis, tickMillis);
+        while (currentTick < target){
+            if (size == 0){
+                currentTick = target;
+                return;
+            }
+            long tick = currentTick + 1;
+            for (int level = LEVELS - 1; level > 0; level--){
+                if ((tick & ((1L << (SLOT_BITS * level)) - 1)) == 0){
+                    cascade(level, slot(tick, level), tick);
+                }
+            }
+            Timer<T> timer = slots[0][slot(tick, 0)];
+            slots[0][slot(tick, 0)] = null;
+            while (timer != null){
+                Timer<T> next = timer.next;
+                timer.prev = timer.next = null;
+                timer.level = -1;
+                if (timer.tick <= tick){
+                    fired.add(timer.payload);
+                    size--;
+                } else {
+                    place(timer, tick + 1);
+                }
+                timer = next;
+            }
+            currentTick = tick;
+        }
+    }
+
+    int size(){
+        return size;
+    }
+
+    private void cascade(int level, int slot, long base){
+        Timer<T> timer = slots[level][slot];
+        slots[level][slot] = null;
+        while (timer != null){
+            Timer<T> next = timer.next;
+            timer.prev = timer.next = null;
+            place(timer, base);
+            timer = next;
+        }
+    }
+
+    /*
+     * base is the first tick still to fire from level 0, levels are picked by the distance to it. Anything already
+     * due goes to base's slot.
+     */
+    private void place(Timer<T> timer, long base){
+        long tick = Math.max(timer.tick, base);
+        long delta = tick - base;
+        int level = 0;
+        while (level < LEVELS - 1 && delta >= 1L << (SLOT_BITS * (level + 1))){
+            level++;
+        }
+        int slot = slot(tick, level);
+        timer.level = level;
+        timer.slot = slot;
+        Timer<T> head = slots[level][slot];
+        timer.next = head;
+        if (head != null){
+            head.prev = timer;
+        }
+        slots[level][slot] = timer;
+    }
+
+    private void unlink(Timer<T> timer){
+        if (timer.prev != null){
+            timer.prev.next = timer.next;
+        } else {
+            slots[timer.level][timer.slot] = timer.next;
+        }
+        if (timer.next != null){
+            timer.next.prev = timer.prev;
+        }
+        timer.prev = timer.next = null;
+        timer.level = -1;
+    }
+
+    private static int slot(long tick, int level){
+        return (int) ((tick >>> (SLOT_BITS * level)) & SLOT_MASK);
+    }
+
+    static final class Timer<T> {
+        private final long tick ;
+        private final T payload ;
+        private Timer<T> prev ;
+        private Timer<T> next ;
+        private int level = -1;
+        private int slot ;
+
+        private Timer(long tick, T payload){
+            this.tick = tick;
+            this.payload = payload;
+        }
+
+        T payload(){
+            return payload;
+        }
+    }
+
+}
@@ -0,0 +1,40 @@
+package me.widua.borrowOperationMicroservice.repositories;
+
+import me.widua.borrowOperationMicroservice.models.LoanEventModel;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.CrudRepository;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+
+@Repository
+public interface LoanEventRepository extends CrudRepository<LoanEventModel, Long> {
+
+    /*
+     * BORROWED rows without a RETURNED row, after the given id. Keyset pages, so loading the active loans at startup
+     * never holds the whole ledger in memory.
+     */
+    @Query("select e from LoanEventModel e " +
+            "where e.type = me.widua.borrowOperationMicroservice.models.types.LoanEventType.BORROWED and e.id > :after " +
+            "and not exists (select r.id from LoanEventModel r " +
+            "where r.loanId = e.loanId and r.type = me.widua.borrowOperationMicroservice.models.types.LoanEventType.RETURNED) " +
+            "order by e.id")
+    List<LoanEventModel> findActiveLoans(@Param("after") Long after, Pageable pageable);
+
+    /*
+     * HOLD_PLACED and HOLD_READY rows of holds that are still open, after the given id. In id order every hold's
+     * HOLD_PLACED row comes in its queue order, and before its HOLD_READY row.
+     */
+    @Query("select e from LoanEventModel e " +
+            "where e.type in (me.widua.borrowOperationMicroservice.models.types.LoanEventType.HOLD_PLACED, " +
+            "me.widua.borrowOperationMicroservice.models.types.LoanEventType.HOLD_READY) and e.id > :after " +
+            "and not exists (select r.id from LoanEventModel r where r.loanId = e.loanId " +
+            "and r.type in (me.widua.borrowOperationMicroservice.models.types.LoanEventType.HOLD_CANCELLED, " +
+            "me.widua.borrowOperationMicroservice.models.types.LoanEventType.HOLD_EXPIRED, " +
+            "me.widua.borrowOperationMicroservice.models.types.LoanEventType.HOLD_COLLECTED)) " +
+            "order by e.id")
+    List<LoanEventModel> findOpenHolds(@Param("after") Long after, Pageable pageable);
+
+}
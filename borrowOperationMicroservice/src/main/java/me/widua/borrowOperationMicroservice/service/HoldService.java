@@ -0,0 +1,16 @@
+package me.widua.borrowOperationMicroservice.service;
+
+import me.widua.borrowOperationMicroservice.models.HoldModel;
+import me.widua.borrowOperationMicroservice.models.ResponseModel;
+
+import java.util.List;
+import java.util.UUID;
+
+public interface HoldService {
+
+    ResponseModel<HoldModel> placeHold(String isbn, Integer customerId);
+    ResponseModel<HoldModel> cancelHold(UUID holdId);
+    ResponseModel<HoldModel> getHold(UUID holdId);
+    ResponseModel<List<HoldModel>> getHoldsOfBook(String isbn);
+
+}
@@ -0,0 +1,377 @@
+package me.widua.borrowOperationMicroservice.service;
+
+import jakarta.annotation.PostConstruct;
+import lombok.extern.slf4j.Slf4j;
+import me.widua.borrowOperationMicroservice.holds.HoldQueue;
+import me.widua.borrowOperationMicroservice.holds.HoldQueue.Hold;
+import me.widua.borrowOperationMicroservice.inventory.BookInventory;
+import me.widua.borrowOperationMicroservice.ledger.LedgerWriter;
+import me.widua.borrowOperationMicroservice.models.HoldModel;
+import me.widua.borrowOperationMicroservice.models.LoanEventModel;
+import me.widua.borrowOperationMicroservice.models.ResponseModel;
+import me.widua.borrowOperationMicroservice.models.types.HoldStatus;
+import me.widua.borrowOperationMicroservice.models.types.LoanEventType;
+import me.widua.borrowOperationMicroservice.repositories.LoanEventRepository;
+import me.widua.libraryCommon.IsbnValidator;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.http.HttpStatus;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+
+/*
+ * Hold queues, one HoldQueue per ISBN guarded by its own monitor, so holds on different books never wait on each
+ * other. Every change is appended to the loan ledger under the queue's monitor, which keeps the ledger in queue order,
+ * and is waited for outside of it. A copy coming back (a return, a cancelled or expired ready hold, a failed borrow)
+ * goes through returnCopy: it stays reserved at the book service and is set aside for the first waiting hold for
+ * borrow.holds.pickup-period, and only without one is it released. Copies added at the book service are picked up
+ * every borrow.holds.check-interval.
+ *
+ * Queues are keyed by the canonical ISBN-13, like loans, so a hold placed under an ISBN-10 is served by a return under
+ * the ISBN-13. Holds are only placed on books the book service knows.
+ */
+@Slf4j
+@Service
+public class HoldServiceImpl implements HoldService {
+    private static final int REBUILD_PAGE_SIZE = 1000;
+
+    private final LoanEventRepository repository ;
+    private final LedgerWriter ledger ;
+    private final BookInventory inventory ;
+    private final IsbnValidator isbnValidator ;
+    private final Duration pickupPeriod ;
+    private final Clock clock ;
+    private final Map<String, HoldQueue> queues = new ConcurrentHashMap<>();
+    private final Map<UUID, Hold> holds = new ConcurrentHashMap<>();
+
+    @Autowired
+    public HoldServiceImpl(LoanEventRepository repository, LedgerWriter ledger, BookInventory inventory,
+                           IsbnValidator isbnValidator,
+                           @Value("${borrow.holds.pickup-period:P3D}") Duration pickupPeriod){
+        this(repository, ledger, inventory, isbnValidator, pickupPeriod, Clock.systemUTC());
+    }
+
+    HoldServiceImpl(LoanEventRepository repository, LedgerWriter ledger, BookInventory inventory,
+                    IsbnValidator isbnValidator, Duration pickupPeriod, Clock clock){
+        this.repository = repository;
+        this.ledger = ledger;
+        this.inventory = inventory;
+        this.isbnValidator = isbnValidator;
+        this.pickupPeriod = pickupPeriod;
+        this.clock = clock;
+    }
+
+    /*
+     * Replaces the queues with the open holds of the ledger, in their original order.
+     */
+    @PostConstruct
+    public void loadOpenHolds(){
+        queues.clear();
+        holds.clear();
+        long after = 0;
+        List<LoanEventModel> page;
+        do {
+            page = repository.findOpenHolds(after, PageRequest.of(0, REBUILD_PAGE_SIZE));
+            for (LoanEventModel event : page){
+                // Holds recorded before ISBNs were normalized may be under another spelling of the book
+                String normalized = isbnValidator.normalize(event.getIsbn());
+                String isbn = normalized != null ? normalized : event.getIsbn();
+                HoldQueue queue = queue(isbn);
+                if (event.getType() == LoanEventType.HOLD_PLACED){
+                    Hold hold = new Hold(event.getLoanId(), isbn, event.getCustomerId(), event.getOccurredAt());
+                    queue.append(hold);
+                    holds.put(hold.holdId(), hold);
+                } else if (holds.containsKey(event.getLoanId())){
+                    queue.markReady(holds.get(event.getLoanId()), event.getDueAt());
+                }
+                after = event.getId();
+            }
+        } while (page.size() == REBUILD_PAGE_SIZE);
+        log.info("Loaded {} open holds", holds.size());
+    }
+
+    @Override
+    public ResponseModel<HoldModel> placeHold(String isbn, Integer customerId){
+        if (isbn == null || customerId == null){
+            return ResponseModel.message(HttpStatus.BAD_REQUEST, "ISBN and customer id are required!");
+        }
+        String normalized = isbnValidator.normalize(isbn);
+        if (normalized == null){
+            return ResponseModel.message(HttpStatus.BAD_REQUEST, String.format("ISBN: %s is not valid!", isbn));
+        }
+        // Checked before the queue is created, so unknown books don't leave empty queues behind
+        try {
+            if (!inventory.exists(normalized)){
+                return ResponseModel.message(HttpStatus.NOT_FOUND, String.format("Book %s does not exist!", normalized));
+            }
+        } catch (RuntimeException e) {
+            log.warn("Book service is unavailable: {}", e.getMessage());
+            return ResponseModel.message(HttpStatus.SERVICE_UNAVAILABLE, "Book service is unavailable, try again later!");
+        }
+        HoldQueue queue = queue(normalized);
+        Hold hold;
+        CompletableFuture<Void> committed;
+        synchronized (queue){
+            if (queue.find(customerId) != null){
+                return ResponseModel.message(HttpStatus.CONFLICT, String.format("Customer already holds book %s!", normalized));
+            }
+            // Microseconds, as stored, so a rebuilt queue shows the same times
+            Instant placedAt = clock.instant().truncatedTo(ChronoUnit.MICROS);
+            hold = new Hold(UUID.randomUUID(), normalized, customerId, placedAt);
+            queue.append(hold);
+            // Not served before its HOLD_PLACED row is committed
+            hold.pending(true);
+            committed = ledger.append(new LoanEventModel(LoanEventType.HOLD_PLACED, hold.holdId(), normalized, customerId, placedAt, null));
+        }
+        if (!await(committed)){
+            synchronized (queue){
+                queue.remove(hold);
+            }
+            return ResponseModel.message(HttpStatus.SERVICE_UNAVAILABLE, "Hold could not be recorded, try again later!");
+        }
+        synchronized (queue){
+            hold.pending(false);
+        }
+        holds.put(hold.holdId(), hold);
+        HoldModel placed = model(queue, hold);
+        // A copy may be on the shelf, the check-interval run serves the queue if the book service is down now
+        if (placed.position() != null && placed.position() == 1){
+            try {
+                if (inventory.reserve(normalized)){
+                    returnCopy(normalized);
+                }
+            } catch (RuntimeException e) {
+                log.warn("Book service is unavailable: {}", e.getMessage());
+            }
+        }
+        return ResponseModel.of(HttpStatus.CREATED, model(queue, hold));
+    }
+
+    @Override
+    public ResponseModel<HoldModel> cancelHold(UUID holdId){
+        Hold hold = holdId != null ? holds.get(holdId) : null;
+        if (hold == null){
+            return ResponseModel.message(HttpStatus.NOT_FOUND, String.format("There is no open hold %s!", holdId));
+        }
+        HoldQueue queue = queue(hold.isbn());
+        CompletableFuture<Void> committed;
+        HoldModel cancelled;
+        synchronized (queue){
+            if (hold.pending()){
+                return ResponseModel.message(HttpStatus.CONFLICT, String.format("Hold %s is already being closed!", holdId));
+            }
+            hold.pending(true);
+            cancelled = queue.toModel(hold);
+            committed = ledger.append(event(LoanEventType.HOLD_CANCELLED, hold, null));
+        }
+        if (!await(committed)){
+            synchronized (queue){
+                hold.pending(false);
+            }
+            return ResponseModel.message(HttpStatus.SERVICE_UNAVAILABLE, "Cancellation could not be recorded, try again later!");
+        }
+        close(queue, hold);
+        if (cancelled.status() == HoldStatus.READY){
+            returnCopy(hold.isbn());
+        }
+        return ResponseModel.ok(cancelled);
+    }
+
+    @Override
+    public ResponseModel<HoldModel> getHold(UUID holdId){
+        Hold hold = holdId != null ? holds.get(holdId) : null;
+        if (hold == null){
+            return ResponseModel.message(HttpStatus.NOT_FOUND, String.format("There is no open hold %s!", holdId));
+        }
+        return ResponseModel.ok(model(queue(hold.isbn()), hold));
+    }
+
+    @Override
+    public ResponseModel<List<HoldModel>> getHoldsOfBook(String isbn){
+        String normalized = isbnValidator.normalize(isbn);
+        HoldQueue queue = normalized != null ? queues.get(normalized) : null;
+        if (queue == null){
+            return ResponseModel.ok(List.of());
+        }
+        synchronized (queue){
+            return ResponseModel.ok(queue.snapshot());
+        }
+    }
+
+    /*
+     * Takes a copy reserved at the book service: sets it aside for the first waiting hold, or releases it when no one
+     * is waiting. A hold whose HOLD_READY write fails goes back to the front and the copy is released. True when the
+     * copy was set aside.
+     */
+    public boolean returnCopy(String isbn){
+        HoldQueue queue = queues.get(isbn);
+        if (queue != null && setAside(queue)){
+            return true;
+        }
+        try {
+            inventory.release(isbn);
+        } catch (RuntimeException e) {
+            // The ledger is already right, the copy stays reserved at the book service until it's released by hand
+            log.error("Copy of book {} could not be released: {}", isbn, e.getMessage());
+        }
+        return false;
+    }
+
+    /*
+     * Closes the customer's ready hold on the book, if there is one, so the copy set aside for it can be lent.
+     */
+    public boolean collect(String isbn, Integer customerId){
+        HoldQueue queue = queues.get(isbn);
+        if (queue == null){
+            return false;
+        }
+        Hold hold;
+        CompletableFuture<Void> committed;
+        synchronized (queue){
+            hold = queue.find(customerId);
+            if (hold == null || hold.status() != HoldStatus.READY || hold.pending()){
+                return false;
+            }
+            hold.pending(true);
+            committed = ledger.append(event(LoanEventType.HOLD_COLLECTED, hold, null));
+        }
+        if (!await(committed)){
+            synchronized (queue){
+                hold.pending(false);
+            }
+            return false;
+        }
+        close(queue, hold);
+        return true;
+    }
+
+    public boolean hasWaitingHolds(String isbn){
+        HoldQueue queue = queues.get(isbn);
+        return queue != null && waiting(queue);
+    }
+
+    @Scheduled(fixedDelayString = "${borrow.holds.check-interval:PT1M}", initialDelayString = "${borrow.holds.check-interval:PT1M}")
+    public void checkHolds(){
+        expireReadyHolds(clock.instant());
+        serveWaitingHolds();
+    }
+
+    /*
+     * Ready holds not collected by now are closed, their copies go to the next in line.
+     */
+    public void expireReadyHolds(Instant now){
+        for (HoldQueue queue : queues.values()){
+            List<Hold> expired;
+            List<CompletableFuture<Void>> committed = new ArrayList<>();
+            synchronized (queue){
+                expired = queue.expired(now);
+                for (Hold hold : expired){
+                    hold.pending(true);
+                    committed.add(ledger.append(event(LoanEventType.HOLD_EXPIRED, hold, null)));
+                }
+            }
+            for (int i = 0; i < expired.size(); i++){
+                Hold hold = expired.get(i);
+                if (await(committed.get(i))){
+                    close(queue, hold);
+                    returnCopy(hold.isbn());
+                } else {
+                    synchronized (queue){
+                        hold.pending(false);
+                    }
+                }
+            }
+        }
+    }
+
+    /*
+     * Copies the book service has in stock while holds wait, e.g. after new copies were added there.
+     */
+    public void serveWaitingHolds(){
+        for (Map.Entry<String, HoldQueue> entry : queues.entrySet()){
+            HoldQueue queue = entry.getValue();
+            try {
+                while (waiting(queue) && inventory.reserve(entry.getKey())){
+                    if (!returnCopy(entry.getKey())){
+                        break;
+                    }
+                }
+            } catch (RuntimeException e) {
+                log.warn("Book service is unavailable: {}", e.getMessage());
+                return;
+            }
+        }
+    }
+
+    private boolean setAside(HoldQueue queue){
+        Hold hold;
+        CompletableFuture<Void> committed;
+        synchronized (queue){
+            hold = queue.nextWaiting();
+            if (hold == null){
+                return false;
+            }
+            Instant readyUntil = clock.instant().plus(pickupPeriod).truncatedTo(ChronoUnit.MICROS);
+            queue.markReady(hold, readyUntil);
+            committed = ledger.append(event(LoanEventType.HOLD_READY, hold, readyUntil));
+        }
+        if (await(committed)){
+            return true;
+        }
+        synchronized (queue){
+            queue.unready(hold);
+        }
+        return false;
+    }
+
+    private boolean waiting(HoldQueue queue){
+        synchronized (queue){
+            return queue.nextWaiting() != null;
+        }
+    }
+
+    private void close(HoldQueue queue, Hold hold){
+        synchronized (queue){
+            queue.remove(hold);
+        }
+        holds.remove(hold.holdId());
+    }
+
+    private HoldModel model(HoldQueue queue, Hold hold){
+        synchronized (queue){
+            return queue.toModel(hold);
+        }
+    }
+
+    private HoldQueue queue(String isbn){
+        return queues.computeIfAbsent(isbn, key -> new HoldQueue());
+    }
+
+    private LoanEventModel event(LoanEventType type, Hold hold, Instant dueAt){
+        return new LoanEventModel(type, hold.holdId(), hold.isbn(), hold.customerId(), clock.instant(), dueAt);
+    }
+
+    private boolean await(CompletableFuture<Void> committed){
+        try {
+            committed.join();
+            return true;
+        } catch (CompletionException e) {
+            log.error("Writing to the loan ledger failed", e.getCause());
+            return false;
+        }
+    }
+
+}
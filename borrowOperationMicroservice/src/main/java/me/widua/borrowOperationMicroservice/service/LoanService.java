@@ -0,0 +1,16 @@
+package me.widua.borrowOperationMicroservice.service;
+
+import me.widua.borrowOperationMicroservice.models.LoanModel;
+import me.widua.borrowOperationMicroservice.models.ResponseModel;
+
+import java.util.List;
+import java.util.UUID;
+
+public interface LoanService {
+
+    ResponseModel<LoanModel> borrowBook(String isbn, Integer customerId);
+    ResponseModel<LoanModel> returnBook(UUID loanId);
+    ResponseModel<List<LoanModel>> getLoansOfCustomer(Integer customerId);
+    ResponseModel<List<LoanModel>> getLoansOfBook(String isbn);
+
+}
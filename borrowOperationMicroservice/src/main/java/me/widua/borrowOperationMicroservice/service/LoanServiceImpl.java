@@ -0,0 +1,278 @@
+package me.widua.borrowOperationMicroservice.service;
+
+import jakarta.annotation.PostConstruct;
+import lombok.extern.slf4j.Slf4j;
+import me.widua.borrowOperationMicroservice.inventory.BookInventory;
+import me.widua.borrowOperationMicroservice.ledger.LedgerWriter;
+import me.widua.borrowOperationMicroservice.models.LoanEventModel;
+import me.widua.borrowOperationMicroservice.models.LoanModel;
+import me.widua.borrowOperationMicroservice.models.ResponseModel;
+import me.widua.borrowOperationMicroservice.models.types.LoanEventType;
+import me.widua.borrowOperationMicroservice.overdue.OverdueScheduler;
+import me.widua.borrowOperationMicroservice.repositories.LoanEventRepository;
+import me.widua.libraryCommon.IsbnValidator;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Service;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+
+/*
+ * Active loans are kept in memory, per book, per customer and by loan id, and every change is appended to the
+ * ledger (LoanEventModel) through LedgerWriter. Changes of one book are serialized on that book's own monitor and
+ * customer limits on the customer's, so borrowing different books never waits on a shared lock. A change shows up in
+ * the views only once its event is committed, so the views never show a loan the ledger doesn't have.
+ *
+ * Copies are counted by the book service: a loan starts with BookInventory.reserve, or with a copy set aside for the
+ * customer's hold, and its return hands the copy to HoldServiceImpl.returnCopy.
+ *
+ * Books are keyed by the canonical ISBN-13 the book service stores them under, so ISBN-10, ISBN-13 and hyphenated
+ * spellings of one book share its copies and limits. Numbers failing the checksum are rejected.
+ */
+@Slf4j
+@Service
+public class LoanServiceImpl implements LoanService {
+    private static final int REBUILD_PAGE_SIZE = 1000;
+
+    private final LoanEventRepository repository ;
+    private final LedgerWriter ledger ;
+    private final BookInventory inventory ;
+    private final OverdueScheduler overdue ;
+    private final HoldServiceImpl holds ;
+    private final IsbnValidator isbnValidator ;
+    private final Duration loanPeriod ;
+    private final int maxLoansPerCustomer ;
+    private final Clock clock ;
+    private final Map<String, BookLoans> books = new ConcurrentHashMap<>();
+    private final Map<Integer, CustomerLoans> customers = new ConcurrentHashMap<>();
+    private final Map<UUID, LoanModel> loans = new ConcurrentHashMap<>();
+
+    @Autowired
+    public LoanServiceImpl(LoanEventRepository repository, LedgerWriter ledger, BookInventory inventory, OverdueScheduler overdue,
+                           HoldServiceImpl holds, IsbnValidator isbnValidator,
+                           @Value("${borrow.loans.period:P21D}") Duration loanPeriod,
+                           @Value("${borrow.loans.max-per-customer:5}") int maxLoansPerCustomer){
+        this(repository, ledger, inventory, overdue, holds, isbnValidator, loanPeriod, maxLoansPerCustomer, Clock.systemUTC());
+    }
+
+    LoanServiceImpl(LoanEventRepository repository, LedgerWriter ledger, BookInventory inventory, OverdueScheduler overdue,
+                    HoldServiceImpl holds, IsbnValidator isbnValidator, Duration loanPeriod, int maxLoansPerCustomer, Clock clock){
+        this.repository = repository;
+        this.ledger = ledger;
+        this.inventory = inventory;
+        this.overdue = overdue;
+        this.holds = holds;
+        this.isbnValidator = isbnValidator;
+        this.loanPeriod = loanPeriod;
+        this.maxLoansPerCustomer = maxLoansPerCustomer;
+        this.clock = clock;
+    }
+
+    /*
+     * Replaces the views and the due dates with the active loans of the ledger, read in pages of REBUILD_PAGE_SIZE.
+     */
+    @PostConstruct
+    public void loadActiveLoans(){
+        books.clear();
+        customers.clear();
+        loans.clear();
+        overdue.clear();
+        long after = 0;
+        List<LoanEventModel> page;
+        do {
+            page = repository.findActiveLoans(after, PageRequest.of(0, REBUILD_PAGE_SIZE));
+            for (LoanEventModel event : page){
+                LoanModel loan = canonical(event.toLoan());
+                book(loan.isbn()).loans.put(loan.loanId(), loan);
+                customer(loan.customerId()).loans.put(loan.loanId(), loan);
+                loans.put(loan.loanId(), loan);
+                overdue.restore(loan);
+                after = event.getId();
+            }
+        } while (page.size() == REBUILD_PAGE_SIZE);
+        log.info("Loaded {} active loans", loans.size());
+    }
+
+    @Override
+    public ResponseModel<LoanModel> borrowBook(String isbn, Integer customerId){
+        if (isbn == null || customerId == null){
+            return ResponseModel.message(HttpStatus.BAD_REQUEST, "ISBN and customer id are required!");
+        }
+        String normalized = isbnValidator.normalize(isbn);
+        if (normalized == null){
+            return ResponseModel.message(HttpStatus.BAD_REQUEST, String.format("ISBN: %s is not valid!", isbn));
+        }
+        CustomerLoans customer = customer(customerId);
+        String refusal = customer.claim(normalized, maxLoansPerCustomer);
+        if (refusal != null){
+            return ResponseModel.message(HttpStatus.CONFLICT, refusal);
+        }
+        // A copy set aside for the customer's hold is already reserved, anyone else queues behind waiting holds
+        if (!holds.collect(normalized, customerId)){
+            if (holds.hasWaitingHolds(normalized)){
+                customer.unclaim(normalized);
+                return ResponseModel.message(HttpStatus.CONFLICT, String.format("Book %s is held for other customers!", normalized));
+            }
+            try {
+                if (!inventory.reserve(normalized)){
+                    customer.unclaim(normalized);
+                    return ResponseModel.message(HttpStatus.CONFLICT, String.format("No copy of book %s is available!", normalized));
+                }
+            } catch (RuntimeException e) {
+                customer.unclaim(normalized);
+                log.warn("Book service is unavailable: {}", e.getMessage());
+                return ResponseModel.message(HttpStatus.SERVICE_UNAVAILABLE, "Book service is unavailable, try again later!");
+            }
+        }
+        // Microseconds, as stored, so the views match what loadActiveLoans reads back
+        Instant now = clock.instant().truncatedTo(ChronoUnit.MICROS);
+        LoanModel loan = new LoanModel(UUID.randomUUID(), normalized, customerId, now, now.plus(loanPeriod));
+        BookLoans book = book(normalized);
+        CompletableFuture<Void> committed;
+        synchronized (book){
+            committed = ledger.append(new LoanEventModel(LoanEventType.BORROWED, loan, now));
+        }
+        if (!await(committed)){
+            customer.unclaim(normalized);
+            holds.returnCopy(normalized);
+            return ResponseModel.message(HttpStatus.SERVICE_UNAVAILABLE, "Loan could not be recorded, try again later!");
+        }
+        synchronized (book){
+            book.loans.put(loan.loanId(), loan);
+        }
+        customer.add(loan);
+        overdue.schedule(loan);
+        // Last, from here on the loan can be returned
+        loans.put(loan.loanId(), loan);
+        return ResponseModel.of(HttpStatus.CREATED, loan);
+    }
+
+    @Override
+    public ResponseModel<LoanModel> returnBook(UUID loanId){
+        // Removing it first means that of two concurrent returns only one goes on
+        LoanModel loan = loanId != null ? loans.remove(loanId) : null;
+        if (loan == null){
+            return ResponseModel.message(HttpStatus.NOT_FOUND, String.format("There is no active loan %s!", loanId));
+        }
+        BookLoans book = book(loan.isbn());
+        CompletableFuture<Void> committed;
+        synchronized (book){
+            committed = ledger.append(new LoanEventModel(LoanEventType.RETURNED, loan, clock.instant()));
+        }
+        if (!await(committed)){
+            loans.put(loan.loanId(), loan);
+            return ResponseModel.message(HttpStatus.SERVICE_UNAVAILABLE, "Return could not be recorded, try again later!");
+        }
+        synchronized (book){
+            book.loans.remove(loan.loanId());
+        }
+        customer(loan.customerId()).remove(loan);
+        overdue.cancel(loan.loanId());
+        holds.returnCopy(loan.isbn());
+        return ResponseModel.ok(loan);
+    }
+
+    @Override
+    public ResponseModel<List<LoanModel>> getLoansOfCustomer(Integer customerId){
+        CustomerLoans customer = customerId != null ? customers.get(customerId) : null;
+        if (customer == null){
+            return ResponseModel.ok(List.of());
+        }
+        synchronized (customer){
+            return ResponseModel.ok(new ArrayList<>(customer.loans.values()));
+        }
+    }
+
+    @Override
+    public ResponseModel<List<LoanModel>> getLoansOfBook(String isbn){
+        String normalized = isbnValidator.normalize(isbn);
+        BookLoans book = normalized != null ? books.get(normalized) : null;
+        if (book == null){
+            return ResponseModel.ok(List.of());
+        }
+        synchronized (book){
+            return ResponseModel.ok(new ArrayList<>(book.loans.values()));
+        }
+    }
+
+    private BookLoans book(String isbn){
+        return books.computeIfAbsent(isbn, key -> new BookLoans());
+    }
+
+    private CustomerLoans customer(Integer customerId){
+        return customers.computeIfAbsent(customerId, key -> new CustomerLoans());
+    }
+
+    private boolean await(CompletableFuture<Void> committed){
+        try {
+            committed.join();
+            return true;
+        } catch (CompletionException e) {
+            log.error("Writing to the loan ledger failed", e.getCause());
+            return false;
+        }
+    }
+
+    // Loans recorded before ISBNs were normalized may be under another spelling of the book
+    private LoanModel canonical(LoanModel loan){
+        String normalized = isbnValidator.normalize(loan.isbn());
+        if (normalized == null || normalized.equals(loan.isbn())){
+            return loan;
+        }
+        return new LoanModel(loan.loanId(), normalized, loan.customerId(), loan.borrowedAt(), loan.dueAt());
+    }
+
+    // Guarded by its own monitor
+    private static final class BookLoans {
+        private final Map<UUID, LoanModel> loans = new LinkedHashMap<>();
+    }
+
+    /*
+     * Guarded by its own monitor. A borrow claims its book before asking the book service, so the limit also holds
+     * for borrows that are still running.
+     */
+    private static final class CustomerLoans {
+        private final Map<UUID, LoanModel> loans = new LinkedHashMap<>();
+        private final Set<String> claimed = new HashSet<>();
+
+        private synchronized String claim(String isbn, int limit){
+            if (loans.size() + claimed.size() >= limit){
+                return String.format("Customer can't have more than %s books borrowed!", limit);
+            }
+            if (claimed.contains(isbn) || loans.values().stream().anyMatch(loan -> loan.isbn().equals(isbn))){
+                return String.format("Customer has already borrowed book %s!", isbn);
+            }
+            claimed.add(isbn);
+            return null;
+        }
+
+        private synchronized void unclaim(String isbn){
+            claimed.remove(isbn);
+        }
+
+        private synchronized void add(LoanModel loan){
+            claimed.remove(loan.isbn());
+            loans.put(loan.loanId(), loan);
+        }
+
+        private synchronized void remove(LoanModel loan){
+            loans.remove(loan.loanId());
+        }
+    }
+
+}
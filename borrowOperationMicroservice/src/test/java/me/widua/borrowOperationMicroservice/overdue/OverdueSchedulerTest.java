@@ -0,0 +1,91 @@
+package me.widua.borrowOperationMicroservice.overdue;
+
+import me.widua.borrowOperationMicroservice.models.LoanModel;
+import me.widua.borrowOperationMicroservice.models.types.LoanDeadlineType;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class OverdueSchedulerTest {
+    private static final Instant NOW = Instant.parse("2026-03-02T10:00:00Z");
+
+    private final List<LoanDeadlineEvent> events = new ArrayList<>();
+    private OverdueScheduler underTest ;
+
+    @BeforeEach
+    public void setUp(){
+        underTest = new OverdueScheduler(event -> events.add((LoanDeadlineEvent) event), Duration.ofMinutes(1), Duration.ofDays(2), Duration.ofHours(24),
+                2, Clock.fixed(NOW, ZoneOffset.UTC));
+    }
+
+    @Test
+    public void deadlinesFireInBatches(){
+        //Given
+        List<LoanModel> loans = List.of(loan(Duration.ofDays(21)), loan(Duration.ofDays(21)), loan(Duration.ofDays(21)));
+        loans.forEach(underTest::schedule);
+        //When
+        underTest.advanceTo(NOW.plus(Duration.ofDays(19)));
+        List<LoanDeadlineEvent> reminders = List.copyOf(events);
+        events.clear();
+        underTest.advanceTo(NOW.plus(Duration.ofDays(21)));
+        //Then
+        assertEquals(List.of(2, 1), reminders.stream().map(event -> event.loans().size()).toList());
+        assertTrue(reminders.stream().allMatch(event -> event.type() == LoanDeadlineType.REMINDER));
+        assertEquals(List.of(2, 1), events.stream().map(event -> event.loans().size()).toList());
+        assertTrue(events.stream().allMatch(event -> event.type() == LoanDeadlineType.OVERDUE));
+        assertEquals(0, underTest.scheduledLoans());
+    }
+
+    @Test
+    public void cancelledLoanDoesNotFire(){
+        //Given
+        LoanModel returned = loan(Duration.ofDays(21));
+        LoanModel kept = loan(Duration.ofDays(21));
+        underTest.schedule(returned);
+        underTest.schedule(kept);
+        //When
+        underTest.cancel(returned.loanId());
+        underTest.advanceTo(NOW.plus(Duration.ofDays(30)));
+        //Then
+        assertEquals(List.of(kept, kept), events.stream().flatMap(event -> event.loans().stream()).toList());
+    }
+
+    @Test
+    public void shortLoanGetsNoReminder(){
+        //Given
+        underTest.schedule(loan(Duration.ofDays(1)));
+        //When
+        underTest.advanceTo(NOW.plus(Duration.ofDays(1)));
+        //Then
+        assertEquals(List.of(LoanDeadlineType.OVERDUE), events.stream().map(LoanDeadlineEvent::type).toList());
+    }
+
+    @Test
+    public void restoreSkipsDeadlinesThatAlreadyFired(){
+        //Given
+        LoanModel longOverdue = loan(Duration.ofDays(-3));
+        LoanModel justOverdue = loan(Duration.ofHours(-1));
+        LoanModel remindedLongAgo = loan(Duration.ofDays(1));
+        //When
+        List.of(longOverdue, justOverdue, remindedLongAgo).forEach(underTest::restore);
+        int restored = underTest.scheduledLoans();
+        underTest.advanceTo(NOW.plus(Duration.ofMinutes(1)));
+        //Then
+        assertEquals(2, restored);
+        assertEquals(List.of(new LoanDeadlineEvent(LoanDeadlineType.OVERDUE, List.of(justOverdue))), events);
+    }
+
+    private static LoanModel loan(Duration dueIn){
+        return new LoanModel(UUID.randomUUID(), "9785006001206", 1, NOW, NOW.plus(dueIn));
+    }
+
+}
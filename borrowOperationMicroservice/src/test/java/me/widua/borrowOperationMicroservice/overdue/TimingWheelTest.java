@@ -0,0 +1,94 @@
+package me.widua.borrowOperationMicroservice.overdue;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class TimingWheelTest {
+    private static final long TICK = 60_000;
+
+    @Test
+    public void everyTimerFiresAtItsTick(){
+        //Given
+        TimingWheel<Long> underTest = new TimingWheel<>(TICK, 0);
+        Random random = new Random(42);
+        List<Long> deadlines = new ArrayList<>();
+        for (int i = 0; i < 20_000; i++){
+            // Up to twice the top level's range, so some timers wait a full turn there
+            long deadline = (long) (random.nextDouble() * 2 * Math.pow(TimingWheel.SLOTS, TimingWheel.LEVELS)) * TICK;
+            deadlines.add(deadline);
+            underTest.schedule(deadline, deadline);
+        }
+        //When
+        List<Long> fired = new ArrayList<>();
+        long now = 0;
+        while (underTest.size() > 0){
+            // Uneven steps, some of them stopping in the middle of a tick
+            now += TICK * 1000 + random.nextInt((int) TICK);
+            int before = fired.size();
+            underTest.advance(now, fired);
+            for (long deadline : fired.subList(before, fired.size())){
+                assertTrue(deadline <= now, "fired early");
+                assertTrue(deadline > now - TICK * 1000 - TICK, "fired late");
+            }
+        }
+        //Then
+        assertEquals(deadlines.size(), fired.size());
+        assertEquals(deadlines.stream().sorted().toList(), fired.stream().sorted().toList());
+    }
+
+    @Test
+    public void tickByTickFiresInDeadlineOrder(){
+        //Given
+        TimingWheel<Long> underTest = new TimingWheel<>(TICK, 0);
+        for (long tick = 5000; tick > 0; tick -= 7){
+            underTest.schedule(tick * TICK, tick);
+        }
+        //When
+        List<Long> fired = new ArrayList<>();
+        for (long tick = 1; tick <= 5000; tick++){
+            int before = fired.size();
+            underTest.advance(tick * TICK, fired);
+            //Then
+            for (long firedTick : fired.subList(before, fired.size())){
+                assertEquals(tick, firedTick);
+            }
+        }
+        assertEquals(0, underTest.size());
+    }
+
+    @Test
+    public void cancelledTimerNeverFires(){
+        //Given
+        TimingWheel<String> underTest = new TimingWheel<>(TICK, 0);
+        TimingWheel.Timer<String> cancelled = underTest.schedule(100 * TICK, "cancelled");
+        underTest.schedule(100 * TICK, "kept");
+        //When
+        boolean first = underTest.cancel(cancelled);
+        boolean second = underTest.cancel(cancelled);
+        List<String> fired = new ArrayList<>();
+        underTest.advance(200 * TICK, fired);
+        //Then
+        assertTrue(first);
+        assertFalse(second);
+        assertEquals(List.of("kept"), fired);
+        assertEquals(0, underTest.size());
+    }
+
+    @Test
+    public void pastDeadlineFiresOnNextAdvance(){
+        //Given
+        TimingWheel<String> underTest = new TimingWheel<>(TICK, 1000 * TICK);
+        underTest.schedule(10 * TICK, "late");
+        //When
+        List<String> fired = new ArrayList<>();
+        underTest.advance(1001 * TICK, fired);
+        //Then
+        assertEquals(List.of("late"), fired);
+    }
+
+}
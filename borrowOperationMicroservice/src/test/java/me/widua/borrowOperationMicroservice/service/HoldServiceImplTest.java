@@ -0,0 +1,208 @@
+package me.widua.borrowOperationMicroservice.service;
+
+import me.widua.borrowOperationMicroservice.models.HoldModel;
+import me.widua.borrowOperationMicroservice.models.LoanModel;
+import me.widua.borrowOperationMicroservice.models.ResponseModel;
+import me.widua.borrowOperationMicroservice.models.types.HoldStatus;
+import me.widua.borrowOperationMicroservice.repositories.LoanEventRepository;
+import me.widua.borrowOperationMicroservice.support.InMemoryBookInventory;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.http.HttpStatus;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.junit.jupiter.SpringExtension;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@ExtendWith(SpringExtension.class)
+@ActiveProfiles("test")
+@SpringBootTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:holdTest",
+        "borrow.holds.pickup-period=PT1H"
+})
+@Import(InMemoryBookInventory.Configuration.class)
+class HoldServiceImplTest {
+    private static final String ISBN = "9785006001206";
+
+    @Autowired
+    private HoldServiceImpl underTest ;
+    @Autowired
+    private LoanServiceImpl loans ;
+    @Autowired
+    private LoanEventRepository repository ;
+    @Autowired
+    private InMemoryBookInventory inventory ;
+
+    @BeforeEach
+    public void setStock(){
+        inventory.stock(ISBN, 1);
+    }
+
+    @AfterEach
+    public void clearDb(){
+        repository.deleteAll();
+        loans.loadActiveLoans();
+        underTest.loadOpenHolds();
+        inventory.clear();
+    }
+
+    @Test
+    public void returnSetsCopyAsideForFirstHold(){
+        //Given
+        UUID loanId = loans.borrowBook(ISBN, 1).getBody().loanId();
+        UUID first = underTest.placeHold(ISBN, 2).getBody().holdId();
+        UUID second = underTest.placeHold(ISBN, 3).getBody().holdId();
+        //When
+        loans.returnBook(loanId);
+        //Then
+        assertEquals(HoldStatus.READY, underTest.getHold(first).getBody().status());
+        assertEquals(1, underTest.getHold(second).getBody().position());
+        assertEquals(0, inventory.available(ISBN));
+        assertEquals(HttpStatus.CONFLICT, loans.borrowBook(ISBN, 3).getStatus());
+        assertEquals(HttpStatus.CREATED, loans.borrowBook(ISBN, 2).getStatus());
+        assertEquals(HttpStatus.NOT_FOUND, underTest.getHold(first).getStatus());
+        assertEquals(0, inventory.available(ISBN));
+    }
+
+    @Test
+    public void isbn10AndIsbn13ShareQueue(){
+        //Given
+        UUID loanId = loans.borrowBook(ISBN, 1).getBody().loanId();
+        HoldModel hold = underTest.placeHold("5-00600-120-8", 2).getBody();
+        //When
+        loans.returnBook(loanId);
+        //Then
+        assertEquals(ISBN, hold.isbn());
+        assertEquals(HoldStatus.READY, underTest.getHold(hold.holdId()).getBody().status());
+        assertEquals(1, underTest.getHoldsOfBook("978-5-0060-0120-6").getBody().size());
+        assertEquals(HttpStatus.CONFLICT, underTest.placeHold(ISBN, 2).getStatus());
+        assertEquals(HttpStatus.CREATED, loans.borrowBook("5006001208", 2).getStatus());
+        assertEquals(HttpStatus.NOT_FOUND, underTest.getHold(hold.holdId()).getStatus());
+    }
+
+    @Test
+    public void holdOnUnknownOrInvalidBookIsRefused(){
+        //When
+        //Then
+        assertEquals(HttpStatus.NOT_FOUND, underTest.placeHold("9780140449136", 1).getStatus());
+        assertEquals(HttpStatus.BAD_REQUEST, underTest.placeHold("9785006001207", 1).getStatus());
+        assertTrue(underTest.getHoldsOfBook("9780140449136").getBody().isEmpty());
+    }
+
+    @Test
+    public void holdOnBookInStockIsReadyAtOnce(){
+        //When
+        HoldModel hold = underTest.placeHold(ISBN, 1).getBody();
+        //Then
+        assertEquals(HoldStatus.READY, hold.status());
+        assertNull(hold.position());
+        assertEquals(0, inventory.available(ISBN));
+    }
+
+    @Test
+    public void cancelMovesLaterHoldsUp(){
+        //Given
+        loans.borrowBook(ISBN, 1);
+        List<UUID> holds = IntStream.rangeClosed(2, 4).mapToObj(customer -> underTest.placeHold(ISBN, customer).getBody().holdId()).toList();
+        //When
+        ResponseModel<HoldModel> cancelled = underTest.cancelHold(holds.get(1));
+        //Then
+        assertEquals(HttpStatus.OK, cancelled.getStatus());
+        assertEquals(HttpStatus.NOT_FOUND, underTest.cancelHold(holds.get(1)).getStatus());
+        assertEquals(1, underTest.getHold(holds.get(0)).getBody().position());
+        assertEquals(2, underTest.getHold(holds.get(2)).getBody().position());
+        assertEquals(HttpStatus.CONFLICT, underTest.placeHold(ISBN, 2).getStatus());
+    }
+
+    @Test
+    public void cancelledOrExpiredReadyHoldPassesCopyOn(){
+        //Given
+        UUID loanId = loans.borrowBook(ISBN, 1).getBody().loanId();
+        List<UUID> holds = IntStream.rangeClosed(2, 4).mapToObj(customer -> underTest.placeHold(ISBN, customer).getBody().holdId()).toList();
+        loans.returnBook(loanId);
+        //When
+        underTest.cancelHold(holds.get(0));
+        HoldStatus afterCancel = underTest.getHold(holds.get(1)).getBody().status();
+        underTest.expireReadyHolds(Instant.now().plus(Duration.ofHours(2)));
+        //Then
+        assertEquals(HoldStatus.READY, afterCancel);
+        assertEquals(HttpStatus.NOT_FOUND, underTest.getHold(holds.get(1)).getStatus());
+        assertEquals(HoldStatus.READY, underTest.getHold(holds.get(2)).getBody().status());
+        assertEquals(0, inventory.available(ISBN));
+    }
+
+    @Test
+    public void lastHoldGoneReleasesCopy(){
+        //Given
+        UUID hold = underTest.placeHold(ISBN, 1).getBody().holdId();
+        //When
+        underTest.cancelHold(hold);
+        //Then
+        assertEquals(1, inventory.available(ISBN));
+    }
+
+    @Test
+    public void queuesAreRebuiltFromLedger(){
+        //Given
+        UUID loanId = loans.borrowBook(ISBN, 1).getBody().loanId();
+        IntStream.rangeClosed(2, 5).forEach(customer -> underTest.placeHold(ISBN, customer));
+        loans.returnBook(loanId);
+        underTest.cancelHold(underTest.getHoldsOfBook(ISBN).getBody().get(2).holdId());
+        List<HoldModel> before = underTest.getHoldsOfBook(ISBN).getBody();
+        //When
+        underTest.loadOpenHolds();
+        //Then
+        assertEquals(before, underTest.getHoldsOfBook(ISBN).getBody());
+        assertEquals(List.of(HoldStatus.READY, HoldStatus.WAITING, HoldStatus.WAITING),
+                before.stream().map(HoldModel::status).toList());
+    }
+
+    @Test
+    public void concurrentHoldsAndCancelsKeepQueueFair() throws Exception {
+        //Given
+        loans.borrowBook(ISBN, 0);
+        ExecutorService threads = Executors.newFixedThreadPool(16);
+        List<Future<?>> workers = new ArrayList<>();
+        //When
+        for (int t = 0; t < 16; t++){
+            int thread = t;
+            workers.add(threads.submit(() -> {
+                for (int i = 0; i < 100; i++){
+                    HoldModel hold = underTest.placeHold(ISBN, thread * 100 + i + 1).getBody();
+                    if (ThreadLocalRandom.current().nextBoolean()){
+                        underTest.cancelHold(hold.holdId());
+                    }
+                }
+            }));
+        }
+        for (Future<?> worker : workers){
+            worker.get();
+        }
+        threads.shutdown();
+        //Then
+        List<HoldModel> queue = underTest.getHoldsOfBook(ISBN).getBody();
+        assertEquals(IntStream.rangeClosed(1, queue.size()).boxed().toList(), queue.stream().map(HoldModel::position).toList());
+        for (int i = 1; i < queue.size(); i++){
+            assertFalse(queue.get(i).placedAt().isBefore(queue.get(i - 1).placedAt()));
+        }
+        underTest.loadOpenHolds();
+        assertEquals(queue, underTest.getHoldsOfBook(ISBN).getBody());
+    }
+
+}
@@ -0,0 +1,153 @@
+package me.widua.borrowOperationMicroservice.service;
+
+import me.widua.borrowOperationMicroservice.models.LoanModel;
+import me.widua.borrowOperationMicroservice.models.ResponseModel;
+import me.widua.borrowOperationMicroservice.overdue.OverdueScheduler;
+import me.widua.borrowOperationMicroservice.repositories.LoanEventRepository;
+import me.widua.borrowOperationMicroservice.support.InMemoryBookInventory;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.http.HttpStatus;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.junit.jupiter.SpringExtension;
+
+import java.util.List;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@ExtendWith(SpringExtension.class)
+@ActiveProfiles("test")
+@SpringBootTest(properties = "borrow.loans.max-per-customer=2")
+@Import(InMemoryBookInventory.Configuration.class)
+class LoanServiceImplTest {
+    private static final String ISBN = "9785006001206";
+    private static final String OTHER_ISBN = "9788375780635";
+    private static final String THIRD_ISBN = "9780140449136";
+
+    @Autowired
+    private LoanServiceImpl service ;
+    @Autowired
+    private LoanEventRepository repository ;
+    @Autowired
+    private InMemoryBookInventory inventory ;
+    @Autowired
+    private OverdueScheduler overdue ;
+
+    @BeforeEach
+    public void setStock(){
+        inventory.stock(ISBN, 1);
+        inventory.stock(OTHER_ISBN, 5);
+        inventory.stock(THIRD_ISBN, 5);
+    }
+
+    @AfterEach
+    public void clearDb(){
+        repository.deleteAll();
+        service.loadActiveLoans();
+        inventory.clear();
+    }
+
+    @Test
+    public void borrowTakesCopyAndRecordsLoan(){
+        //When
+        ResponseModel<LoanModel> response = service.borrowBook("978-5-0060-0120-6", 1);
+        //Then
+        assertEquals(HttpStatus.CREATED, response.getStatus());
+        assertEquals(ISBN, response.getBody().isbn());
+        assertEquals(0, inventory.available(ISBN));
+        assertEquals(List.of(response.getBody()), service.getLoansOfCustomer(1).getBody());
+        assertEquals(List.of(response.getBody()), service.getLoansOfBook(ISBN).getBody());
+        assertEquals(1, repository.count());
+        assertEquals(1, overdue.scheduledLoans());
+    }
+
+    @Test
+    public void lastCopyGoesToOneCustomer(){
+        //Given
+        service.borrowBook(ISBN, 1);
+        //When
+        ResponseModel<LoanModel> response = service.borrowBook(ISBN, 2);
+        //Then
+        assertEquals(HttpStatus.CONFLICT, response.getStatus());
+        assertTrue(service.getLoansOfCustomer(2).getBody().isEmpty());
+    }
+
+    @Test
+    public void customerLimitsAreKept(){
+        //Given
+        service.borrowBook(OTHER_ISBN, 1);
+        //When
+        ResponseModel<LoanModel> sameBook = service.borrowBook(OTHER_ISBN, 1);
+        service.borrowBook(THIRD_ISBN, 1);
+        ResponseModel<LoanModel> overLimit = service.borrowBook(ISBN, 1);
+        //Then
+        assertEquals(HttpStatus.CONFLICT, sameBook.getStatus());
+        assertEquals(HttpStatus.CONFLICT, overLimit.getStatus());
+        assertEquals(2, service.getLoansOfCustomer(1).getBody().size());
+        assertEquals(1, inventory.available(ISBN));
+    }
+
+    @Test
+    public void returnPutsCopyBack(){
+        //Given
+        UUID loanId = service.borrowBook(ISBN, 1).getBody().loanId();
+        //When
+        ResponseModel<LoanModel> returned = service.returnBook(loanId);
+        ResponseModel<LoanModel> again = service.returnBook(loanId);
+        //Then
+        assertEquals(HttpStatus.OK, returned.getStatus());
+        assertEquals(HttpStatus.NOT_FOUND, again.getStatus());
+        assertEquals(1, inventory.available(ISBN));
+        assertTrue(service.getLoansOfBook(ISBN).getBody().isEmpty());
+        assertEquals(2, repository.count());
+        assertEquals(0, overdue.scheduledLoans());
+    }
+
+    @Test
+    public void viewsAreRebuiltFromLedger(){
+        //Given
+        LoanModel kept = service.borrowBook(ISBN, 1).getBody();
+        service.returnBook(service.borrowBook(OTHER_ISBN, 1).getBody().loanId());
+        //When
+        service.loadActiveLoans();
+        //Then
+        assertEquals(List.of(kept.loanId()), service.getLoansOfCustomer(1).getBody().stream().map(LoanModel::loanId).toList());
+        assertTrue(service.getLoansOfBook(OTHER_ISBN).getBody().isEmpty());
+    }
+
+    @Test
+    public void isbn10AndIsbn13ShareLoans(){
+        //Given
+        LoanModel loan = service.borrowBook("0-14-044913-2", 1).getBody();
+        //When
+        ResponseModel<LoanModel> again = service.borrowBook(THIRD_ISBN, 1);
+        //Then
+        assertEquals(THIRD_ISBN, loan.isbn());
+        assertEquals(HttpStatus.CONFLICT, again.getStatus());
+        assertEquals(List.of(loan), service.getLoansOfBook("014044913-2").getBody());
+    }
+
+    @Test
+    public void badChecksumIsBadRequest(){
+        //When
+        ResponseModel<LoanModel> response = service.borrowBook("9780140449137", 1);
+        //Then
+        assertEquals(HttpStatus.BAD_REQUEST, response.getStatus());
+        assertEquals(5, inventory.available(THIRD_ISBN));
+    }
+
+    @Test
+    public void invalidRequestIsBadRequest(){
+        //When
+        ResponseModel<LoanModel> response = service.borrowBook(" ", 1);
+        //Then
+        assertEquals(HttpStatus.BAD_REQUEST, response.getStatus());
+    }
+
+}
@@ -0,0 +1,136 @@
+package me.widua.borrowOperationMicroservice.service;
+
+import lombok.extern.slf4j.Slf4j;
+import me.widua.borrowOperationMicroservice.models.LoanModel;
+import me.widua.borrowOperationMicroservice.models.ResponseModel;
+import me.widua.borrowOperationMicroservice.repositories.LoanEventRepository;
+import me.widua.borrowOperationMicroservice.support.InMemoryBookInventory;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.http.HttpStatus;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.junit.jupiter.SpringExtension;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/*
+ * Opening hour: many threads borrowing and returning a few hot books. Afterwards the views, the stock and the ledger
+ * have to agree.
+ */
+@Slf4j
+@Tag("stress")
+@ExtendWith(SpringExtension.class)
+@ActiveProfiles("test")
+@SpringBootTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:borrowStressTest",
+        "borrow.loans.max-per-customer=3"
+})
+@Import(InMemoryBookInventory.Configuration.class)
+class LoanServiceStressTest {
+    private static final int THREADS = 16;
+    private static final int OPERATIONS_PER_THREAD = 500;
+    private static final int BOOKS = 20;
+    private static final int COPIES = 4;
+    private static final int CUSTOMERS = 100;
+
+    @Autowired
+    private LoanServiceImpl service ;
+    @Autowired
+    private LoanEventRepository repository ;
+    @Autowired
+    private InMemoryBookInventory inventory ;
+
+    @AfterEach
+    public void clearDb(){
+        repository.deleteAll();
+        service.loadActiveLoans();
+        inventory.clear();
+    }
+
+    @Test
+    public void concurrentBorrowsAndReturnsKeepInvariants() throws Exception {
+        //Given
+        List<String> isbns = new ArrayList<>();
+        for (int i = 0; i < BOOKS; i++){
+            isbns.add(isbn(i));
+            inventory.stock(isbns.get(i), COPIES);
+        }
+        Map<HttpStatus, AtomicInteger> outcomes = new ConcurrentHashMap<>();
+        ExecutorService threads = Executors.newFixedThreadPool(THREADS);
+        //When
+        long start = System.nanoTime();
+        List<Future<?>> workers = new ArrayList<>();
+        for (int t = 0; t < THREADS; t++){
+            workers.add(threads.submit(() -> {
+                ThreadLocalRandom random = ThreadLocalRandom.current();
+                for (int i = 0; i < OPERATIONS_PER_THREAD; i++){
+                    int customer = random.nextInt(CUSTOMERS);
+                    List<LoanModel> loans = service.getLoansOfCustomer(customer).getBody();
+                    ResponseModel<LoanModel> response = !loans.isEmpty() && random.nextBoolean()
+                            ? service.returnBook(loans.get(random.nextInt(loans.size())).loanId())
+                            // Half of the borrows go to the two hottest books
+                            : service.borrowBook(isbns.get(random.nextBoolean() ? random.nextInt(2) : random.nextInt(BOOKS)), customer);
+                    outcomes.computeIfAbsent(response.getStatus(), status -> new AtomicInteger()).incrementAndGet();
+                }
+            }));
+        }
+        for (Future<?> worker : workers){
+            worker.get();
+        }
+        double seconds = (System.nanoTime() - start) / 1e9;
+        threads.shutdown();
+        //Then
+        log.info("{} operations in {}s ({}/s): {}", THREADS * OPERATIONS_PER_THREAD, String.format("%.2f", seconds),
+                String.format("%.0f", THREADS * OPERATIONS_PER_THREAD / seconds), outcomes);
+        assertFalse(outcomes.containsKey(HttpStatus.SERVICE_UNAVAILABLE));
+        int created = outcomes.getOrDefault(HttpStatus.CREATED, new AtomicInteger()).get();
+        int returned = outcomes.getOrDefault(HttpStatus.OK, new AtomicInteger()).get();
+        assertEquals(created + returned, repository.count());
+        int active = 0;
+        for (String isbn : isbns){
+            int onLoan = service.getLoansOfBook(isbn).getBody().size();
+            assertTrue(onLoan <= COPIES);
+            assertEquals(COPIES - inventory.available(isbn), onLoan);
+            active += onLoan;
+        }
+        assertEquals(created - returned, active);
+        Map<Integer, List<LoanModel>> before = new ConcurrentHashMap<>();
+        for (int customer = 0; customer < CUSTOMERS; customer++){
+            List<LoanModel> loans = service.getLoansOfCustomer(customer).getBody();
+            assertTrue(loans.size() <= 3);
+            assertEquals(loans.size(), new HashSet<>(loans.stream().map(LoanModel::isbn).toList()).size());
+            before.put(customer, loans);
+        }
+        service.loadActiveLoans();
+        for (int customer = 0; customer < CUSTOMERS; customer++){
+            assertEquals(new HashSet<>(before.get(customer)), new HashSet<>(service.getLoansOfCustomer(customer).getBody()));
+        }
+    }
+
+    // 978-0-00-000000-c style numbers with a valid check digit
+    private static String isbn(int number){
+        String digits = String.format("978000000%03d", number);
+        int sum = 0;
+        for (int i = 0; i < digits.length(); i++){
+            sum += (digits.charAt(i) - '0') * ((i & 1) == 0 ? 1 : 3);
+        }
+        return digits + (10 - sum % 10) % 10;
+    }
+
+}
@@ -0,0 +1,57 @@
+package me.widua.borrowOperationMicroservice.support;
+
+import me.widua.borrowOperationMicroservice.inventory.BookInventory;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Primary;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/*
+ * Stands in for the book service: copies per ISBN, taken and put back atomically. Tests @Import its Configuration.
+ */
+public class InMemoryBookInventory implements BookInventory {
+    private final Map<String, AtomicInteger> stock = new ConcurrentHashMap<>();
+
+    public void stock(String isbn, int copies){
+        stock.put(isbn, new AtomicInteger(copies));
+    }
+
+    public int available(String isbn){
+        return stock.get(isbn).get();
+    }
+
+    public void clear(){
+        stock.clear();
+    }
+
+    @Override
+    public boolean reserve(String isbn){
+        AtomicInteger copies = stock.get(isbn);
+        return copies != null && copies.getAndUpdate(left -> left > 0 ? left - 1 : left) > 0;
+    }
+
+    @Override
+    public void release(String isbn){
+        stock.get(isbn).incrementAndGet();
+    }
+
+    @Override
+    public boolean exists(String isbn){
+        return stock.containsKey(isbn);
+    }
+
+    @TestConfiguration
+    public static class Configuration {
+
+        @Bean
+        @Primary
+        public InMemoryBookInventory inMemoryBookInventory(){
+            return new InMemoryBookInventory();
+        }
+
+    }
+
+}
@@ -0,0 +1,92 @@
+package me.widua.customerMicroservice.api;
+
+import jakarta.servlet.http.HttpServletRequest;
+import me.widua.customerMicroservice.models.CustomerRequestModel;
+import me.widua.customerMicroservice.models.ResponseModel;
+import me.widua.customerMicroservice.service.CustomerServiceImpl;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.io.IOException;
+import java.util.UUID;
+
+@RestController
+@RequestMapping("/api/")
+public class CustomerApi {
+
+    private final CustomerServiceImpl manager ;
+
+    @Autowired
+    public CustomerApi(CustomerServiceImpl manager){
+        this.manager = manager;
+    }
+
+    @GetMapping("/customers")
+    public ResponseEntity<?> getCustomers(@RequestParam(required = false) Integer after,
+                                          @RequestParam(required = false) Integer size){
+        return toResponseEntity(manager.getCustomers(after, size));
+    }
+
+    @GetMapping("/customers/{id}")
+    public ResponseEntity<?> getCustomer(@PathVariable Integer id){
+        return toResponseEntity(manager.getCustomer(id));
+    }
+
+    @GetMapping("/customers/cards/{cardNumber}")
+    public ResponseEntity<?> getCustomerByCardNumber(@PathVariable String cardNumber){
+        return toResponseEntity(manager.getCustomerByCardNumber(cardNumber));
+    }
+
+    @GetMapping("/customers/emails/{email}")
+    public ResponseEntity<?> getCustomerByEmail(@PathVariable String email){
+        return toResponseEntity(manager.getCustomerByEmail(email));
+    }
+
+    @PostMapping("/customers")
+    public ResponseEntity<?> addCustomer(@RequestBody CustomerRequestModel request){
+        return toResponseEntity(manager.addCustomer(request));
+    }
+
+    /*
+     * The body is read straight from the request stream, a text/csv or application/x-ndjson file of any size is
+     * never buffered as a whole.
+     */
+    @PostMapping("/customers/imports")
+    public ResponseEntity<?> importCustomers(HttpServletRequest request) throws IOException {
+        return toResponseEntity(manager.importCustomers(request.getInputStream(), request.getContentType()));
+    }
+
+    @GetMapping("/customers/imports")
+    public ResponseEntity<?> getImports(){
+        return toResponseEntity(manager.getImports());
+    }
+
+    @GetMapping("/customers/imports/{importId}")
+    public ResponseEntity<?> getImport(@PathVariable UUID importId){
+        return toResponseEntity(manager.getImport(importId));
+    }
+
+    static ResponseEntity<?> toResponseEntity(ResponseModel<?> response){
+        // A response without a body answers with its message
+        Object body = response.getBody() != null ? response.getBody() : response.getMessage();
+        if (response.getStatus().equals(HttpStatus.OK)){
+            return ResponseEntity.ok(body);
+        }
+        if (response.getStatus().equals(HttpStatus.CREATED)
+                || response.getStatus().equals(HttpStatus.BAD_REQUEST)
+                || response.getStatus().equals(HttpStatus.CONFLICT)
+                || response.getStatus().equals(HttpStatus.UNSUPPORTED_MEDIA_TYPE)){
+            return ResponseEntity.status(response.getStatus()).body(body);
+        }
+        return ResponseEntity.notFound().build();
+    }
+
+}
@@ -0,0 +1,111 @@
+package me.widua.customerMicroservice.imports;
+
+import me.widua.customerMicroservice.models.CustomerRequestModel;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+
+/*
+ * RFC 4180 style CSV: a header naming the columns (cardNumber, firstName, lastName, email, in any order and case,
+ * other columns are ignored), fields optionally quoted with "" for a quote inside. Quoted fields can't span lines,
+ * such a row is rejected. Blank lines are skipped.
+ */
+final class CsvRowReader implements CustomerRowReader {
+    private static final String[] COLUMNS = {"cardnumber", "firstname", "lastname", "email"};
+
+    private final BufferedReader reader ;
+    // Position of each of COLUMNS in a row
+    private final int[] positions = new int[COLUMNS.length];
+    private long line ;
+
+    CsvRowReader(BufferedReader reader) throws IOException {
+        this.reader = reader;
+        String header = reader.readLine();
+        line = 1;
+        if (header == null){
+            throw new IllegalArgumentException("The file is empty, a header is required!");
+        }
+        // Spreadsheet exports often start with a byte order mark
+        if (header.startsWith("\uFEFF")){
+            header = header.substring(1);
+        }
+        List<String> names = split(header);
+        if (names == null){
+            throw new IllegalArgumentException("The header is not valid CSV!");
+        }
+        for (int column = 0; column < COLUMNS.length; column++){
+            positions[column] = -1;
+            for (int i = 0; i < names.size(); i++){
+                if (names.get(i).trim().toLowerCase(Locale.ROOT).equals(COLUMNS[column])){
+                    positions[column] = i;
+                }
+            }
+            if (positions[column] < 0){
+                throw new IllegalArgumentException("The header needs the columns cardNumber, firstName, lastName and email!");
+            }
+        }
+    }
+
+    @Override
+    public CustomerRow next() throws IOException {
+        String text;
+        do {
+            text = reader.readLine();
+            if (text == null){
+                return null;
+            }
+            line++;
+        } while (text.isBlank());
+        List<String> fields = split(text);
+        if (fields == null){
+            return CustomerRow.invalid(line, "Row has an unterminated quote!");
+        }
+        return CustomerRow.parsed(line, new CustomerRequestModel(
+                field(fields, 0), field(fields, 1), field(fields, 2), field(fields, 3)));
+    }
+
+    @Override
+    public void close() throws IOException {
+        reader.close();
+    }
+
+    private String field(List<String> fields, int column){
+        return positions[column] < fields.size() ? fields.get(positions[column]) : null;
+    }
+
+    // The fields of one line, null when a quote isn't closed
+    static List<String> split(String text){
+        List<String> fields = new ArrayList<>();
+        StringBuilder field = new StringBuilder();
+        boolean quoted = false;
+        for (int i = 0; i < text.length(); i++){
+            char c = text.charAt(i);
+            if (quoted){
+                if (c == '"' && i + 1 < text.length() && text.charAt(i + 1) == '"'){
+                    field.append('"');
+                    i++;
+                } else if (c == '"'){
+                    quoted = false;
+                } else {
+                    field.append(c);
+                }
+            } else if (c == '"'){
+                quoted = true;
+            } else if (c == ','){
+                fields.add(field.toString());
+                field.setLength(0);
+            } else {
+                field.append(c);
+            }
+        }
+        if (quoted){
+            return null;
+        }
+        fields.add(field.toString());
+        return fields;
+    }
+
+}
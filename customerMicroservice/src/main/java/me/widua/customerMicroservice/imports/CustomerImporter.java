@@ -0,0 +1,193 @@
+package me.widua.customerMicroservice.imports;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.persistence.EntityManager;
+import lombok.extern.slf4j.Slf4j;
+import me.widua.customerMicroservice.models.CustomerImportModel;
+import me.widua.customerMicroservice.models.CustomerModel;
+import me.widua.customerMicroservice.models.types.ImportFormat;
+import me.widua.customerMicroservice.repositories.CustomerRepository;
+import me.widua.customerMicroservice.validation.CustomerValidator;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Collectors;
+
+/*
+ * Streams a CSV or NDJSON file of customers into the database. Rows are parsed and validated one at a time and
+ * written in chunks of customers.import.chunk-size, each chunk in its own transaction: two IN queries find the card
+ * numbers and emails already taken, the rest is inserted with JDBC batching and the persistence context is cleared.
+ * Memory stays at one chunk whatever the size of the file, and an import stopped halfway keeps the chunks already
+ * committed, so running the same file again imports what is missing and rejects the rest as duplicates.
+ *
+ * Invalid and duplicate rows are rejected one by one, the others are imported. Progress of running imports and the
+ * outcome of the last KEPT_IMPORTS are available by import id.
+ */
+@Slf4j
+@Component
+public class CustomerImporter {
+    private static final int KEPT_IMPORTS = 20;
+
+    private final CustomerRepository repository ;
+    private final CustomerValidator validator ;
+    private final ObjectMapper mapper ;
+    private final EntityManager entityManager ;
+    private final TransactionTemplate transactions ;
+    private final int chunkSize ;
+    private final Clock clock = Clock.systemUTC();
+    private final Map<UUID, ImportProgress> imports = new ConcurrentHashMap<>();
+    private final Deque<UUID> finished = new ArrayDeque<>();
+
+    @Autowired
+    public CustomerImporter(CustomerRepository repository,
+                            CustomerValidator validator,
+                            ObjectMapper mapper,
+                            EntityManager entityManager,
+                            PlatformTransactionManager transactionManager,
+                            @Value("${customers.import.chunk-size:1000}") int chunkSize){
+        this.repository = repository;
+        this.validator = validator;
+        this.mapper = mapper;
+        this.entityManager = entityManager;
+        this.transactions = new TransactionTemplate(transactionManager);
+        this.chunkSize = chunkSize;
+    }
+
+    /*
+     * Runs the import on the calling thread and returns its outcome, other threads can follow it with getImport.
+     */
+    public CustomerImportModel importCustomers(InputStream input, ImportFormat format){
+        ImportProgress progress = new ImportProgress(UUID.randomUUID(), format, clock.instant());
+        imports.put(progress.importId(), progress);
+        log.info("Import {} of {} customers started", progress.importId(), format);
+        try (CustomerRowReader reader = CustomerRowReader.open(format, input, mapper)){
+            List<PendingCustomer> chunk = new ArrayList<>(chunkSize);
+            CustomerRow row;
+            while ((row = reader.next()) != null){
+                progress.read();
+                PendingCustomer pending = check(row, progress);
+                if (pending != null){
+                    chunk.add(pending);
+                }
+                if (chunk.size() == chunkSize){
+                    write(chunk, progress);
+                    chunk.clear();
+                }
+            }
+            write(chunk, progress);
+            progress.complete(clock.instant());
+        } catch (IOException | UncheckedIOException | IllegalArgumentException e) {
+            progress.fail(e.getMessage(), clock.instant());
+        } catch (RuntimeException e) {
+            log.error("Import {} failed", progress.importId(), e);
+            progress.fail("Customers could not be written, try again later!", clock.instant());
+        }
+        finish(progress);
+        CustomerImportModel result = progress.toModel();
+        log.info("Import {} {}: {} rows read, {} imported, {} rejected in {}", result.importId(), result.status(),
+                result.rowsRead(), result.imported(), result.rejected(), Duration.between(result.startedAt(), result.finishedAt()));
+        return result;
+    }
+
+    public Optional<CustomerImportModel> getImport(UUID importId){
+        ImportProgress progress = imports.get(importId);
+        return progress != null ? Optional.of(progress.toModel()) : Optional.empty();
+    }
+
+    public List<CustomerImportModel> getImports(){
+        return imports.values().stream().map(ImportProgress::toModel).toList();
+    }
+
+    private PendingCustomer check(CustomerRow row, ImportProgress progress){
+        if (row.error() != null){
+            progress.reject(row.line(), row.error());
+            return null;
+        }
+        // Microseconds, as stored
+        CustomerModel customer = validator.toCustomer(row.customer(), clock.instant().truncatedTo(ChronoUnit.MICROS));
+        String error = validator.validate(customer);
+        if (error != null){
+            progress.reject(row.line(), error);
+            return null;
+        }
+        return new PendingCustomer(row.line(), customer);
+    }
+
+    private void write(List<PendingCustomer> chunk, ImportProgress progress){
+        if (chunk.isEmpty()){
+            return;
+        }
+        List<PendingCustomer> accepted = withoutDuplicates(chunk, progress);
+        try {
+            insert(accepted);
+        } catch (DataIntegrityViolationException e) {
+            // Someone else took a value between the check and the insert, checking again finds it
+            accepted.forEach(pending -> pending.customer().setId(null));
+            accepted = withoutDuplicates(accepted, progress);
+            insert(accepted);
+        }
+        progress.imported(accepted.size());
+        log.debug("Import {}: {} customers written", progress.importId(), accepted.size());
+    }
+
+    private void insert(List<PendingCustomer> customers){
+        transactions.executeWithoutResult(status -> {
+            repository.saveAllAndFlush(customers.stream().map(PendingCustomer::customer).toList());
+            entityManager.clear();
+        });
+    }
+
+    // Rejects rows whose card number or email is stored already or used by an earlier row of the chunk
+    private List<PendingCustomer> withoutDuplicates(List<PendingCustomer> chunk, ImportProgress progress){
+        Set<String> takenCards = new HashSet<>(repository.findExistingCardNumbers(
+                chunk.stream().map(pending -> pending.customer().getCardNumber()).collect(Collectors.toSet())));
+        Set<String> takenEmails = new HashSet<>(repository.findExistingEmails(
+                chunk.stream().map(pending -> pending.customer().getEmail()).collect(Collectors.toSet())));
+        List<PendingCustomer> accepted = new ArrayList<>(chunk.size());
+        for (PendingCustomer pending : chunk){
+            CustomerModel customer = pending.customer();
+            if (takenCards.contains(customer.getCardNumber())){
+                progress.reject(pending.line(), String.format("Card number %s is already used!", customer.getCardNumber()));
+            } else if (takenEmails.contains(customer.getEmail())){
+                progress.reject(pending.line(), String.format("Email %s is already used!", customer.getEmail()));
+            } else {
+                takenCards.add(customer.getCardNumber());
+                takenEmails.add(customer.getEmail());
+                accepted.add(pending);
+            }
+        }
+        return accepted;
+    }
+
+    private synchronized void finish(ImportProgress progress){
+        finished.addLast(progress.importId());
+        while (finished.size() > KEPT_IMPORTS){
+            imports.remove(finished.removeFirst());
+        }
+    }
+
+    private record PendingCustomer(long line, CustomerModel customer) {
+    }
+
+}
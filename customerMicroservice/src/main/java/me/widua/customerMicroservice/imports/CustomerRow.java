@@ -0,0 +1,16 @@
+package me.widua.customerMicroservice.imports;
+
+import me.widua.customerMicroservice.models.CustomerRequestModel;
+
+// One row of an import, either parsed or with the reason it couldn't be
+record CustomerRow(long line, CustomerRequestModel customer, String error) {
+
+    static CustomerRow parsed(long line, CustomerRequestModel customer){
+        return new CustomerRow(line, customer, null);
+    }
+
+    static CustomerRow invalid(long line, String error){
+        return new CustomerRow(line, null, error);
+    }
+
+}
@@ -0,0 +1,31 @@
+package me.widua.customerMicroservice.imports;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import me.widua.customerMicroservice.models.types.ImportFormat;
+
+import java.io.BufferedReader;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+
+/*
+ * Reads an import one row at a time, never more than the current line is held. A row that can't be parsed comes
+ * back as an invalid CustomerRow, only a file that can't be read at all (e.g. a CSV without the required header)
+ * throws IllegalArgumentException.
+ */
+interface CustomerRowReader extends Closeable {
+
+    // Null at the end of the input
+    CustomerRow next() throws IOException;
+
+    static CustomerRowReader open(ImportFormat format, InputStream input, ObjectMapper mapper) throws IOException {
+        BufferedReader reader = new BufferedReader(new InputStreamReader(input, StandardCharsets.UTF_8));
+        return switch (format){
+            case CSV -> new CsvRowReader(reader);
+            case NDJSON -> new NdjsonRowReader(reader, mapper);
+        };
+    }
+
+}
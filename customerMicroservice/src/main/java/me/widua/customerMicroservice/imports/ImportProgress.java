@@ -0,0 +1,72 @@
+package me.widua.customerMicroservice.imports;
+
+import me.widua.customerMicroservice.models.CustomerImportErrorModel;
+import me.widua.customerMicroservice.models.CustomerImportModel;
+import me.widua.customerMicroservice.models.types.ImportFormat;
+import me.widua.customerMicroservice.models.types.ImportStatus;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+/*
+ * Counters of one running import. Updated by the importing thread, read by anyone asking for progress. Only the
+ * first MAX_ERRORS rejections are kept, so a file full of bad rows doesn't grow the heap.
+ */
+final class ImportProgress {
+    static final int MAX_ERRORS = 100;
+
+    private final UUID importId ;
+    private final ImportFormat format ;
+    private final Instant startedAt ;
+    private final List<CustomerImportErrorModel> errors = new ArrayList<>();
+    private ImportStatus status = ImportStatus.RUNNING;
+    private long rowsRead ;
+    private long imported ;
+    private long rejected ;
+    private String failure ;
+    private Instant finishedAt ;
+
+    ImportProgress(UUID importId, ImportFormat format, Instant startedAt){
+        this.importId = importId;
+        this.format = format;
+        this.startedAt = startedAt;
+    }
+
+    UUID importId(){
+        return importId;
+    }
+
+    synchronized void read(){
+        rowsRead++;
+    }
+
+    synchronized void imported(int rows){
+        imported += rows;
+    }
+
+    synchronized void reject(long line, String message){
+        rejected++;
+        if (errors.size() < MAX_ERRORS){
+            errors.add(new CustomerImportErrorModel(line, message));
+        }
+    }
+
+    synchronized void complete(Instant now){
+        status = ImportStatus.COMPLETED;
+        finishedAt = now;
+    }
+
+    synchronized void fail(String message, Instant now){
+        status = ImportStatus.FAILED;
+        failure = message;
+        finishedAt = now;
+    }
+
+    synchronized CustomerImportModel toModel(){
+        return new CustomerImportModel(importId, format, status, rowsRead, imported, rejected, List.copyOf(errors),
+                failure, startedAt, finishedAt);
+    }
+
+}
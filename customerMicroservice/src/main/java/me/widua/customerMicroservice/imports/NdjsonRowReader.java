@@ -0,0 +1,48 @@
+package me.widua.customerMicroservice.imports;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import me.widua.customerMicroservice.models.CustomerRequestModel;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+
+// One JSON object per line, blank lines are skipped
+final class NdjsonRowReader implements CustomerRowReader {
+    private final BufferedReader reader ;
+    private final ObjectMapper mapper ;
+    private long line ;
+
+    NdjsonRowReader(BufferedReader reader, ObjectMapper mapper){
+        this.reader = reader;
+        this.mapper = mapper;
+    }
+
+    @Override
+    public CustomerRow next() throws IOException {
+        String text;
+        do {
+            text = reader.readLine();
+            if (text == null){
+                return null;
+            }
+            line++;
+        } while (text.isBlank());
+        try {
+            // A null line binds to null instead of failing, arrays and scalars fail
+            CustomerRequestModel customer = mapper.readValue(text, CustomerRequestModel.class);
+            if (customer != null){
+                return CustomerRow.parsed(line, customer);
+            }
+        } catch (JsonProcessingException e) {
+            // Rejected below
+        }
+        return CustomerRow.invalid(line, "Line is not a customer JSON object!");
+    }
+
+    @Override
+    public void close() throws IOException {
+        reader.close();
+    }
+
+}
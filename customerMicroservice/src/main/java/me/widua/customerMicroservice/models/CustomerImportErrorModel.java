@@ -0,0 +1,5 @@
+package me.widua.customerMicroservice.models;
+
+// A rejected row, line counts from 1 and includes the CSV header
+public record CustomerImportErrorModel(long line, String message) {
+}
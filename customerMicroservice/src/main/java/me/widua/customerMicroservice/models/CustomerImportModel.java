@@ -0,0 +1,24 @@
+package me.widua.customerMicroservice.models;
+
+import me.widua.customerMicroservice.models.types.ImportFormat;
+import me.widua.customerMicroservice.models.types.ImportStatus;
+
+import java.time.Instant;
+import java.util.List;
+import java.util.UUID;
+
+/*
+ * Progress of an import: rows read so far, how many were imported and rejected, and the first rejections.
+ * failure says why a FAILED import stopped, the rows imported before stay.
+ */
+public record CustomerImportModel(UUID importId,
+                                  ImportFormat format,
+                                  ImportStatus status,
+                                  long rowsRead,
+                                  long imported,
+                                  long rejected,
+                                  List<CustomerImportErrorModel> errors,
+                                  String failure,
+                                  Instant startedAt,
+                                  Instant finishedAt) {
+}
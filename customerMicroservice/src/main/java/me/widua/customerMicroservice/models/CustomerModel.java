@@ -0,0 +1,72 @@
+package me.widua.customerMicroservice.models;
+
+import jakarta.persistence.*;
+import lombok.Getter;
+import lombok.Setter;
+
+import java.time.Instant;
+import java.util.Objects;
+
+/*
+ * A library patron. Card numbers and emails are unique and stored normalized (upper case card number, lower case
+ * email), both have a unique index, so lookups by either are a single index seek.
+ */
+@Entity
+@Getter
+@Setter
+@Table(
+        indexes = {
+                @Index(columnList = "cardNumber", unique = true),
+                @Index(columnList = "email", unique = true)
+        }
+)
+public class CustomerModel {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "customer_model_seq")
+    @SequenceGenerator(name = "customer_model_seq", sequenceName = "customer_model_seq", allocationSize = 50)
+    private Integer id ;
+    @Column(nullable = false, length = 32)
+    private String cardNumber ;
+    private String firstName ;
+    private String lastName ;
+    @Column(nullable = false, length = 254)
+    private String email ;
+    private Instant createdAt ;
+
+    public CustomerModel(String cardNumber, String firstName, String lastName, String email, Instant createdAt) {
+        this.cardNumber = cardNumber;
+        this.firstName = firstName;
+        this.lastName = lastName;
+        this.email = email;
+        this.createdAt = createdAt;
+    }
+
+    public CustomerModel() {
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (o == null || getClass() != o.getClass()) return false;
+        CustomerModel customerModel = (CustomerModel) o;
+        return cardNumber.equals(customerModel.cardNumber);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(getCardNumber());
+    }
+
+    @Override
+    public String toString() {
+        return "CustomerModel{" +
+                "id=" + id +
+                ", cardNumber='" + cardNumber + '\'' +
+                ", firstName='" + firstName + '\'' +
+                ", lastName='" + lastName + '\'' +
+                ", email='" + email + '\'' +
+                ", createdAt=" + createdAt +
+                '}';
+    }
+}
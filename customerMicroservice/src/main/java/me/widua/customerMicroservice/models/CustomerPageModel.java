@@ -0,0 +1,10 @@
+package me.widua.customerMicroservice.models;
+
+import java.util.List;
+
+/*
+ * One keyset page of customers, shaped like the book service's BookPageModel. nextCursor is the id to pass as "after"
+ * to get the next page, it is null when there is nothing more to read.
+ */
+public record CustomerPageModel(List<CustomerModel> customers, Integer nextCursor) {
+}
@@ -0,0 +1,7 @@
+package me.widua.customerMicroservice.models;
+
+/*
+ * A customer as clients send it, to POST /api/customers and as one line or row of an import.
+ */
+public record CustomerRequestModel(String cardNumber, String firstName, String lastName, String email) {
+}
@@ -0,0 +1,32 @@
+package me.widua.customerMicroservice.models.types;
+
+import java.util.Locale;
+
+public enum ImportFormat {
+    CSV("text/csv"),
+    NDJSON("application/x-ndjson");
+
+    private final String mediaType ;
+
+    ImportFormat(String mediaType){
+        this.mediaType = mediaType;
+    }
+
+    public String mediaType(){
+        return mediaType;
+    }
+
+    // The format of a Content-Type header, parameters like charset are ignored. Null for anything else
+    public static ImportFormat fromContentType(String contentType){
+        if (contentType == null){
+            return null;
+        }
+        String type = contentType.split(";", 2)[0].trim().toLowerCase(Locale.ROOT);
+        for (ImportFormat format : values()){
+            if (format.mediaType.equals(type)){
+                return format;
+            }
+        }
+        return null;
+    }
+}
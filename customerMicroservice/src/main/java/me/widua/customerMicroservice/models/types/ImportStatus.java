@@ -0,0 +1,7 @@
+package me.widua.customerMicroservice.models.types;
+
+public enum ImportStatus {
+    RUNNING,
+    COMPLETED,
+    FAILED
+}
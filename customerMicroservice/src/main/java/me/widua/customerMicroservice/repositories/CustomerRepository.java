@@ -0,0 +1,28 @@
+package me.widua.customerMicroservice.repositories;
+
+import me.widua.customerMicroservice.models.CustomerModel;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+
+@Repository
+public interface CustomerRepository extends JpaRepository<CustomerModel, Integer> {
+    Optional<CustomerModel> findByCardNumber(String cardNumber);
+    Optional<CustomerModel> findByEmail(String email);
+
+    // Keyset page: rows strictly after the given id, ordered by id
+    List<CustomerModel> findByIdGreaterThanOrderByIdAsc(Integer id, Pageable pageable);
+
+    // Which of the values are taken, one IN query over the unique index per import chunk
+    @Query("select c.cardNumber from CustomerModel c where c.cardNumber in :cardNumbers")
+    List<String> findExistingCardNumbers(@Param("cardNumbers") Collection<String> cardNumbers);
+
+    @Query("select c.email from CustomerModel c where c.email in :emails")
+    List<String> findExistingEmails(@Param("emails") Collection<String> emails);
+}
@@ -0,0 +1,24 @@
+package me.widua.customerMicroservice.service;
+
+import me.widua.customerMicroservice.models.CustomerImportModel;
+import me.widua.customerMicroservice.models.CustomerModel;
+import me.widua.customerMicroservice.models.CustomerPageModel;
+import me.widua.customerMicroservice.models.CustomerRequestModel;
+import me.widua.customerMicroservice.models.ResponseModel;
+
+import java.io.InputStream;
+import java.net.URI;
+import java.util.List;
+import java.util.UUID;
+
+public interface CustomerService {
+
+    ResponseModel<CustomerPageModel> getCustomers(Integer after, Integer size);
+    ResponseModel<CustomerModel> getCustomer(Integer id);
+    ResponseModel<CustomerModel> getCustomerByCardNumber(String cardNumber);
+    ResponseModel<CustomerModel> getCustomerByEmail(String email);
+    ResponseModel<URI> addCustomer(CustomerRequestModel request);
+    ResponseModel<CustomerImportModel> importCustomers(InputStream input, String contentType);
+    ResponseModel<List<CustomerImportModel>> getImports();
+    ResponseModel<CustomerImportModel> getImport(UUID importId);
+}
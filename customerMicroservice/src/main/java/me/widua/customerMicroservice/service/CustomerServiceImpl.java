@@ -0,0 +1,129 @@
+package me.widua.customerMicroservice.service;
+
+import me.widua.customerMicroservice.imports.CustomerImporter;
+import me.widua.customerMicroservice.models.CustomerImportModel;
+import me.widua.customerMicroservice.models.CustomerModel;
+import me.widua.customerMicroservice.models.CustomerPageModel;
+import me.widua.customerMicroservice.models.CustomerRequestModel;
+import me.widua.customerMicroservice.models.ResponseModel;
+import me.widua.customerMicroservice.models.types.ImportFormat;
+import me.widua.customerMicroservice.models.types.ImportStatus;
+import me.widua.customerMicroservice.repositories.CustomerRepository;
+import me.widua.customerMicroservice.validation.CustomerValidator;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Service;
+
+import java.io.InputStream;
+import java.net.URI;
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.List;
+import java.util.Locale;
+import java.util.Optional;
+import java.util.UUID;
+
+@Service
+public class CustomerServiceImpl implements CustomerService {
+    private final CustomerRepository repository ;
+    private final CustomerValidator validator ;
+    private final CustomerImporter importer ;
+    private final int defaultPageSize ;
+    private final int maxPageSize ;
+
+    @Autowired
+    public CustomerServiceImpl(CustomerRepository repository,
+                               CustomerValidator validator,
+                               CustomerImporter importer,
+                               @Value("${customers.pagination.default-size:50}") int defaultPageSize,
+                               @Value("${customers.pagination.max-size:500}") int maxPageSize){
+        this.repository = repository;
+        this.validator = validator;
+        this.importer = importer;
+        this.defaultPageSize = defaultPageSize;
+        this.maxPageSize = maxPageSize;
+    }
+
+    @Override
+    public ResponseModel<CustomerPageModel> getCustomers(Integer after, Integer size){
+        if (size != null && size < 1){
+            return ResponseModel.message(HttpStatus.BAD_REQUEST, "Page size must be greater than 0!");
+        }
+        int pageSize = size == null ? defaultPageSize : Math.min(size, maxPageSize);
+        // One row more than requested tells whether there is a next page without a count query
+        List<CustomerModel> customers = repository.findByIdGreaterThanOrderByIdAsc(after == null ? 0 : after, PageRequest.of(0, pageSize + 1));
+        Integer nextCursor = null;
+        if (customers.size() > pageSize){
+            customers = customers.subList(0, pageSize);
+            nextCursor = customers.get(pageSize - 1).getId();
+        }
+        return ResponseModel.ok(new CustomerPageModel(customers, nextCursor));
+    }
+
+    @Override
+    public ResponseModel<CustomerModel> getCustomer(Integer id){
+        return found(repository.findById(id), String.format("Customer with id: %s does not exist!", id));
+    }
+
+    @Override
+    public ResponseModel<CustomerModel> getCustomerByCardNumber(String cardNumber){
+        String normalized = cardNumber.trim().toUpperCase(Locale.ROOT);
+        return found(repository.findByCardNumber(normalized), String.format("Customer with card number: %s does not exist!", normalized));
+    }
+
+    @Override
+    public ResponseModel<CustomerModel> getCustomerByEmail(String email){
+        String normalized = email.trim().toLowerCase(Locale.ROOT);
+        return found(repository.findByEmail(normalized), String.format("Customer with email: %s does not exist!", normalized));
+    }
+
+    @Override
+    public ResponseModel<URI> addCustomer(CustomerRequestModel request){
+        CustomerModel customer = validator.toCustomer(request, Instant.now().truncatedTo(ChronoUnit.MICROS));
+        String error = validator.validate(customer);
+        if (error != null){
+            return ResponseModel.message(HttpStatus.BAD_REQUEST, error);
+        }
+        if (repository.findByCardNumber(customer.getCardNumber()).isPresent()){
+            return ResponseModel.message(HttpStatus.CONFLICT, String.format("Card number %s is already used!", customer.getCardNumber()));
+        }
+        if (repository.findByEmail(customer.getEmail()).isPresent()){
+            return ResponseModel.message(HttpStatus.CONFLICT, String.format("Email %s is already used!", customer.getEmail()));
+        }
+        try {
+            repository.saveAndFlush(customer);
+        } catch (DataIntegrityViolationException e) {
+            // Taken by a concurrent add or import after the checks, the unique indexes decide
+            return ResponseModel.message(HttpStatus.CONFLICT, "Card number or email is already used!");
+        }
+        return ResponseModel.of(HttpStatus.CREATED, URI.create(String.format("/api/customers/%s", customer.getId())));
+    }
+
+    @Override
+    public ResponseModel<CustomerImportModel> importCustomers(InputStream input, String contentType){
+        ImportFormat format = ImportFormat.fromContentType(contentType);
+        if (format == null){
+            return ResponseModel.message(HttpStatus.UNSUPPORTED_MEDIA_TYPE, "Imports are text/csv or application/x-ndjson!");
+        }
+        CustomerImportModel result = importer.importCustomers(input, format);
+        return ResponseModel.of(result.status() == ImportStatus.COMPLETED ? HttpStatus.OK : HttpStatus.BAD_REQUEST, result);
+    }
+
+    @Override
+    public ResponseModel<List<CustomerImportModel>> getImports(){
+        return ResponseModel.ok(importer.getImports());
+    }
+
+    @Override
+    public ResponseModel<CustomerImportModel> getImport(UUID importId){
+        return found(importer.getImport(importId), String.format("Import %s does not exist!", importId));
+    }
+
+    private static <T> ResponseModel<T> found(Optional<T> value, String message){
+        return value.map(ResponseModel::ok).orElseGet(() -> ResponseModel.message(HttpStatus.NOT_FOUND, message));
+    }
+
+}
@@ -0,0 +1,69 @@
+package me.widua.customerMicroservice.validation;
+
+import me.widua.customerMicroservice.models.CustomerModel;
+import me.widua.customerMicroservice.models.CustomerRequestModel;
+import org.springframework.stereotype.Component;
+
+import java.time.Instant;
+import java.util.Locale;
+import java.util.regex.Pattern;
+
+/*
+ * Normalizes and checks customers, for single adds and imports alike. Card numbers are upper cased letters, digits
+ * and hyphens, emails lower cased, so both compare exactly in their unique indexes.
+ */
+@Component
+public class CustomerValidator {
+
+    private static final Pattern CARD_NUMBER = Pattern.compile("[A-Z0-9-]{4,32}");
+    // Deliberately loose, one @ and a dot in the domain, the school's records are the source of truth
+    private static final Pattern EMAIL = Pattern.compile("[^@\\s]+@[^@\\s]+\\.[^@\\s]+");
+    private static final int MAX_EMAIL_LENGTH = 254;
+    private static final int MAX_NAME_LENGTH = 100;
+
+    public CustomerModel toCustomer(CustomerRequestModel request, Instant createdAt){
+        return new CustomerModel(
+                upper(request.cardNumber()),
+                trim(request.firstName()),
+                trim(request.lastName()),
+                lower(request.email()),
+                createdAt);
+    }
+
+    // Null when the customer is valid, what is wrong with it otherwise
+    public String validate(CustomerModel customer){
+        if (customer.getCardNumber() == null || !CARD_NUMBER.matcher(customer.getCardNumber()).matches()){
+            return String.format("Card number %s is not valid!", customer.getCardNumber());
+        }
+        if (customer.getEmail() == null || customer.getEmail().length() > MAX_EMAIL_LENGTH
+                || !EMAIL.matcher(customer.getEmail()).matches()){
+            return String.format("Email %s is not valid!", customer.getEmail());
+        }
+        if (customer.getFirstName() == null || customer.getLastName() == null){
+            return "First and last name are required!";
+        }
+        if (customer.getFirstName().length() > MAX_NAME_LENGTH || customer.getLastName().length() > MAX_NAME_LENGTH){
+            return String.format("Names can't be longer than %s characters!", MAX_NAME_LENGTH);
+        }
+        return null;
+    }
+
+    private static String trim(String value){
+        if (value == null){
+            return null;
+        }
+        String trimmed = value.trim();
+        return trimmed.isEmpty() ? null : trimmed;
+    }
+
+    private static String upper(String value){
+        String trimmed = trim(value);
+        return trimmed != null ? trimmed.toUpperCase(Locale.ROOT) : null;
+    }
+
+    private static String lower(String value){
+        String trimmed = trim(value);
+        return trimmed != null ? trimmed.toLowerCase(Locale.ROOT) : null;
+    }
+
+}
@@ -0,0 +1,147 @@
+package me.widua.customerMicroservice.api;
+
+import com.jayway.jsonpath.JsonPath;
+import me.widua.customerMicroservice.repositories.CustomerRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.junit.jupiter.SpringExtension;
+import org.springframework.test.web.servlet.MockMvc;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+@ExtendWith(SpringExtension.class)
+@ActiveProfiles("test")
+@SpringBootTest
+@AutoConfigureMockMvc
+class CustomerApiTest {
+
+    @Autowired
+    private MockMvc mvc ;
+    @Autowired
+    private CustomerRepository repository ;
+
+    @AfterEach
+    public void clearDb(){
+        repository.deleteAll();
+    }
+
+    @Test
+    public void addedCustomerIsFoundByCardNumberAndEmail() throws Exception {
+        //When
+        mvc.perform(post("/api/customers")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("""
+                                {"cardNumber": " ab-1234 ", "firstName": "Ada", "lastName": "Lovelace", "email": "Ada@Example.com"}
+                                """))
+                .andExpect(status().isCreated());
+        //Then
+        mvc.perform(get("/api/customers/cards/AB-1234"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.email").value("ada@example.com"));
+        mvc.perform(get("/api/customers/emails/ADA@example.com"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.cardNumber").value("AB-1234"));
+        mvc.perform(get("/api/customers/cards/XX-0000"))
+                .andExpect(status().isNotFound());
+    }
+
+    @Test
+    public void duplicateEmailIsConflict() throws Exception {
+        //Given
+        mvc.perform(post("/api/customers")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content("""
+                        {"cardNumber": "AB-1234", "firstName": "Ada", "lastName": "Lovelace", "email": "ada@example.com"}
+                        """));
+        //When
+        //Then
+        mvc.perform(post("/api/customers")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("""
+                                {"cardNumber": "AB-9999", "firstName": "Ada", "lastName": "King", "email": "ADA@example.com"}
+                                """))
+                .andExpect(status().isConflict());
+        assertEquals(1, repository.count());
+    }
+
+    @Test
+    public void invalidCustomerIsBadRequest() throws Exception {
+        //When
+        //Then
+        mvc.perform(post("/api/customers")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("""
+                                {"cardNumber": "AB-1234", "firstName": "Ada", "lastName": "Lovelace", "email": "not an email"}
+                                """))
+                .andExpect(status().isBadRequest());
+        assertEquals(0, repository.count());
+    }
+
+    @Test
+    public void csvImportIsReportedAndListed() throws Exception {
+        //When
+        mvc.perform(post("/api/customers/imports")
+                        .contentType("text/csv")
+                        .content("""
+                                cardNumber,firstName,lastName,email
+                                AB-0001,Ada,Lovelace,ada@example.com
+                                AB-0002,Alan,Turing,alan@example.com
+                                """))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.status").value("COMPLETED"))
+                .andExpect(jsonPath("$.imported").value(2));
+        //Then
+        mvc.perform(get("/api/customers").param("size", "1"))
+                .andExpect(jsonPath("$.customers.length()").value(1))
+                .andExpect(jsonPath("$.nextCursor").isNumber());
+        mvc.perform(get("/api/customers/imports"))
+                .andExpect(jsonPath("$[?(@.imported == 2)]").exists());
+    }
+
+    @Test
+    public void customersArePagedByCursor() throws Exception {
+        //Given
+        mvc.perform(post("/api/customers/imports")
+                .contentType("text/csv")
+                .content("""
+                        cardNumber,firstName,lastName,email
+                        AB-0001,Ada,Lovelace,ada@example.com
+                        AB-0002,Alan,Turing,alan@example.com
+                        AB-0003,Grace,Hopper,grace@example.com
+                        """));
+        //When
+        String page = mvc.perform(get("/api/customers").param("size", "2"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.customers.length()").value(2))
+                .andReturn().getResponse().getContentAsString();
+        //Then
+        mvc.perform(get("/api/customers").param("after", JsonPath.read(page, "$.nextCursor").toString()).param("size", "2"))
+                .andExpect(jsonPath("$.customers[0].cardNumber").value("AB-0003"))
+                .andExpect(jsonPath("$.nextCursor").doesNotExist());
+        mvc.perform(get("/api/customers").param("size", "100000"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.customers.length()").value(3));
+        mvc.perform(get("/api/customers").param("size", "0"))
+                .andExpect(status().isBadRequest());
+    }
+
+    @Test
+    public void importOfOtherTypeIsUnsupported() throws Exception {
+        //When
+        //Then
+        mvc.perform(post("/api/customers/imports")
+                        .contentType(MediaType.APPLICATION_XML)
+                        .content("<customers/>"))
+                .andExpect(status().isUnsupportedMediaType());
+    }
+
+}
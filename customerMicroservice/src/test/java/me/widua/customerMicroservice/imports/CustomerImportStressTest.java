@@ -0,0 +1,96 @@
+package me.widua.customerMicroservice.imports;
+
+import lombok.extern.slf4j.Slf4j;
+import me.widua.customerMicroservice.models.CustomerImportModel;
+import me.widua.customerMicroservice.models.types.ImportFormat;
+import me.widua.customerMicroservice.models.types.ImportStatus;
+import me.widua.customerMicroservice.repositories.CustomerRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.junit.jupiter.SpringExtension;
+
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/*
+ * A whole school district in one file. The rows are generated while the importer reads them, so neither side ever
+ * holds the file, and the progress has to be visible while the import runs.
+ */
+@Slf4j
+@Tag("stress")
+@ExtendWith(SpringExtension.class)
+@ActiveProfiles("test")
+@SpringBootTest(properties = "spring.datasource.url=jdbc:h2:mem:customerImportStressTest")
+class CustomerImportStressTest {
+    private static final int CUSTOMERS = 200_000;
+
+    @Autowired
+    private CustomerImporter importer ;
+    @Autowired
+    private CustomerRepository repository ;
+
+    @AfterEach
+    public void clearDb(){
+        repository.deleteAllInBatch();
+    }
+
+    @Test
+    public void largeCsvIsStreamedInChunks() throws Exception {
+        //Given
+        List<CustomerImportModel> snapshots = new CopyOnWriteArrayList<>();
+        CompletableFuture<CustomerImportModel> result = CompletableFuture.supplyAsync(
+                () -> importer.importCustomers(new GeneratedCsv(CUSTOMERS), ImportFormat.CSV));
+        //When
+        while (!result.isDone()){
+            importer.getImports().stream().filter(model -> model.status() == ImportStatus.RUNNING).forEach(snapshots::add);
+            Thread.sleep(50);
+        }
+        //Then
+        CustomerImportModel imported = result.get();
+        log.info("{} customers imported in {}", imported.imported(),
+                Duration.between(imported.startedAt(), imported.finishedAt()));
+        assertEquals(ImportStatus.COMPLETED, imported.status());
+        assertEquals(CUSTOMERS, imported.imported());
+        assertEquals(0, imported.rejected());
+        assertEquals(CUSTOMERS, repository.count());
+        assertTrue(snapshots.stream().anyMatch(model -> model.imported() > 0 && model.imported() < CUSTOMERS));
+    }
+
+    // Yields a CSV of generated customers, one line at a time
+    private static final class GeneratedCsv extends InputStream {
+        private final int rows ;
+        private int row = -1;
+        private byte[] line = "cardNumber,firstName,lastName,email\n".getBytes(StandardCharsets.UTF_8);
+        private int position ;
+
+        private GeneratedCsv(int rows){
+            this.rows = rows;
+        }
+
+        @Override
+        public int read(){
+            if (position == line.length){
+                if (row + 1 == rows){
+                    return -1;
+                }
+                row++;
+                line = String.format("C-%08d,First%d,Last%d,customer%d@school.example%n", row, row, row, row)
+                        .getBytes(StandardCharsets.UTF_8);
+                position = 0;
+            }
+            return line[position++];
+        }
+    }
+
+}
@@ -0,0 +1,138 @@
+package me.widua.customerMicroservice.imports;
+
+import me.widua.customerMicroservice.models.CustomerImportErrorModel;
+import me.widua.customerMicroservice.models.CustomerImportModel;
+import me.widua.customerMicroservice.models.CustomerModel;
+import me.widua.customerMicroservice.models.types.ImportFormat;
+import me.widua.customerMicroservice.models.types.ImportStatus;
+import me.widua.customerMicroservice.repositories.CustomerRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.junit.jupiter.SpringExtension;
+
+import java.io.ByteArrayInputStream;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+// Chunks of four rows, so even small files cross chunk boundaries
+@ExtendWith(SpringExtension.class)
+@ActiveProfiles("test")
+@SpringBootTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:customerImportTest",
+        "customers.import.chunk-size=4"
+})
+class CustomerImporterTest {
+
+    @Autowired
+    private CustomerImporter underTest ;
+    @Autowired
+    private CustomerRepository repository ;
+
+    @AfterEach
+    public void clearDb(){
+        repository.deleteAll();
+    }
+
+    @Test
+    public void csvRowsAreImportedAndBadRowsRejected(){
+        //Given
+        repository.save(new CustomerModel("AB-0007", "Grace", "Hopper", "grace@example.com", Instant.now()));
+        InputStream csv = input("""
+                email,lastName,firstName,cardNumber,class
+                ada@example.com,Lovelace,Ada,ab-0001,1A
+                "alan@example.com","Turing, ""Alan""\",Alan,AB-0002,1A
+
+                not an email,Hamilton,Margaret,AB-0003,1B
+                alan@example.com,Shannon,Claude,AB-0004,1B
+                barbara@example.com,Liskov,Barbara,AB-0005,1B
+                edsger@example.com,Dijkstra,Edsger,AB-0005,2A
+                gracie@example.com,Hopper,Gracie,AB-0007,2A
+                "donald@example.com,Knuth,Donald,AB-0008,2A
+                """);
+        //When
+        CustomerImportModel result = underTest.importCustomers(csv, ImportFormat.CSV);
+        //Then
+        assertEquals(ImportStatus.COMPLETED, result.status());
+        assertEquals(8, result.rowsRead());
+        assertEquals(3, result.imported());
+        assertEquals(5, result.rejected());
+        assertEquals(List.of(5L, 6L, 8L, 9L, 10L), result.errors().stream().map(CustomerImportErrorModel::line).sorted().toList());
+        assertEquals("Turing, \"Alan\"", repository.findByCardNumber("AB-0002").orElseThrow().getLastName());
+        assertEquals("ada@example.com", repository.findByCardNumber("AB-0001").orElseThrow().getEmail());
+        assertEquals(4, repository.count());
+    }
+
+    @Test
+    public void ndjsonRowsAreImported(){
+        //Given
+        InputStream ndjson = input("""
+                {"cardNumber": "AB-0001", "firstName": "Ada", "lastName": "Lovelace", "email": "ada@example.com", "school": "X"}
+                {"cardNumber": "AB-0002", "firstName": "Alan"
+                {"cardNumber": "AB-0003", "firstName": "Alan", "lastName": "Turing", "email": "alan@example.com"}
+                """);
+        //When
+        CustomerImportModel result = underTest.importCustomers(ndjson, ImportFormat.NDJSON);
+        //Then
+        assertEquals(ImportStatus.COMPLETED, result.status());
+        assertEquals(2, result.imported());
+        assertEquals(List.of(new CustomerImportErrorModel(2, "Line is not a customer JSON object!")), result.errors());
+    }
+
+    @Test
+    public void nullAndNonObjectLinesAreRejected(){
+        //Given
+        InputStream ndjson = input("""
+                null
+                []
+                "AB-0001"
+                42
+                {"cardNumber": "AB-0002", "firstName": "Alan", "lastName": "Turing", "email": "alan@example.com"}
+                """);
+        //When
+        CustomerImportModel result = underTest.importCustomers(ndjson, ImportFormat.NDJSON);
+        //Then
+        assertEquals(ImportStatus.COMPLETED, result.status());
+        assertEquals(1, result.imported());
+        assertEquals(List.of(1L, 2L, 3L, 4L), result.errors().stream().map(CustomerImportErrorModel::line).sorted().toList());
+    }
+
+    @Test
+    public void importingTheSameFileAgainRejectsEveryRow(){
+        //Given
+        String csv = """
+                cardNumber,firstName,lastName,email
+                AB-0001,Ada,Lovelace,ada@example.com
+                AB-0002,Alan,Turing,alan@example.com
+                """;
+        underTest.importCustomers(input(csv), ImportFormat.CSV);
+        //When
+        CustomerImportModel result = underTest.importCustomers(input(csv), ImportFormat.CSV);
+        //Then
+        assertEquals(0, result.imported());
+        assertEquals(2, result.rejected());
+        assertEquals(2, repository.count());
+    }
+
+    @Test
+    public void csvWithoutRequiredColumnsFails(){
+        //When
+        CustomerImportModel result = underTest.importCustomers(input("cardNumber,email\nAB-0001,ada@example.com\n"), ImportFormat.CSV);
+        //Then
+        assertEquals(ImportStatus.FAILED, result.status());
+        assertNotNull(result.failure());
+        assertEquals(result, underTest.getImport(result.importId()).orElseThrow());
+    }
+
+    private static InputStream input(String text){
+        return new ByteArrayInputStream(text.getBytes(StandardCharsets.UTF_8));
+    }
+
+}
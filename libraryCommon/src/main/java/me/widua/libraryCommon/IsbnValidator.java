@@ -0,0 +1,100 @@
+package me.widua.libraryCommon;
+
+/*
+ * ISBN-10 / ISBN-13 validation without regular expressions. Digits may be grouped with single hyphens
+ * or spaces ("0-7475-3269-9", "978 0 7475 3269 9"), checksums are verified in the same pass.
+ * isValid never allocates, normalize allocates only the resulting 13 digit String.
+ * Services store and key books by the normalized form, so every spelling of an ISBN meets the same entry.
+ */
+public class IsbnValidator {
+
+    private static final int ISBN_10_LENGTH = 10;
+    private static final int ISBN_13_LENGTH = 13;
+
+    public boolean isValid(CharSequence isbn){
+        return scan(isbn, null) != 0;
+    }
+
+    /*
+     * Returns the canonical, separator free ISBN-13 of a valid ISBN-10 or ISBN-13, or null when the input is not valid.
+     */
+    public String normalize(CharSequence isbn){
+        char[] digits = new char[ISBN_13_LENGTH];
+        int length = scan(isbn, digits);
+        if (length == ISBN_13_LENGTH){
+            return new String(digits);
+        }
+        if (length == ISBN_10_LENGTH){
+            // ISBN-10 "d1..d9 c" becomes "978 d1..d9 c'", with the check digit recomputed for the 13 digit form
+            System.arraycopy(digits, 0, digits, 3, 9);
+            digits[0] = '9';
+            digits[1] = '7';
+            digits[2] = '8';
+            digits[12] = checkDigit13(digits);
+            return new String(digits);
+        }
+        return null;
+    }
+
+    /*
+     * Validates the input and optionally copies its digits into target.
+     * Returns 10 or 13 for a valid ISBN of that length, 0 otherwise.
+     */
+    private int scan(CharSequence isbn, char[] target){
+        if (isbn == null) return 0;
+        int length = isbn.length();
+        int digits = 0;
+        int sum10 = 0;
+        int sum13 = 0;
+        int prefix = 0;
+        boolean previousWasSeparator = true;
+
+        for (int i = 0; i < length; i++){
+            char c = isbn.charAt(i);
+            if (c == '-' || c == ' '){
+                if (previousWasSeparator) return 0;
+                previousWasSeparator = true;
+                continue;
+            }
+            int value;
+            if (c >= '0' && c <= '9'){
+                value = c - '0';
+            } else if ((c == 'X' || c == 'x') && digits == ISBN_10_LENGTH - 1 && i == length - 1){
+                value = 10;
+            } else {
+                return 0;
+            }
+            if (digits == ISBN_13_LENGTH) return 0;
+            if (target != null){
+                target[digits] = value == 10 ? 'X' : c;
+            }
+            sum10 += value * (ISBN_10_LENGTH - digits);
+            sum13 += (digits & 1) == 0 ? value : value * 3;
+            if (digits < 3){
+                prefix = prefix * 10 + value;
+            }
+            digits++;
+            previousWasSeparator = false;
+        }
+        if (previousWasSeparator) return 0;
+
+        if (digits == ISBN_10_LENGTH){
+            return sum10 % 11 == 0 ? ISBN_10_LENGTH : 0;
+        }
+        // ISBN-13 always starts with the 978 or 979 EAN prefix
+        if (digits == ISBN_13_LENGTH && sum13 % 10 == 0 && (prefix == 978 || prefix == 979)){
+            return ISBN_13_LENGTH;
+        }
+        return 0;
+    }
+
+    private char checkDigit13(char[] digits){
+        int sum = 0;
+        for (int i = 0; i < ISBN_13_LENGTH - 1; i++){
+            int value = digits[i] - '0';
+            sum += (i & 1) == 0 ? value : value * 3;
+        }
+        return (char) ('0' + (10 - sum % 10) % 10);
+    }
+
+}
@@ -0,0 +1,25 @@
+package me.widua.libraryCommon;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.AutoConfiguration;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnMissingBean;
+import org.springframework.context.annotation.Bean;
+
+/*
+ * Beans every service with this library on its classpath shares.
+ */
+@AutoConfiguration
+public class LibraryAutoConfiguration {
+
+    @Bean
+    @ConditionalOnMissingBean
+    public IsbnValidator isbnValidator(){
+        return new IsbnValidator();
+    }
+
+    @Bean
+    public TrainingRunListener trainingRunListener(@Value("${library.startup.training:false}") boolean training){
+        return new TrainingRunListener(training);
+    }
+
+}
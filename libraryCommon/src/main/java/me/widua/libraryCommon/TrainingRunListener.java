@@ -0,0 +1,27 @@
+package me.widua.libraryCommon;
+
+import org.springframework.boot.SpringApplication;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.ApplicationListener;
+
+/*
+ * With library.startup.training=true the service shuts down as soon as it is ready, which turns a run under
+ * -XX:ArchiveClassesAtExit into a CDS training run (mvn -Pstartup). The flag is read at runtime instead of through
+ * @ConditionalOnProperty, AOT processing would decide a condition once, at build time.
+ */
+public class TrainingRunListener implements ApplicationListener<ApplicationReadyEvent> {
+
+    private final boolean training ;
+
+    public TrainingRunListener(boolean training){
+        this.training = training;
+    }
+
+    @Override
+    public void onApplicationEvent(ApplicationReadyEvent event){
+        if (training){
+            System.exit(SpringApplication.exit(event.getApplicationContext()));
+        }
+    }
+
+}
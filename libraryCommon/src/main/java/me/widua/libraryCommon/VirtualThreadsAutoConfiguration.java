@@ -0,0 +1,68 @@
+package me.widua.libraryCommon;
+
+import org.apache.coyote.ProtocolHandler;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.AutoConfiguration;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnClass;
+import org.springframework.boot.autoconfigure.task.TaskExecutionAutoConfiguration;
+import org.springframework.boot.task.TaskExecutorBuilder;
+import org.springframework.boot.web.embedded.tomcat.TomcatProtocolHandlerCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.core.task.AsyncTaskExecutor;
+import org.springframework.core.task.support.TaskExecutorAdapter;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/*
+ * With library.threads.virtual=true Tomcat request handling and MVC async requests (e.g. streamed NDJSON) run on
+ * virtual threads, so requests blocked on JDBC or HTTP calls don't hold on to a pooled platform thread. None of the
+ * services uses @Async, so there is no taskExecutor alias for it.
+ * The build still targets Java 17, so the executor is looked up reflectively and needs a Java 21 runtime.
+ * The flag is read at runtime like in TrainingRunListener, AOT would freeze a @ConditionalOnProperty at build time.
+ * Without it the beans keep Tomcat's own pool and Boot's default task executor.
+ */
+@AutoConfiguration(before = TaskExecutionAutoConfiguration.class)
+@ConditionalOnClass(ProtocolHandler.class)
+public class VirtualThreadsAutoConfiguration implements DisposableBean {
+
+    // Null on platform threads
+    private final ExecutorService virtualThreadExecutor ;
+
+    public VirtualThreadsAutoConfiguration(@Value("${library.threads.virtual:false}") boolean virtualThreads){
+        this.virtualThreadExecutor = virtualThreads ? newVirtualThreadExecutor() : null;
+    }
+
+    @Bean
+    public TomcatProtocolHandlerCustomizer<ProtocolHandler> virtualThreadsProtocolHandlerCustomizer(){
+        return protocolHandler -> {
+            if (virtualThreadExecutor != null){
+                protocolHandler.setExecutor(virtualThreadExecutor);
+            }
+        };
+    }
+
+    @Bean(name = TaskExecutionAutoConfiguration.APPLICATION_TASK_EXECUTOR_BEAN_NAME)
+    public AsyncTaskExecutor applicationTaskExecutor(TaskExecutorBuilder builder){
+        return virtualThreadExecutor != null ? new TaskExecutorAdapter(virtualThreadExecutor) : builder.build();
+    }
+
+    @Override
+    public void destroy(){
+        if (virtualThreadExecutor != null){
+            virtualThreadExecutor.shutdown();
+        }
+    }
+
+    private static ExecutorService newVirtualThreadExecutor(){
+        try {
+            return (ExecutorService) Executors.class.getMethod("newVirtualThreadPerTaskExecutor").invoke(null);
+        } catch (NoSuchMethodException e) {
+            throw new IllegalStateException(String.format("library.threads.virtual needs Java 21 or newer, running on %s!", Runtime.version()), e);
+        } catch (ReflectiveOperationException e) {
+            throw new IllegalStateException("Virtual thread executor couldn't be created!", e);
+        }
+    }
+
+}
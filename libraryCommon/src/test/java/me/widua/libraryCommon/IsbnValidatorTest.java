@@ -0,0 +1,63 @@
+package me.widua.libraryCommon;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class IsbnValidatorTest {
+
+    private final IsbnValidator underTest = new IsbnValidator();
+
+    @Test
+    public void acceptsValidIsbn10(){
+        assertAll(
+                "Valid ISBN-10",
+                () -> assertTrue(underTest.isValid("0747532699")),
+                () -> assertTrue(underTest.isValid("0-7475-3269-9")),
+                () -> assertTrue(underTest.isValid("0 7475 3269 9")),
+                () -> assertTrue(underTest.isValid("080442957X")),
+                () -> assertTrue(underTest.isValid("0-8044-2957-x"))
+        );
+    }
+
+    @Test
+    public void acceptsValidIsbn13(){
+        assertAll(
+                "Valid ISBN-13",
+                () -> assertTrue(underTest.isValid("9780747532699")),
+                () -> assertTrue(underTest.isValid("978-0-7475-3269-9")),
+                () -> assertTrue(underTest.isValid("979-10-90636-07-1"))
+        );
+    }
+
+    @Test
+    public void rejectsInvalidInput(){
+        assertAll(
+                "Invalid ISBN",
+                () -> assertFalse(underTest.isValid(null), "null"),
+                () -> assertFalse(underTest.isValid(""), "empty"),
+                () -> assertFalse(underTest.isValid("0747532698"), "ISBN-10 checksum"),
+                () -> assertFalse(underTest.isValid("9780747532698"), "ISBN-13 checksum"),
+                () -> assertFalse(underTest.isValid("1230747532694"), "ISBN-13 without 978/979 prefix"),
+                () -> assertFalse(underTest.isValid("-0747532699"), "leading separator"),
+                () -> assertFalse(underTest.isValid("0747532699-"), "trailing separator"),
+                () -> assertFalse(underTest.isValid("0--7475-3269-9"), "double separator"),
+                () -> assertFalse(underTest.isValid("X747532699"), "X not in check digit position"),
+                () -> assertFalse(underTest.isValid("97807475326990"), "too long"),
+                () -> assertFalse(underTest.isValid("07475a2699"), "letter")
+        );
+    }
+
+    @Test
+    public void normalizesToIsbn13(){
+        assertAll(
+                "Normalization",
+                () -> assertEquals("9780747532699", underTest.normalize("0-7475-3269-9")),
+                () -> assertEquals("9780804429573", underTest.normalize("080442957X")),
+                () -> assertEquals("9780747532699", underTest.normalize("978 0 7475 3269 9")),
+                () -> assertEquals("9791090636071", underTest.normalize("979-10-90636-07-1")),
+                () -> assertNull(underTest.normalize("0747532698"))
+        );
+    }
+
+}
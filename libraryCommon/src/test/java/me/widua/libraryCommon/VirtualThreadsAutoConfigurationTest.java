@@ -0,0 +1,44 @@
+package me.widua.libraryCommon;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledForJreRange;
+import org.junit.jupiter.api.condition.JRE;
+import org.springframework.boot.autoconfigure.AutoConfigurations;
+import org.springframework.boot.autoconfigure.task.TaskExecutionAutoConfiguration;
+import org.springframework.boot.test.context.runner.ApplicationContextRunner;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class VirtualThreadsAutoConfigurationTest {
+
+    private final ApplicationContextRunner runner = new ApplicationContextRunner()
+            .withConfiguration(AutoConfigurations.of(TaskExecutionAutoConfiguration.class,
+                    VirtualThreadsAutoConfiguration.class, LibraryAutoConfiguration.class));
+
+    @Test
+    public void platformThreadsByDefault(){
+        runner.run(context -> {
+            //Then
+            assertNull(context.getStartupFailure());
+            assertInstanceOf(ThreadPoolTaskExecutor.class, context.getBean(TaskExecutionAutoConfiguration.APPLICATION_TASK_EXECUTOR_BEAN_NAME));
+            assertFalse(context.containsBean("taskExecutor"));
+            assertNotNull(context.getBean(TrainingRunListener.class));
+        });
+    }
+
+    @Test
+    @EnabledForJreRange(max = JRE.JAVA_20)
+    public void virtualThreadsNeedJava21(){
+        runner.withPropertyValues("library.threads.virtual=true").run(context -> {
+            //Then
+            Throwable failure = context.getStartupFailure();
+            while (failure != null && !(failure instanceof IllegalStateException)){
+                failure = failure.getCause();
+            }
+            assertNotNull(failure);
+            assertTrue(failure.getMessage().startsWith("library.threads.virtual needs Java 21"));
+        });
+    }
+
+}